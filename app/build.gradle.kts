@@ -9,6 +9,8 @@ plugins {
     // Apply the application plugin to add support for building a CLI application in Java.
     application
     id("com.gradleup.shadow") version "9.0.0-beta4"
+    // Benchmarks in src/jmh/java, run with ./gradlew :app:jmh
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -49,6 +51,19 @@ tasks.named<Test>("test") {
     useJUnitPlatform()
 }
 
+jmh {
+    jmhVersion = "1.37"
+    // Report allocation rates next to throughput.
+    profilers = listOf("gc")
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    // Select benchmarks with -PjmhIncludes=<regex>, e.g. -PjmhIncludes=ScoringBenchmark
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes = listOf(it) }
+    resultFormat = "JSON"
+    resultsFile = project.file("build/reports/jmh/results.json")
+}
+
 tasks.withType<JavaCompile> {
     // relevant for picocli annotation processor
     val compilerArgs = options.compilerArgs
@@ -0,0 +1,36 @@
+package org.upb_sw_factChecking.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.upb_sw_factChecking.dataset.Fokgsw2024;
+import org.upb_sw_factChecking.dataset.TestSet;
+import org.upb_sw_factChecking.dataset.TrainingSet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading the bundled FOKGSW 2024 training and test sets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DatasetBenchmark {
+
+    @Benchmark
+    public TrainingSet loadTrainingSet() {
+        return Fokgsw2024.getTrainingSet();
+    }
+
+    @Benchmark
+    public TestSet loadTestSet() {
+        return Fokgsw2024.getTestSet();
+    }
+
+    @Benchmark
+    public long streamTestSet() {
+        try (var entries = Fokgsw2024.streamTestSet()) {
+            return entries.count();
+        }
+    }
+}
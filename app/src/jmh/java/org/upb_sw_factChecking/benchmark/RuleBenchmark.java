@@ -0,0 +1,110 @@
+package org.upb_sw_factChecking.benchmark;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.upb_sw_factChecking.scoring.ReachabilityCache;
+import org.upb_sw_factChecking.scoring.WeightedRule;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks rule generation and rule application on the synthetic knowledge graph.
+ * Every invocation works on the next example, so all examples are covered evenly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RuleBenchmark {
+
+    @Param({"10000"})
+    int entities;
+
+    @Param({"50"})
+    int predicates;
+
+    @Param({"5"})
+    int outDegree;
+
+    @Param({"3"})
+    int maxPathLength;
+
+    private Model model;
+    private List<Statement> examples;
+    private Statement[][][] paths;
+    private WeightedRule[][] rules;
+    private ReachabilityCache cache;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        model = SyntheticGraph.create(entities, predicates, outDegree);
+        examples = SyntheticGraph.examples(model, entities, predicates, 64);
+        paths = new Statement[examples.size()][][];
+        rules = new WeightedRule[examples.size()][];
+        for (int i = 0; i < examples.size(); i++) {
+            final var example = examples.get(i);
+            paths[i] = WeightedRule.createPaths(model, example.getSubject(), example.getObject(), maxPathLength);
+            rules[i] = WeightedRule.fromPaths(paths[i], example, true);
+        }
+        cache = new ReachabilityCache(10_000_000, ReachabilityCache.Eviction.LRU);
+    }
+
+    private int nextExample() {
+        final int i = next;
+        next = (next + 1) % examples.size();
+        return i;
+    }
+
+    @Benchmark
+    public Statement[][] createPaths() {
+        final var example = examples.get(nextExample());
+        return WeightedRule.createPaths(model, example.getSubject(), example.getObject(), maxPathLength);
+    }
+
+    @Benchmark
+    public Object createRules() {
+        final int i = nextExample();
+        return WeightedRule.createRules(paths[i], examples.get(i));
+    }
+
+    @Benchmark
+    public WeightedRule[] fromPaths() {
+        final int i = nextExample();
+        return WeightedRule.fromPaths(paths[i], examples.get(i), true);
+    }
+
+    /**
+     * Applies the rules of one example to the example it was generated from, evaluating every rule body.
+     */
+    @Benchmark
+    public int doesRuleApply() {
+        final int i = nextExample();
+        int applied = 0;
+        for (WeightedRule rule : rules[i]) {
+            if (rule.doesRuleApply(model, examples.get(i))) applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * Like {@link #doesRuleApply()}, but with the rule bodies taken from a warm reachability cache.
+     */
+    @Benchmark
+    public int doesRuleApplyCached() {
+        final int i = nextExample();
+        int applied = 0;
+        for (WeightedRule rule : rules[i]) {
+            if (rule.doesRuleApply(model, examples.get(i), cache)) applied++;
+        }
+        return applied;
+    }
+}
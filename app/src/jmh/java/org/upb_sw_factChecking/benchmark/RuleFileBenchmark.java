@@ -0,0 +1,78 @@
+package org.upb_sw_factChecking.benchmark;
+
+import org.apache.jena.rdf.model.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.upb_sw_factChecking.scoring.WeightedRule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading and saving rule files in the text and the binary format.
+ * The rules are generated from the paths of examples of the synthetic knowledge graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RuleFileBenchmark {
+
+    private static final int ENTITIES = 10_000;
+    private static final int PREDICATES = 50;
+    private static final int OUT_DEGREE = 5;
+
+    @Param({"txt", "bin"})
+    String format;
+
+    private WeightedRule[] rules;
+    private Path directory;
+    private Path rulesFile;
+    private Path outputFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        final var model = SyntheticGraph.create(ENTITIES, PREDICATES, OUT_DEGREE);
+        final Set<WeightedRule> unique = new LinkedHashSet<>();
+        boolean isPositive = true;
+        for (Statement example : SyntheticGraph.examples(model, ENTITIES, PREDICATES, 256)) {
+            final var paths = WeightedRule.createPaths(model, example.getSubject(), example.getObject(), 3);
+            unique.addAll(List.of(WeightedRule.fromPaths(paths, example, isPositive)));
+            isPositive = !isPositive;
+        }
+        rules = unique.toArray(WeightedRule[]::new);
+
+        directory = Files.createTempDirectory("rule-file-benchmark");
+        rulesFile = directory.resolve("rules." + format);
+        outputFile = directory.resolve("output." + format);
+        WeightedRule.serializeRules(rules, rulesFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(rulesFile);
+        Files.deleteIfExists(outputFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public WeightedRule[] load() throws IOException {
+        return WeightedRule.loadRules(rulesFile);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        WeightedRule.serializeRules(rules, outputFile);
+    }
+}
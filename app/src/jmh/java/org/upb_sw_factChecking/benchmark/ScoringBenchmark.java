@@ -0,0 +1,78 @@
+package org.upb_sw_factChecking.benchmark;
+
+import org.apache.jena.rdf.model.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.upb_sw_factChecking.app.SystemParameters;
+import org.upb_sw_factChecking.scoring.FactScorer;
+import org.upb_sw_factChecking.scoring.ReachabilityCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks scoring facts with rules learned on the synthetic knowledge graph, with and without the reachability
+ * cache. The rules are learned once from the first half of the generated examples, the second half is scored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ScoringBenchmark {
+
+    private static final int ENTITIES = 10_000;
+    private static final int PREDICATES = 50;
+    private static final int OUT_DEGREE = 5;
+    private static final int EXAMPLES = 256;
+
+    @Param({"0", "10000000"})
+    long cacheSize;
+
+    private FactScorer factScorer;
+    private List<Statement> facts;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final var model = SyntheticGraph.create(ENTITIES, PREDICATES, OUT_DEGREE);
+        final var examples = SyntheticGraph.examples(model, ENTITIES, PREDICATES, 2 * EXAMPLES);
+        final var trainingFile = Files.createTempFile("training", ".nt");
+        try {
+            final var trainingSet = SyntheticGraph.trainingSet(examples.subList(0, EXAMPLES), trainingFile);
+            factScorer = new FactScorer(model, null, new ReachabilityCache(cacheSize, ReachabilityCache.Eviction.LRU));
+            factScorer.generateAndWeightRules(trainingSet, SystemParameters.ALPHA, SystemParameters.BETA, SystemParameters.GAMMA);
+        } finally {
+            Files.deleteIfExists(trainingFile);
+        }
+        facts = examples.subList(EXAMPLES, examples.size());
+    }
+
+    @Benchmark
+    public double scoreStatement(Cursor cursor) {
+        final var fact = facts.get(cursor.next);
+        cursor.next = (cursor.next + 1) % facts.size();
+        return factScorer.scoreStatement(fact);
+    }
+
+    /**
+     * Scores all facts as one batch, see {@link FactScorer#scoreBatch}.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public double[] scoreBatch() {
+        return factScorer.scoreBatch(facts);
+    }
+}
@@ -0,0 +1,121 @@
+package org.upb_sw_factChecking.benchmark;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.vocabulary.RDF;
+import org.upb_sw_factChecking.dataset.TrainingSet;
+import org.upb_sw_factChecking.vocab.Vocab;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a reproducible knowledge graph and training set for the benchmarks.
+ * <p>
+ * Every entity has the same number of outgoing edges with uniformly chosen predicates. Their targets are skewed
+ * towards low entity ids, so a few entities become hubs with a high in-degree, like in real knowledge graphs.
+ */
+final class SyntheticGraph {
+
+    static final String NS = "http://example.org/synthetic/";
+    static final long SEED = 42;
+
+    private SyntheticGraph() {}
+
+    /**
+     * Generates the knowledge graph.
+     *
+     * @param entities   the number of entities
+     * @param predicates the number of predicates
+     * @param outDegree  the number of outgoing edges of every entity
+     * @return           the knowledge graph
+     */
+    static Model create(int entities, int predicates, int outDegree) {
+        final var random = new Random(SEED);
+        final var model = ModelFactory.createDefaultModel();
+        final var properties = properties(model, predicates);
+        for (int subject = 0; subject < entities; subject++) {
+            final var resource = entity(model, subject);
+            for (int i = 0; i < outDegree; i++) {
+                final double r = random.nextDouble();
+                final int object = (int) (entities * r * r);
+                model.add(resource, properties[random.nextInt(predicates)], entity(model, object));
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Picks examples from the knowledge graph. Half of them are edges of the graph, the other half connect random
+     * entities with a random predicate. The graph is not changed.
+     *
+     * @param model      the knowledge graph
+     * @param entities   the number of entities of the graph
+     * @param predicates the number of predicates of the graph
+     * @param count      the number of examples
+     * @return           the examples, positive and negative ones alternating
+     */
+    static List<Statement> examples(Model model, int entities, int predicates, int count) {
+        final var random = new Random(SEED + 1);
+        final var properties = properties(model, predicates);
+        final List<Statement> examples = new ArrayList<>(count);
+        while (examples.size() < count) {
+            final var subject = entity(model, random.nextInt(entities));
+            if (examples.size() % 2 == 0) {
+                final var edges = subject.listProperties().toList();
+                if (edges.isEmpty()) continue;
+                examples.add(edges.get(random.nextInt(edges.size())));
+            } else {
+                examples.add(model.createStatement(subject, properties[random.nextInt(predicates)], entity(model, random.nextInt(entities))));
+            }
+        }
+        return examples;
+    }
+
+    /**
+     * Writes the examples as training set, positive and negative ones alternating, and reads it back.
+     *
+     * @param examples the examples
+     * @param file     the file to write the training set to
+     * @return         the training set
+     * @throws IOException if an I/O error occurs
+     */
+    static TrainingSet trainingSet(List<Statement> examples, Path file) throws IOException {
+        final var reified = ModelFactory.createDefaultModel();
+        for (int i = 0; i < examples.size(); i++) {
+            final var example = examples.get(i);
+            final var fact = reified.createResource(NS + "fact/" + i);
+            fact.addProperty(RDF.type, RDF.Statement);
+            fact.addProperty(RDF.subject, example.getSubject());
+            fact.addProperty(RDF.predicate, example.getPredicate());
+            fact.addProperty(RDF.object, example.getObject());
+            fact.addLiteral(Vocab.AKSW_HAS_TRUTH_VALUE, i % 2 == 0 ? 1.0 : 0.0);
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            RDFDataMgr.write(out, reified, Lang.NTRIPLES);
+        }
+        return new TrainingSet(file);
+    }
+
+    private static Property[] properties(Model model, int predicates) {
+        final var properties = new Property[predicates];
+        for (int i = 0; i < predicates; i++) {
+            properties[i] = model.createProperty(NS + "p" + i);
+        }
+        return properties;
+    }
+
+    private static Resource entity(Model model, int id) {
+        return model.createResource(NS + "e" + id);
+    }
+}
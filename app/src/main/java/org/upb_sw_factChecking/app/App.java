@@ -1,12 +1,34 @@
 package org.upb_sw_factChecking.app;
 
+import org.apache.jena.graph.Node;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Statement;
-import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.core.Transactional;
+import org.apache.jena.system.Txn;
 import org.apache.jena.vocabulary.RDFS;
 import org.slf4j.Logger;
+import org.upb_sw_factChecking.graph.CsrGraph;
+import org.upb_sw_factChecking.graph.DegreeStatistics;
+import org.upb_sw_factChecking.graph.GraphFingerprint;
+import org.upb_sw_factChecking.graph.GraphSnapshot;
+import org.upb_sw_factChecking.graph.LabelIndex;
+import org.upb_sw_factChecking.graph.NTriplesLoader;
+import org.upb_sw_factChecking.graph.TdbStore;
+import org.upb_sw_factChecking.metrics.Metrics;
+import org.upb_sw_factChecking.metrics.MetricsExporter;
+import org.upb_sw_factChecking.metrics.Timer;
+import org.upb_sw_factChecking.scoring.Evidence;
+import org.upb_sw_factChecking.scoring.EvidenceWriter;
 import org.upb_sw_factChecking.scoring.FactScorer;
+import org.upb_sw_factChecking.scoring.LearnedRules;
+import org.upb_sw_factChecking.scoring.PathEnumerator;
+import org.upb_sw_factChecking.scoring.ReachabilityCache;
+import org.upb_sw_factChecking.scoring.RuleCheckpoint;
+import org.upb_sw_factChecking.scoring.WeightedRule;
+import org.upb_sw_factChecking.server.ScoringServer;
 import org.upb_sw_factChecking.dataset.Fokgsw2024;
+import org.upb_sw_factChecking.dataset.ResultWriter;
 import org.upb_sw_factChecking.dataset.TestSet;
 import org.upb_sw_factChecking.dataset.TrainingSet;
 import picocli.CommandLine;
@@ -16,13 +38,25 @@ import picocli.CommandLine.Mixin;
 import picocli.CommandLine.ArgGroup;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 
-@Command(name = "", subcommands = {App.Check.class, App.Evaluate.class}, customSynopsis = "[evaluate | check] [OPTIONS]")
+@Command(name = "", subcommands = {App.Check.class, App.Evaluate.class, App.Learn.class, App.Serve.class, App.Snapshot.class, App.ConvertRules.class}, customSynopsis = "[evaluate | check | learn | serve | snapshot | convert-rules] [OPTIONS]")
 public class App {
 
     @Option(names = {"-h", "--help"}, usageHelp = true, description = "Display this help message.")
@@ -30,6 +64,31 @@ public class App {
 
     public static final Logger logger = org.slf4j.LoggerFactory.getLogger(App.class);
 
+    /**
+     * The loaded knowledge graph.
+     *
+     * @param model         the model holding the knowledge graph
+     * @param transactional the store the model belongs to if it requires transactions, null otherwise
+     */
+    record Database(Model model, Transactional transactional) {
+        /**
+         * Runs the action inside a read transaction if the store requires one.
+         */
+        <T> T read(Supplier<T> action) {
+            return transactional == null ? action.get() : Txn.calculateRead(transactional, action);
+        }
+    }
+
+    /**
+     * Available in-memory representations of the knowledge graph.
+     */
+    enum GraphStore {
+        // Jena in-memory model.
+        MODEL,
+        // Read-only, dictionary encoded graph with compressed sparse row adjacency.
+        CSR
+    }
+
     static class CommandLineOptions {
         @Option(names = {"-h", "--help"}, usageHelp = true, description = "Display this help message.")
         boolean helpRequested;
@@ -56,12 +115,113 @@ public class App {
         static class DatabaseOption {
             //@Option(names = {"-e", "--endpoint"}, description = "SPARQL endpoint", paramLabel = "<URL>")
             //String endpoint;
-            @Option(names = {"-d", "--dump-file"}, description = "Dump file", paramLabel = "<FILE>")
+            @ArgGroup(exclusive = false)
+            DumpOption dump;
+            @Option(names = {"-s", "--snapshot-file"}, description = "Binary snapshot of the knowledge graph, written by the snapshot command", paramLabel = "<FILE>")
+            String snapshotFile;
+
+            String dumpFile() {
+                return dump == null ? null : dump.dumpFile;
+            }
+
+            String tdbDir() {
+                return dump == null ? null : dump.tdbDir;
+            }
+
+            /**
+             * The file or directory the knowledge graph is loaded from, files derived from it are kept next to it.
+             *
+             * @return The snapshot file, the TDB2 store directory or the dump file
+             */
+            Path knowledgeGraph() {
+                return Path.of(snapshotFile != null ? snapshotFile : tdbDir() != null ? tdbDir() : dumpFile());
+            }
+        }
+
+        static class DumpOption {
+            @Option(names = {"-d", "--dump-file"}, description = "Dump file. With --tdb-dir, only needed to build the store on first use.", paramLabel = "<FILE>")
             String dumpFile;
+            @Option(names = {"--tdb-dir"}, description = "Directory of a persistent TDB2 store. The store is built from the dump file on first use, later runs only read the store.", paramLabel = "<DIR>")
+            String tdbDir;
         }
 
+        @Mixin
+        GraphStoreOption graphStore;
+
+        @Option(names = {"--project-predicates"}, description = "Only load the triples of the dump file whose predicate is used by the rules file, and rdfs:label for labels. Has no effect if the rules still have to be generated.", defaultValue = "false")
+        boolean projectPredicates = false;
+
         @Option(names = {"--labels"}, description = "Display labels instead of URIs", defaultValue = "false")
         boolean displayLabels = false;
+
+        @Option(names = {"--label-language"}, description = "Preferred language of the displayed labels, empty to prefer labels without language", paramLabel = "<LANG>", defaultValue = "en")
+        String labelLanguage = "en";
+
+        @Option(names = {"--label-storage"}, description = "Where the label index is held: ${COMPLETION-CANDIDATES}. A mapped index is kept in a file next to the knowledge graph.", paramLabel = "<STORAGE>", defaultValue = "heap")
+        LabelIndex.Storage labelStorage = LabelIndex.Storage.HEAP;
+
+        @Option(names = {"--explain"}, description = "How the evidence path of each fact is logged and written to the explain file: ${COMPLETION-CANDIDATES}. Only scores are computed for none.", paramLabel = "<LEVEL>", defaultValue = "none")
+        FactScorer.Explain explain = FactScorer.Explain.NONE;
+
+        @Option(names = {"--explain-file"}, description = "File the evidence of each fact is written to as JSON lines, implies --explain iris unless labels are requested", paramLabel = "<FILE>")
+        String explainFile;
+
+        @Mixin
+        CacheOptions cache;
+
+        @Mixin
+        GenerationOptions generation;
+
+        @Mixin
+        MetricsOptions metrics;
+    }
+
+    /**
+     * Option of the in-memory representation of the knowledge graph, shared by the commands that load it.
+     */
+    static class GraphStoreOption {
+        @Option(names = {"--graph-store"}, description = "How the knowledge graph is held in memory: ${COMPLETION-CANDIDATES}", paramLabel = "<STORE>", defaultValue = "model")
+        GraphStore graphStore = GraphStore.MODEL;
+    }
+
+    /**
+     * Options of the reachability cache, shared by the commands that score facts.
+     */
+    static class CacheOptions {
+        @Option(names = {"--cache-size"}, description = "Maximum number of nodes kept in the cache of nodes reachable through rule bodies, 0 disables the cache", paramLabel = "<NODES>", defaultValue = "10000000")
+        long cacheSize = SystemParameters.REACHABILITY_CACHE_SIZE;
+
+        @Option(names = {"--cache-eviction"}, description = "Eviction order of the reachability cache: ${COMPLETION-CANDIDATES}", paramLabel = "<ORDER>", defaultValue = "lru")
+        ReachabilityCache.Eviction cacheEviction = ReachabilityCache.Eviction.LRU;
+
+        ReachabilityCache create() {
+            return new ReachabilityCache(cacheSize, cacheEviction);
+        }
+    }
+
+    /**
+     * Options of the rule generation, shared by the commands that generate rules.
+     */
+    static class GenerationOptions {
+        @Option(names = {"--example-timeout"}, description = "Maximum time in seconds for the path search of one training example, 0 for none. Rules are generated from the paths found until then.", paramLabel = "<SECONDS>", defaultValue = "60")
+        long exampleTimeout = TimeUnit.MILLISECONDS.toSeconds(SystemParameters.EXAMPLE_TIMEOUT);
+
+        @Option(names = {"--generation-budget"}, description = "Maximum time in seconds for generating the rules of the training set, 0 for none. Examples not started in time are left for the next run.", paramLabel = "<SECONDS>", defaultValue = "0")
+        long generationBudget = TimeUnit.MILLISECONDS.toSeconds(SystemParameters.GENERATION_BUDGET);
+
+        @Option(names = {"--max-degree"}, description = "Path search does not pass through nodes with a higher in- or out-degree, taken from the degree statistics of the knowledge graph. 0 disables pruning.", paramLabel = "<DEGREE>", defaultValue = "0")
+        int maxDegree = SystemParameters.MAX_NODE_DEGREE;
+    }
+
+    /**
+     * Options of the metrics file, shared by all commands that check facts or generate rules.
+     */
+    static class MetricsOptions {
+        @Option(names = {"--metrics-file"}, description = "File the metrics are written to periodically and at exit, as JSON if it ends in .json, in the Prometheus text format otherwise", paramLabel = "<FILE>")
+        String metricsFile;
+
+        @Option(names = {"--metrics-interval"}, description = "Interval in seconds between writes of the metrics file, 0 to only write it at exit", paramLabel = "<SECONDS>", defaultValue = "10")
+        long metricsInterval = 10;
     }
 
     @Command(
@@ -77,34 +237,62 @@ public class App {
 
         @Override
         public void run() {
-            // Load the training set
-            TrainingSet trainingSet = loadTrainingSet(options.trainingFile, options.testData.useDefaultData);
-
-            // Load database
-            logger.info("Loading database.");
-            Model model = RDFDataMgr.loadModel(options.database.dumpFile);
-
-            // Load rules
-            final var factChecker = loadFactScorer(model, trainingSet, options.rulesFile);
+            try (var metrics = startMetrics(options.metrics.metricsFile, options.metrics.metricsInterval)) {
+                // Load the training set
+                TrainingSet trainingSet = loadTrainingSet(options.trainingFile, options.testData.useDefaultData);
+
+                // Load database
+                final var database = loadDatabase(options);
+
+                // Load rules
+                final var factChecker = loadFactScorer(database, trainingSet, options);
+
+                logger.info("Evaluating system.");
+                logger.info("Checking {} facts.", trainingSet.getEntries().size());
+                try (var evidenceWriter = openEvidenceWriter(options.explainFile, factChecker)) {
+                    evaluate(trainingSet, database, factChecker, evidenceWriter);
+                } catch (IOException e) {
+                    logger.error("Error writing explain file", e);
+                    throw new RuntimeException(e);
+                }
+                logCacheStatistics(factChecker);
+            }
+        }
 
-            logger.info("Evaluating system.");
-            logger.info("Checking {} facts.", trainingSet.getEntries().size());
-            AtomicReference<Double> averageError = new AtomicReference<>(0.0);
+        private void evaluate(TrainingSet trainingSet, Database database, FactScorer factChecker, EvidenceWriter evidenceWriter) {
+            // Batches are scored in parallel without a shared lock, errors are summed in striped cells.
+            final var totalError = new DoubleAdder();
             AtomicInteger count = new AtomicInteger();
-            trainingSet.getEntries().parallelStream().forEach(entry -> {
-                final double truthValue = factChecker.scoreStatement(entry.statement());
-                synchronized (factChecker) {
+            final var entries = trainingSet.getEntries();
+            final int batchSize = SystemParameters.BATCH_SIZE;
+            IntStream.range(0, (entries.size() + batchSize - 1) / batchSize).parallel().forEach(batchIndex -> {
+                final var batch = entries.subList(batchIndex * batchSize, Math.min(entries.size(), (batchIndex + 1) * batchSize));
+                final var evidence = evidenceWriter == null ? null : new Evidence[batch.size()];
+                final double[] truthValues = factChecker.scoreBatch(batch.stream().map(TrainingSet.TrainingSetEntry::statement).toList(), evidence);
+                if (evidenceWriter != null) {
+                    final List<TrainingSet.TrainingSetEntry> results = new ArrayList<>(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        results.add(new TrainingSet.TrainingSetEntry(batch.get(i).factIRI(), batch.get(i).statement(), truthValues[i]));
+                    }
+                    try {
+                        evidenceWriter.write(results, evidence);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    final var entry = batch.get(i);
+                    final double truthValue = truthValues[i];
                     final double error = Math.abs(truthValue - entry.truthValue());
-                    averageError.updateAndGet(v -> v + error);
+                    totalError.add(error);
                     logger.info("Truth value for '{}' is {}, expected was {}, error is {}.",
-                            options.displayLabels ? labeledStatement(model, entry.statement()) : entry.statement(),
+                            options.displayLabels ? labeledStatement(factChecker.getLabels(), entry.statement()) : entry.statement(),
                             truthValue, entry.truthValue(), error);
-                    logger.info("{} facts remaining.", trainingSet.getEntries().size() - count.incrementAndGet());
                 }
+                logger.info("{} facts remaining.", entries.size() - count.addAndGet(batch.size()));
             });
 
-            averageError.updateAndGet(v -> v / trainingSet.getEntries().size());
-            logger.info("Average error: {}", averageError);
+            logger.info("Average error: {}", totalError.sum() / trainingSet.getEntries().size());
         }
     }
 
@@ -122,64 +310,551 @@ public class App {
         @Option(names = {"-o", "--output-file"}, description = "Output file", paramLabel = "<FILE>", defaultValue = "result.ttl")
         public String outputFile = "result.ttl";
 
+        @Option(names = {"--output-order"}, description = "Order of the results in the output file: ${COMPLETION-CANDIDATES}", paramLabel = "<ORDER>", defaultValue = "input")
+        ResultWriter.Order outputOrder = ResultWriter.Order.INPUT;
+
         @Override
         public void run() {
-            // Load the test set
-            TestSet testSet = loadTestSet(options.testData.test, options.testData.useDefaultData);
+            // Open the test set, it is read while the facts are checked
+            try (var metrics = startMetrics(options.metrics.metricsFile, options.metrics.metricsInterval);
+                 var testSet = streamTestSet(options.testData.test, options.testData.useDefaultData)) {
+                // Load the training set
+                TrainingSet trainingSet = loadTrainingSet(options.trainingFile, options.testData.useDefaultData);
 
-            // Load the training set
-            TrainingSet trainingSet = loadTrainingSet(options.trainingFile, options.testData.useDefaultData);
+                // Load database
+                final var database = loadDatabase(options);
 
-            // Load database
-            logger.info("Loading database.");
-            Model model = RDFDataMgr.loadModel(options.database.dumpFile);
+                // Load rules
+                final var factChecker = loadFactScorer(database, trainingSet, options);
 
-            // Load rules
-            final var factChecker = loadFactScorer(model, trainingSet, options.rulesFile);
+                checkFacts(testSet, database, factChecker);
+                logCacheStatistics(factChecker);
+            }
+        }
 
-            final var results = new ArrayList<TrainingSet.TrainingSetEntry>(testSet.getEntries().size());
+        private void checkFacts(Stream<TestSet.TestSetEntry> testSet, Database database, FactScorer factChecker) {
+            final int threads = Runtime.getRuntime().availableProcessors();
+            // Bounds the batches in flight, so memory use does not grow with the test set.
+            final var inFlight = new Semaphore(2 * threads);
+            final var failure = new AtomicReference<Throwable>();
             AtomicInteger count = new AtomicInteger();
-            testSet.getEntries().parallelStream().forEach(entry -> {
-                final double truthValue = factChecker.scoreStatement(entry.statement());
-
-                synchronized (factChecker) {
-                    logger.info("Truth value for '{}' is {}",
-                            options.displayLabels ? labeledStatement(model, entry.statement()) : entry.statement(),
-                            truthValue);
-                    logger.info("{} facts remaining.", testSet.getEntries().size() - count.incrementAndGet());
-                    results.add(entry.toTrainingSetEntry(truthValue));
+
+            try (var writer = ResultWriter.open(Path.of(outputFile), outputOrder);
+                 var evidenceWriter = openEvidenceWriter(options.explainFile, factChecker);
+                 var executor = Executors.newFixedThreadPool(threads)) {
+                long sequence = 0;
+                final var iterator = testSet.iterator();
+                while (iterator.hasNext() && failure.get() == null) {
+                    // Facts are scored in batches, so rules are evaluated once for all facts of a predicate in the batch.
+                    final List<TestSet.TestSetEntry> batch = new ArrayList<>(SystemParameters.BATCH_SIZE);
+                    while (batch.size() < SystemParameters.BATCH_SIZE && iterator.hasNext()) {
+                        batch.add(iterator.next());
+                    }
+                    final long firstPosition = sequence;
+                    sequence += batch.size();
+
+                    inFlight.acquireUninterruptibly();
+                    executor.execute(() -> {
+                        try {
+                            final var evidence = evidenceWriter == null ? null : new Evidence[batch.size()];
+                            final double[] truthValues = factChecker.scoreBatch(batch.stream().map(TestSet.TestSetEntry::statement).toList(), evidence);
+                            final List<TrainingSet.TrainingSetEntry> results = new ArrayList<>(batch.size());
+                            for (int i = 0; i < batch.size(); i++) {
+                                results.add(batch.get(i).toTrainingSetEntry(truthValues[i]));
+                            }
+                            writer.write(firstPosition, results);
+                            if (evidenceWriter != null) {
+                                evidenceWriter.write(results, evidence);
+                            }
+
+                            for (int i = 0; i < batch.size(); i++) {
+                                final var entry = batch.get(i);
+                                logger.info("Truth value for '{}' is {}",
+                                        options.displayLabels ? labeledStatement(factChecker.getLabels(), entry.statement()) : entry.statement(),
+                                        truthValues[i]);
+                            }
+                            logger.info("{} facts checked.", count.addAndGet(batch.size()));
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
                 }
-            });
-            try {
-                TrainingSet.serializeToResultFile(results, Path.of(outputFile));
             } catch (IOException e) {
                 logger.error("Error writing result file", e);
                 throw new RuntimeException(e);
             }
+            if (failure.get() != null) {
+                logger.error("Error checking facts", failure.get());
+                throw new RuntimeException(failure.get());
+            }
+        }
+    }
+
+    @Command(
+            name = "learn",
+            description = "Learn rules from a training set and save them to the rules file.",
+            usageHelpAutoWidth = true,
+            separator = " ",
+            showDefaultValues = true
+    )
+    static class Learn implements Runnable {
+        @Option(names = {"-h", "--help"}, usageHelp = true, description = "Display this help message.")
+        boolean helpRequested;
+
+        @ArgGroup(exclusive = true, multiplicity = "1", heading = "Training data options%n")
+        TrainingDataOption trainingData;
+
+        @ArgGroup(exclusive = true, multiplicity = "1", heading = "Data source options%n")
+        CommandLineOptions.DatabaseOption database;
+
+        @Option(names = {"-r", "--rules-file"}, description = "Path to file where rules will be saved", paramLabel = "<FILE>", defaultValue = "rules.txt")
+        String rulesFile;
+
+        @Option(names = {"--incremental"}, description = "Fold the examples into the rules of an existing rules file. Paths are only searched for examples that were not learned yet.", defaultValue = "false")
+        boolean incremental = false;
+
+        @Mixin
+        GraphStoreOption graphStore;
+
+        @Mixin
+        GenerationOptions generation;
+
+        @Mixin
+        MetricsOptions metrics;
+
+        static class TrainingDataOption {
+            @Option(names = {"fokgsw"}, description = "Use default data from FoKG SW 2024")
+            Boolean useDefaultData = false;
+            @Option(names = {"-T", "--training-file"}, description = "Path to training data used to generate the rules", paramLabel = "<FILE>")
+            String trainingFile;
+        }
+
+        @Override
+        public void run() {
+            try (var exporter = startMetrics(metrics.metricsFile, metrics.metricsInterval)) {
+                final var rulesPath = Path.of(rulesFile);
+                LearnedRules learned = new LearnedRules();
+                if (incremental && rulesPath.toFile().exists()) {
+                    try {
+                        learned = LearnedRules.load(rulesPath);
+                    } catch (IOException e) {
+                        logger.error("Error reading rules file", e);
+                        throw new RuntimeException(e);
+                    }
+                    logger.info("Loaded {} rules learned from {} examples.", learned.getRules().length, learned.getLearnedExampleCount());
+                } else if (incremental) {
+                    logger.warn("Rules file {} does not exist, learning from scratch.", rulesFile);
+                }
+
+                final var trainingSet = loadTrainingSet(trainingData.trainingFile, trainingData.useDefaultData);
+                final var db = loadDatabase(database, graphStore.graphStore);
+
+                final var factChecker = new FactScorer(db.model(), db.transactional());
+                configureGeneration(factChecker, db, database, generation);
+                learnRules(factChecker, learned, trainingSet, rulesPath);
+                logger.info("Saved {} rules learned from {} examples to {}.", learned.getRules().length, learned.getLearnedExampleCount(), rulesFile);
+            }
+        }
+    }
+
+    @Command(
+            name = "serve",
+            description = "Keep the knowledge graph and the rules loaded and score facts sent to a local HTTP endpoint.",
+            usageHelpAutoWidth = true,
+            separator = " ",
+            showDefaultValues = true
+    )
+    static class Serve implements Runnable {
+        @Option(names = {"-h", "--help"}, usageHelp = true, description = "Display this help message.")
+        boolean helpRequested;
+
+        @ArgGroup(exclusive = true, multiplicity = "1", heading = "Data source options%n")
+        CommandLineOptions.DatabaseOption database;
+
+        @Option(names = {"-r", "--rules-file"}, description = "Path to the rules file, learned with the learn command", paramLabel = "<FILE>", defaultValue = "rules.txt")
+        String rulesFile;
+
+        @Option(names = {"--host"}, description = "Address to listen on", paramLabel = "<HOST>", defaultValue = "127.0.0.1")
+        String host = "127.0.0.1";
+
+        @Option(names = {"-p", "--port"}, description = "Port to listen on", paramLabel = "<PORT>", defaultValue = "8080")
+        int port = 8080;
+
+        @Option(names = {"--batch-size"}, description = "Maximum number of facts of concurrent requests scored together", paramLabel = "<FACTS>", defaultValue = "256")
+        int batchSize = SystemParameters.BATCH_SIZE;
+
+        @Option(names = {"--batch-linger"}, description = "Time in milliseconds a fact waits for facts of further requests to be scored with", paramLabel = "<MILLIS>", defaultValue = "2")
+        long batchLinger = SystemParameters.BATCH_LINGER;
+
+        @Option(names = {"--reload-interval"}, description = "Interval in seconds between checks whether the rules file changed, 0 to only reload it on request", paramLabel = "<SECONDS>", defaultValue = "10")
+        long reloadInterval = 10;
+
+        @Option(names = {"--max-request-size"}, description = "Maximum size in bytes of the body of a scoring request, larger requests are answered with 413", paramLabel = "<BYTES>", defaultValue = "16777216")
+        int maxRequestSize = SystemParameters.MAX_REQUEST_SIZE;
+
+        @Mixin
+        GraphStoreOption graphStore;
+
+        @Mixin
+        CacheOptions cache;
+
+        @Mixin
+        MetricsOptions metrics;
+
+        @Override
+        public void run() {
+            try (var exporter = startMetrics(metrics.metricsFile, metrics.metricsInterval);
+                 var server = new ScoringServer(new InetSocketAddress(host, port), Path.of(rulesFile), batchSize, TimeUnit.MILLISECONDS.toNanos(batchLinger), maxRequestSize)) {
+                // Finish the requests in flight on shutdown.
+                Runtime.getRuntime().addShutdownHook(new Thread(server::close, "server-shutdown"));
+                logger.info("Listening on {}:{}, ready once the knowledge graph and the rules are loaded.", host, server.getPort());
+
+                final var db = loadDatabase(database, graphStore.graphStore);
+                // The reachable nodes only depend on the knowledge graph, so the cache is kept when the rules are reloaded.
+                final var reachabilityCache = cache.create();
+                final boolean loaded = server.load(rules -> {
+                    final var factChecker = new FactScorer(db.model(), db.transactional(), reachabilityCache);
+                    return factChecker.loadRulesFromFile(rules) ? factChecker : null;
+                });
+                if (!loaded) {
+                    throw new IllegalStateException("Rules file " + rulesFile + " could not be loaded, learn the rules with the learn command first");
+                }
+                server.watchRulesFile(reloadInterval);
+                logger.info("Ready to score facts on port {}.", server.getPort());
+                server.awaitClose();
+            } catch (IOException e) {
+                logger.error("Error starting the server", e);
+                throw new RuntimeException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Command(
+            name = "snapshot",
+            description = "Write the knowledge graph to a binary snapshot file, that check and evaluate can map into memory.",
+            usageHelpAutoWidth = true,
+            separator = " ",
+            showDefaultValues = true
+    )
+    static class Snapshot implements Runnable {
+        @Option(names = {"-h", "--help"}, usageHelp = true, description = "Display this help message.")
+        boolean helpRequested;
+
+        @Option(names = {"-d", "--dump-file"}, description = "Dump file", paramLabel = "<FILE>", required = true)
+        String dumpFile;
+
+        @Option(names = {"-o", "--output-file"}, description = "Snapshot file", paramLabel = "<FILE>", defaultValue = "kg.snapshot")
+        String outputFile = "kg.snapshot";
+
+        @Override
+        public void run() {
+            logger.info("Loading database.");
+            final var graph = CsrGraph.load(Path.of(dumpFile));
+            logger.info("Loaded {} triples over {} terms.", graph.edgeCount(), graph.nodeCount());
+            try {
+                GraphSnapshot.write(graph, Path.of(outputFile));
+            } catch (IOException e) {
+                logger.error("Error writing snapshot file", e);
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    @Command(
+            name = "convert-rules",
+            description = "Convert a rule file between the text and the binary format. Files ending in .bin are written in the binary format.",
+            usageHelpAutoWidth = true,
+            separator = " ",
+            showDefaultValues = true
+    )
+    static class ConvertRules implements Runnable {
+        @Option(names = {"-h", "--help"}, usageHelp = true, description = "Display this help message.")
+        boolean helpRequested;
+
+        @Option(names = {"-i", "--input-file"}, description = "Rule file to read, in either format", paramLabel = "<FILE>", required = true)
+        String inputFile;
+
+        @Option(names = {"-o", "--output-file"}, description = "Rule file to write", paramLabel = "<FILE>", required = true)
+        String outputFile;
+
+        @Override
+        public void run() {
+            try {
+                final var rules = WeightedRule.loadRules(Path.of(inputFile));
+                WeightedRule.serializeRules(rules, Path.of(outputFile));
+                logger.info("Converted {} rules from {} to {}.", rules.length, inputFile, outputFile);
+            } catch (IOException e) {
+                logger.error("Error converting rules file", e);
+                throw new RuntimeException(e);
+            }
         }
     }
 
     public static void main(String[] args) {
-        new CommandLine(new App()).execute(args);
+        new CommandLine(new App()).setCaseInsensitiveEnumValuesAllowed(true).execute(args);
     }
 
     /**
      * Returns a string representation of a statement, in which the URI's of the entities are replaced with their labels.
      *
-     * @param m         The model containing the labels
+     * @param labels    The label index of the knowledge graph
      * @param statement The statement to be labeled
      * @return          A string representation of the statement
      */
-    private static String labeledStatement(Model m, Statement statement) {
-        AtomicReference<String> subjectLabel = new AtomicReference<>(statement.getSubject().getURI());
-        AtomicReference<String> predicateLabel = new AtomicReference<>(statement.getPredicate().getURI());
-        AtomicReference<String> objectLabel = new AtomicReference<>(statement.getObject().isResource() ? statement.getObject().asResource().getURI() : statement.getObject().asLiteral().getString());
+    private static String labeledStatement(LabelIndex labels, Statement statement) {
+        return String.format("%s %s %s", labels.getOrDefault(statement.getSubject().asNode()),
+                labels.getOrDefault(statement.getPredicate().asNode()), labels.getOrDefault(statement.getObject().asNode()));
+    }
+
+    /**
+     * Load the knowledge graph as selected by the given options.
+     * <p>
+     * A snapshot file is mapped into memory. With a TDB2 directory, the store is opened and, if it is still empty,
+     * filled from the dump file. Otherwise, the dump file is loaded into the selected graph store, only with the
+     * triples of the predicates the rules need if the predicates are projected.
+     *
+     * @param options The command line options
+     * @return        The loaded knowledge graph
+     */
+    static Database loadDatabase(CommandLineOptions options) {
+        return loadDatabase(options.database, options.graphStore.graphStore, projectedPredicates(options));
+    }
 
-        m.listObjectsOfProperty(statement.getSubject(), RDFS.label).forEachRemaining(o -> subjectLabel.set(o.asLiteral().getString()));
-        m.listObjectsOfProperty(statement.getPredicate(), RDFS.label).forEachRemaining(o -> predicateLabel.set(o.asLiteral().getString()));
-        m.listObjectsOfProperty(statement.getObject().isResource() ? statement.getObject().asResource() : statement.getPredicate(), RDFS.label).forEachRemaining(o -> objectLabel.set(o.asLiteral().getString()));
+    /**
+     * Load the knowledge graph from the given data source, see {@link #loadDatabase(CommandLineOptions)}.
+     *
+     * @param database   The data source options
+     * @param graphStore The in-memory representation for dump files
+     * @return           The loaded knowledge graph
+     */
+    static Database loadDatabase(CommandLineOptions.DatabaseOption database, GraphStore graphStore) {
+        return loadDatabase(database, graphStore, null);
+    }
 
-        return String.format("%s %s %s", subjectLabel, predicateLabel, objectLabel);
+    /**
+     * Load the knowledge graph from the given data source, see {@link #loadDatabase(CommandLineOptions)}.
+     *
+     * @param database   The data source options
+     * @param graphStore The in-memory representation for dump files
+     * @param predicates The predicates of the triples loaded from the dump file, or null to load all triples
+     * @return           The loaded knowledge graph
+     */
+    static Database loadDatabase(CommandLineOptions.DatabaseOption database, GraphStore graphStore, Set<Node> predicates) {
+        final long start = Timer.start();
+        try {
+            return openDatabase(database, graphStore, predicates);
+        } finally {
+            Metrics.KNOWLEDGE_GRAPH_LOAD.stop(start);
+        }
+    }
+
+    /**
+     * Collect the predicates the scoring needs if the options ask to project the knowledge graph on them.
+     * <p>
+     * These are the predicates of the heads and bodies of the rules in the rules file, and <code>rdfs:label</code>
+     * if labels are displayed. Rule generation searches paths over every predicate, so nothing is projected while
+     * the rules file does not exist yet or can not be read.
+     *
+     * @param options The command line options
+     * @return        The predicates to load, or null to load all triples
+     */
+    static Set<Node> projectedPredicates(CommandLineOptions options) {
+        if (!options.projectPredicates) {
+            return null;
+        }
+        if (options.database.snapshotFile != null || options.database.tdbDir() != null) {
+            logger.warn("Predicates are only projected while loading a dump file, loading the whole knowledge graph.");
+            return null;
+        }
+        final var rulesFile = Path.of(options.rulesFile);
+        if (!rulesFile.toFile().exists()) {
+            logger.info("Rules file {} does not exist yet, loading all predicates to generate the rules.", rulesFile);
+            return null;
+        }
+        final Set<Node> predicates;
+        try {
+            predicates = new HashSet<>(WeightedRule.readPredicates(rulesFile));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Error reading the predicates of rules file {}, loading the whole knowledge graph.", rulesFile, e);
+            return null;
+        }
+        if (predicates.isEmpty()) {
+            logger.warn("Rules file {} has no rules, loading the whole knowledge graph.", rulesFile);
+            return null;
+        }
+        if (options.displayLabels || options.explain == FactScorer.Explain.LABELS) {
+            predicates.add(RDFS.label.asNode());
+        }
+        logger.info("Loading the triples of the {} predicates used by the rules.", predicates.size());
+        return predicates;
+    }
+
+    private static Database openDatabase(CommandLineOptions.DatabaseOption database, GraphStore graphStore, Set<Node> predicates) {
+        logger.info("Loading database.");
+        if (database.snapshotFile != null) {
+            try {
+                return new Database(ModelFactory.createModelForGraph(GraphSnapshot.open(Path.of(database.snapshotFile))), null);
+            } catch (IOException e) {
+                logger.error("Error reading snapshot file", e);
+                throw new RuntimeException(e);
+            }
+        }
+        if (database.tdbDir() != null) {
+            try {
+                final var dataset = TdbStore.open(Path.of(database.tdbDir()), database.dumpFile() != null ? Path.of(database.dumpFile()) : null);
+                return new Database(dataset.getDefaultModel(), dataset);
+            } catch (IOException e) {
+                logger.error("Error opening TDB2 store", e);
+                throw new RuntimeException(e);
+            }
+        }
+        return switch (graphStore) {
+            case MODEL -> new Database(ModelFactory.createModelForGraph(
+                    NTriplesLoader.loadGraph(Path.of(database.dumpFile()), Runtime.getRuntime().availableProcessors(), predicates)), null);
+            case CSR -> {
+                final var graph = NTriplesLoader.loadCsr(Path.of(database.dumpFile()), Runtime.getRuntime().availableProcessors(), predicates);
+                logger.info("Loaded {} triples over {} terms.", graph.edgeCount(), graph.nodeCount());
+                yield new Database(ModelFactory.createModelForGraph(graph), null);
+            }
+        };
+    }
+
+    /**
+     * Load the pruning of the path search from the degree statistics next to the knowledge graph.
+     * <p>
+     * The statistics are computed in one pass over the graph and written next to it if they do not exist yet,
+     * if they were computed from another version of the knowledge graph,
+     * or if they do not record the degrees needed for the maximum degree.
+     *
+     * @param db        The loaded knowledge graph
+     * @param database  The data source options
+     * @param maxDegree The maximum degree of nodes a path may pass through, 0 to not prune
+     * @return          The pruning of the path search
+     */
+    static PathEnumerator.Pruning loadPruning(Database db, CommandLineOptions.DatabaseOption database, int maxDegree) {
+        if (maxDegree <= 0) {
+            return PathEnumerator.Pruning.NONE;
+        }
+        final var knowledgeGraph = database.knowledgeGraph();
+        final var statisticsFile = DegreeStatistics.pathFor(knowledgeGraph);
+        final var fingerprint = fingerprintOf(knowledgeGraph);
+        DegreeStatistics degrees = null;
+        if (statisticsFile.toFile().exists()) {
+            try {
+                degrees = DegreeStatistics.load(statisticsFile);
+                if (!degrees.getSource().equals(fingerprint)) {
+                    logger.info("Degree statistics file {} belongs to another version of the knowledge graph.", statisticsFile);
+                    degrees = null;
+                }
+            } catch (IOException e) {
+                logger.warn("Error reading degree statistics file {}, computing them again.", statisticsFile, e);
+            }
+        }
+        if (degrees == null || degrees.getMinRecordedDegree() > maxDegree) {
+            logger.info("Computing degree statistics of the knowledge graph.");
+            final int minRecordedDegree = Math.min(maxDegree, SystemParameters.MIN_RECORDED_DEGREE);
+            degrees = db.read(() -> DegreeStatistics.compute(db.model().getGraph(), minRecordedDegree, fingerprint));
+            try {
+                degrees.write(statisticsFile);
+            } catch (IOException e) {
+                logger.warn("Error writing degree statistics file {}", statisticsFile, e);
+            }
+        }
+        logger.info("Pruning path search at degree {}, {} of {} terms have recorded degrees.", maxDegree, degrees.getRecordedTermCount(), degrees.getTermCount());
+        return new PathEnumerator.Pruning(degrees, maxDegree, SystemParameters.MAX_ESTIMATED_LAYER_SIZE);
+    }
+
+    /**
+     * Read the fingerprint of the knowledge graph, which files kept next to it are checked against.
+     *
+     * @param knowledgeGraph The dump file, snapshot file or store directory of the knowledge graph
+     * @return               The fingerprint, or {@link GraphFingerprint#NONE} if it can not be read
+     */
+    private static GraphFingerprint fingerprintOf(Path knowledgeGraph) {
+        try {
+            return GraphFingerprint.of(knowledgeGraph);
+        } catch (IOException e) {
+            logger.warn("Error reading the size and modification time of {}", knowledgeGraph, e);
+            return GraphFingerprint.NONE;
+        }
+    }
+
+    /**
+     * Load the index of the labels of the knowledge graph.
+     * <p>
+     * Heap and off-heap indexes are built in one pass over the labels of the graph. A mapped index is kept in a file
+     * next to the knowledge graph, which is built the first time and again if the preferred language or the knowledge
+     * graph changes.
+     *
+     * @param db       The loaded knowledge graph
+     * @param database The data source options
+     * @param storage  Where the index is held
+     * @param language The preferred language of the labels
+     * @return         The label index
+     */
+    static LabelIndex loadLabels(Database db, CommandLineOptions.DatabaseOption database, LabelIndex.Storage storage, String language) {
+        final long start = System.nanoTime();
+        if (storage != LabelIndex.Storage.MAPPED) {
+            final var labels = db.read(() -> LabelIndex.build(db.model().getGraph(), language, storage == LabelIndex.Storage.OFF_HEAP));
+            logger.info("Indexed {} labels in {} ms.", labels.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return labels;
+        }
+
+        final var knowledgeGraph = database.knowledgeGraph();
+        final var indexFile = LabelIndex.pathFor(knowledgeGraph);
+        final var fingerprint = fingerprintOf(knowledgeGraph);
+        if (indexFile.toFile().exists()) {
+            try {
+                final var labels = LabelIndex.open(indexFile);
+                if (!labels.getSource().equals(fingerprint)) {
+                    logger.info("Label index {} belongs to another version of the knowledge graph, building it again.", indexFile);
+                } else if (labels.getLanguage().equals(language)) {
+                    return labels;
+                } else {
+                    logger.info("Label index {} prefers language '{}', building it again for '{}'.", indexFile, labels.getLanguage(), language);
+                }
+            } catch (IOException e) {
+                logger.warn("Error reading label index {}, building it again.", indexFile, e);
+            }
+        }
+        try {
+            db.read(() -> LabelIndex.build(db.model().getGraph(), language, false, fingerprint)).write(indexFile);
+            final var labels = LabelIndex.open(indexFile);
+            logger.info("Indexed {} labels in {} ms.", labels.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return labels;
+        } catch (IOException e) {
+            logger.error("Error writing label index {}", indexFile, e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Start exporting the metrics of rule generation and scoring.
+     * The exporter has to be closed at exit, which writes the final metrics and logs their summary.
+     *
+     * @param metricsFile The file to write the metrics to, or null to only log the summary
+     * @param interval    The interval between writes in seconds
+     * @return            The exporter
+     */
+    static MetricsExporter startMetrics(String metricsFile, long interval) {
+        return MetricsExporter.start(Metrics.REGISTRY, metricsFile == null ? null : Path.of(metricsFile), interval);
+    }
+
+    /**
+     * Set the time limits and the pruning of the rule generation.
+     *
+     * @param factChecker The fact scorer that generates the rules
+     * @param db          The knowledge graph
+     * @param database    The data source options, the degree statistics are kept next to the knowledge graph
+     * @param options     The rule generation options
+     */
+    static void configureGeneration(FactScorer factChecker, Database db, CommandLineOptions.DatabaseOption database, GenerationOptions options) {
+        factChecker.setGenerationLimits(TimeUnit.SECONDS.toMillis(options.exampleTimeout), TimeUnit.SECONDS.toMillis(options.generationBudget));
+        factChecker.setPruning(loadPruning(db, database, options.maxDegree));
     }
 
     /**
@@ -206,53 +881,88 @@ public class App {
     }
 
     /**
-     * Load the test set from the given path or use the default data.
+     * Stream the test set from the given path or the default data.
      *
      * @param path           The path to the test set file
      * @param useDefaultData Whether to use the default data
-     * @return               The test set
+     * @return               The entries of the test set, the stream has to be closed
      */
-    public static TestSet loadTestSet(String path, boolean useDefaultData) {
+    public static Stream<TestSet.TestSetEntry> streamTestSet(String path, boolean useDefaultData) {
         logger.info("Loading test set.");
-        TestSet testSet;
         if (useDefaultData) {
-            testSet = Fokgsw2024.getTestSet();
-        } else {
-            try {
-                testSet = new TestSet(Path.of(path));
-            } catch (IOException e) {
-                logger.error("Error reading test set file", e);
-                throw new RuntimeException(e);
-            }
+            return Fokgsw2024.streamTestSet();
         }
-        return testSet;
+        return TestSet.stream(Path.of(path));
     }
 
     /**
-     * Load the fact scorer from the given rules file or generate the rules if the file does not exist.
+     * Load the fact scorer from the rules file of the options or generate the rules if the file does not exist.
      *
-     * @param model       The model containing the data
+     * @param database    The knowledge graph
      * @param trainingSet The training set
-     * @param rulesFile   The path to the rules file
+     * @param options     The command line options
      * @return            The fact scorer
      */
-    public static FactScorer loadFactScorer(Model model, TrainingSet trainingSet, String rulesFile) {
-        final var factChecker = new FactScorer(model);
+    static FactScorer loadFactScorer(Database database, TrainingSet trainingSet, CommandLineOptions options) {
+        final var rulesFile = options.rulesFile;
+        final var factChecker = new FactScorer(database.model(), database.transactional(), options.cache.create());
+        factChecker.setExplain(options.explainFile != null && options.explain == FactScorer.Explain.NONE ? FactScorer.Explain.IRIS : options.explain);
+        if (options.displayLabels || factChecker.getExplain() == FactScorer.Explain.LABELS) {
+            factChecker.setLabels(loadLabels(database, options.database, options.labelStorage, options.labelLanguage));
+        }
         if (factChecker.loadRulesFromFile(Path.of(rulesFile))) {
             logger.info("Loaded existing rules from file.");
         } else {
-            logger.info("Inferring rules.");
-            factChecker.generateAndWeightRules(trainingSet, SystemParameters.ALPHA, SystemParameters.BETA, SystemParameters.GAMMA);
+            configureGeneration(factChecker, database, options.database, options.generation);
+            learnRules(factChecker, new LearnedRules(), trainingSet, Path.of(rulesFile));
+        }
+        return factChecker;
+    }
+
+    /**
+     * Opens the file the evidence of the scored facts is written to.
+     *
+     * @param explainFile The explain file, or null if the evidence is not written
+     * @param factChecker The fact scorer, its explanation level decides whether labels are written
+     * @return            The evidence writer, or null if there is no explain file
+     * @throws IOException if the file can not be created
+     */
+    static EvidenceWriter openEvidenceWriter(String explainFile, FactScorer factChecker) throws IOException {
+        if (explainFile == null) {
+            return null;
+        }
+        return EvidenceWriter.open(Path.of(explainFile),
+                factChecker.getExplain() == FactScorer.Explain.LABELS ? factChecker.getLabels() : null);
+    }
+
+    /**
+     * Learn rules from the training set and save them to the rules file.
+     * <p>
+     * Every finished example is recorded in a checkpoint next to the rules file. If a previous run was interrupted,
+     * the examples of its checkpoint are not searched again. The checkpoint is deleted once the rules are saved.
+     *
+     * @param factChecker The fact scorer to learn the rules for
+     * @param learned     The previously learned rules, empty to learn from scratch
+     * @param trainingSet The training set
+     * @param rulesFile   The rules file
+     */
+    static void learnRules(FactScorer factChecker, LearnedRules learned, TrainingSet trainingSet, Path rulesFile) {
+        logger.info("Inferring rules.");
+        try (var checkpoint = RuleCheckpoint.open(RuleCheckpoint.pathFor(rulesFile), learned)) {
+            factChecker.learnRules(learned, trainingSet, SystemParameters.ALPHA, SystemParameters.BETA, SystemParameters.GAMMA, checkpoint);
 
             // Save rules
-            try {
-                factChecker.saveRulesToFile(Path.of(rulesFile));
-            } catch (IOException e) {
-                logger.error("Error writing rules file", e);
-                throw new RuntimeException(e);
-            }
+            factChecker.saveRulesToFile(rulesFile);
+            checkpoint.delete();
+        } catch (IOException e) {
+            logger.error("Error writing rules file", e);
+            throw new RuntimeException(e);
         }
-        return factChecker;
     }
 
+    private static void logCacheStatistics(FactScorer factChecker) {
+        final var cache = factChecker.getReachabilityCache();
+        logger.info("Reachability cache: {} hits, {} misses, {} evictions, hit rate {}.",
+                cache.getHits(), cache.getMisses(), cache.getEvictions(), String.format("%.3f", cache.getHitRate()));
+    }
 }
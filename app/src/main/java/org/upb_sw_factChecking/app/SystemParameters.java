@@ -1,7 +1,5 @@
 package org.upb_sw_factChecking.app;
 
-import java.time.Duration;
-
 /**
  * This class provides access to the system parameters.
  */
@@ -12,11 +10,33 @@ public class SystemParameters {
     public static final double BETA = 0.9;
     public static final double GAMMA = 0.25;
 
-    // Local graph generation will start with this path length. If no path has been found,
+    // Path search will start with this path length. If no path has been found,
     // the path length will be increased by one until the absolute maximum path length is reached.
     public static final int INITIAL_MAX_PATH_LENGTH = 3;
     public static final int ABSOLUTE_MAX_PATH_LENGTH = 6;
 
-    // If path search takes less than this and no path has been found, increase path length.
-    public static final Duration PATH_TIMEOUT = Duration.ofSeconds(1);
+    // Time limits of rule generation in milliseconds, 0 for none. The path search of an example stops at the
+    // example timeout with the paths found so far, no example is started after the generation budget is used up.
+    public static final long EXAMPLE_TIMEOUT = 60_000;
+    public static final long GENERATION_BUDGET = 0;
+
+    // With pruning enabled, path search does not pass through nodes with a higher in- or out-degree than the maximum
+    // node degree, and is not deepened beyond the initial maximum path length if the next layer is estimated to exceed
+    // the maximum layer size. Degrees are recorded in the degree statistics of the knowledge graph for nodes with at
+    // least the minimum recorded degree. Pruning is off by default, as it drops rules through hub entities.
+    public static final int MAX_NODE_DEGREE = 0;
+    public static final long MAX_ESTIMATED_LAYER_SIZE = 1_000_000;
+    public static final int MIN_RECORDED_DEGREE = 100;
+
+    // Number of facts scored together, rules are evaluated once for all facts of a predicate in a batch.
+    public static final int BATCH_SIZE = 256;
+
+    // Time in milliseconds the server waits for facts of further requests before it scores a batch that is not full.
+    public static final long BATCH_LINGER = 2;
+
+    // Maximum size in bytes of the body of a scoring request, larger requests are refused.
+    public static final int MAX_REQUEST_SIZE = 16 * 1024 * 1024;
+
+    // Maximum number of nodes held by the cache of nodes reachable through rule bodies.
+    public static final long REACHABILITY_CACHE_SIZE = 10_000_000;
 }
@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.stream.Stream;
 
 /**
  * This class provides access to the FOKGSW 2024 dataset.
@@ -39,4 +40,18 @@ public class Fokgsw2024 {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Streams the entries of the test set of the FOKGSW 2024 dataset.
+     *
+     * @return the FOKGSW 2024 test set entries, the stream has to be closed if it is not consumed completely
+     */
+    public static Stream<TestSet.TestSetEntry> streamTestSet() {
+        try {
+            return TestSet.stream(Fokgsw2024.class.getResourceAsStream("/fokgsw/fokg-sw-test-2024.nt"));
+        } catch (IOException e) {
+            logger.error("Error reading test set file", e);
+            throw new RuntimeException(e);
+        }
+    }
 }
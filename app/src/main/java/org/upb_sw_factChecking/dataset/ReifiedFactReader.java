@@ -0,0 +1,219 @@
+package org.upb_sw_factChecking.dataset;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RDFParserBuilder;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.vocabulary.RDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.upb_sw_factChecking.vocab.Vocab;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams reified facts out of an RDF file in a single pass.
+ * <p>
+ * The file is parsed by RIOT on a background thread into a {@link Collector}, which groups the reification triples
+ * by fact IRI in any order and hands every fact over as soon as it is complete. The consumer pulls the facts from a
+ * bounded queue, so only the facts that are not complete yet and the queue itself are held in memory.
+ * Files and streams may be gzip compressed.
+ */
+class ReifiedFactReader {
+
+    /**
+     * A complete reified fact.
+     *
+     * @param iri        the IRI of the fact
+     * @param statement  the statement of the fact
+     * @param truthValue the truth value literal of the fact, null if not required
+     */
+    record Fact(Node iri, Triple statement, Node truthValue) {}
+
+    // Model used to create resources and statements that do not belong to any model.
+    static final Model FACTORY = ModelFactory.createDefaultModel();
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Object END = new Object();
+
+    private record Failure(Throwable cause) {}
+
+    private final static Logger logger = LoggerFactory.getLogger(ReifiedFactReader.class);
+
+    private ReifiedFactReader() {}
+
+    /**
+     * Streams the facts of the given file. Files ending in <code>.gz</code> are decompressed.
+     *
+     * @param file              the file to read, N-Triples unless the file extension says otherwise
+     * @param requireTruthValue whether a fact is only complete with a truth value
+     * @return                  the stream of facts, which has to be closed if it is not consumed completely
+     */
+    static Stream<Fact> stream(Path file, boolean requireTruthValue) {
+        return stream(RDFParser.source(file).lang(Lang.NTRIPLES), requireTruthValue, () -> {});
+    }
+
+    /**
+     * Streams the facts of the given N-Triples input. Gzip compressed input is detected and decompressed.
+     *
+     * @param data              the data to read
+     * @param requireTruthValue whether a fact is only complete with a truth value
+     * @return                  the stream of facts, which has to be closed if it is not consumed completely
+     * @throws IOException if the input can not be read
+     */
+    static Stream<Fact> stream(InputStream data, boolean requireTruthValue) throws IOException {
+        final var input = decompress(data);
+        return stream(RDFParser.source(input).lang(Lang.NTRIPLES), requireTruthValue, () -> {
+            try {
+                input.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static InputStream decompress(InputStream data) throws IOException {
+        final var input = new BufferedInputStream(data);
+        input.mark(2);
+        final int first = input.read();
+        final int second = input.read();
+        input.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new GZIPInputStream(input);
+        }
+        return input;
+    }
+
+    private static Stream<Fact> stream(RDFParserBuilder parser, boolean requireTruthValue, Runnable onClose) {
+        final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final var producer = new Thread(() -> {
+            try {
+                parser.parse(new Collector(requireTruthValue, fact -> put(queue, fact)));
+                put(queue, END);
+            } catch (CancellationException e) {
+                // The consumer closed the stream.
+            } catch (Throwable e) {
+                try {
+                    put(queue, new Failure(e));
+                } catch (CancellationException ignored) {
+                    // The consumer closed the stream.
+                }
+            }
+        }, "fact-reader");
+        producer.setDaemon(true);
+        producer.start();
+
+        final Iterator<Fact> iterator = new Iterator<>() {
+            private Object next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = queue.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("Interrupted while reading facts");
+                    }
+                }
+                if (next instanceof Failure failure) {
+                    throw new IllegalStateException("Error reading facts", failure.cause());
+                }
+                return next != END;
+            }
+
+            @Override
+            public Fact next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                final var fact = (Fact) next;
+                next = null;
+                return fact;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(producer::interrupt)
+                .onClose(onClose);
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object element) {
+        try {
+            queue.put(element);
+        } catch (InterruptedException e) {
+            throw new CancellationException("Fact reader was closed");
+        }
+    }
+
+    /**
+     * Stream sink grouping reification triples by fact IRI.
+     * Triples with other predicates are ignored.
+     */
+    static class Collector extends StreamRDFBase {
+
+        private static final Node TRUTH_VALUE = Vocab.AKSW_HAS_TRUTH_VALUE.asNode();
+
+        private static final class PendingFact {
+            Node subject;
+            Node predicate;
+            Node object;
+            Node truthValue;
+        }
+
+        private final Map<Node, PendingFact> pending = new HashMap<>();
+        private final boolean requireTruthValue;
+        private final Consumer<Fact> sink;
+
+        Collector(boolean requireTruthValue, Consumer<Fact> sink) {
+            this.requireTruthValue = requireTruthValue;
+            this.sink = sink;
+        }
+
+        @Override
+        public void triple(Triple triple) {
+            final var predicate = triple.getPredicate();
+            final boolean relevant = predicate.equals(RDF.Nodes.subject) || predicate.equals(RDF.Nodes.predicate)
+                    || predicate.equals(RDF.Nodes.object) || (requireTruthValue && predicate.equals(TRUTH_VALUE));
+            if (!relevant) return;
+
+            final var iri = triple.getSubject();
+            final var fact = pending.computeIfAbsent(iri, k -> new PendingFact());
+            if (predicate.equals(RDF.Nodes.subject)) {
+                fact.subject = triple.getObject();
+            } else if (predicate.equals(RDF.Nodes.predicate)) {
+                fact.predicate = triple.getObject();
+            } else if (predicate.equals(RDF.Nodes.object)) {
+                fact.object = triple.getObject();
+            } else {
+                fact.truthValue = triple.getObject();
+            }
+
+            if (fact.subject != null && fact.predicate != null && fact.object != null && (!requireTruthValue || fact.truthValue != null)) {
+                pending.remove(iri);
+                sink.accept(new Fact(iri, Triple.create(fact.subject, fact.predicate, fact.object), fact.truthValue));
+            }
+        }
+
+        @Override
+        public void finish() {
+            if (!pending.isEmpty()) {
+                logger.warn("Skipped {} incomplete facts.", pending.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.upb_sw_factChecking.dataset;
+
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes scored facts to a result file as they are produced.
+ * <p>
+ * Every result is one N-Triples line stating the truth value of the fact. Lines are written through a buffered
+ * writer. A result file opened with {@link #open} is flushed at least once per second, also while no results arrive,
+ * so a crash only loses the last moment of output.
+ * The writer is thread-safe. Results are best written in batches: the lines of a batch are formatted by the calling
+ * thread, and only handing them over to the file is serialized.
+ */
+public class ResultWriter implements Closeable {
+
+    /**
+     * Order of the lines in the result file.
+     */
+    public enum Order {
+        // Same order as the input, results finished early wait until all preceding results are written.
+        INPUT,
+        // Order in which the results are finished.
+        COMPLETION
+    }
+
+    private static final long FLUSH_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    // Flushes the open result files whose output stalls, one thread is enough for all of them.
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "result-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final static Logger logger = LoggerFactory.getLogger(ResultWriter.class);
+
+    private final Writer writer;
+    private final Order order;
+
+    /**
+     * Formatted lines of consecutive results.
+     */
+    private record Chunk(String lines, int count) {}
+
+    // Chunks waiting for their predecessors by the position of their first result, only used for input order.
+    private final Map<Long, Chunk> pending = new HashMap<>();
+    private long nextSequence = 0;
+    private long lastFlush = System.nanoTime();
+    private long written = 0;
+    private boolean closed = false;
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * @param writer the writer to write the lines to, it is closed together with this result writer
+     * @param order  the order of the lines
+     */
+    public ResultWriter(Writer writer, Order order) {
+        this.writer = writer;
+        this.order = order;
+    }
+
+    /**
+     * Creates the result file, replacing an existing file.
+     *
+     * @param file  the result file
+     * @param order the order of the lines
+     * @return      the result writer
+     * @throws IOException if the file can not be created
+     */
+    public static ResultWriter open(Path file, Order order) throws IOException {
+        final var resultWriter = new ResultWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), order);
+        resultWriter.scheduledFlush = FLUSHER.scheduleWithFixedDelay(resultWriter::scheduledFlush,
+                FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.NANOSECONDS);
+        return resultWriter;
+    }
+
+    /**
+     * Writes a result.
+     *
+     * @param sequence the position of the fact in the input, starting at 0 without gaps
+     * @param entry    the fact with its truth value
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(long sequence, TrainingSet.TrainingSetEntry entry) throws IOException {
+        write(sequence, List.of(entry));
+    }
+
+    /**
+     * Writes the results of consecutive facts.
+     *
+     * @param firstSequence the position of the first fact in the input, starting at 0 without gaps
+     * @param entries       the facts with their truth values, in input order
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(long firstSequence, List<TrainingSet.TrainingSetEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        final var lines = new StringBuilder(entries.size() * 128);
+        for (TrainingSet.TrainingSetEntry entry : entries) {
+            formatLine(entry, lines);
+        }
+        writeChunk(firstSequence, new Chunk(lines.toString(), entries.size()));
+    }
+
+    private synchronized void writeChunk(long firstSequence, Chunk chunk) throws IOException {
+        if (order == Order.COMPLETION) {
+            writeLines(chunk);
+        } else {
+            pending.put(firstSequence, chunk);
+            Chunk next;
+            while ((next = pending.remove(nextSequence)) != null) {
+                writeLines(next);
+                nextSequence += next.count();
+            }
+        }
+
+        flushIfDue();
+    }
+
+    private void flushIfDue() throws IOException {
+        final long now = System.nanoTime();
+        if (now - lastFlush >= FLUSH_INTERVAL) {
+            writer.flush();
+            lastFlush = now;
+        }
+    }
+
+    private synchronized void scheduledFlush() {
+        if (closed) {
+            return;
+        }
+        try {
+            flushIfDue();
+        } catch (IOException e) {
+            logger.warn("Could not flush the results.", e);
+        }
+    }
+
+    /**
+     * Returns the number of lines written so far.
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    private static void formatLine(TrainingSet.TrainingSetEntry entry, StringBuilder out) {
+        final var statement = entry.getTruthValueStatement();
+        out.append(NodeFmtLib.strNT(statement.getSubject().asNode()))
+                .append(' ')
+                .append(NodeFmtLib.strNT(statement.getPredicate().asNode()))
+                .append(' ')
+                .append(NodeFmtLib.strNT(statement.getObject().asNode()))
+                .append(" .\n");
+    }
+
+    private void writeLines(Chunk chunk) throws IOException {
+        writer.write(chunk.lines());
+        written += chunk.count();
+    }
+
+    /**
+     * Flushes and closes the writer.
+     * If results are missing for input order, the results waiting for them are written in order anyway.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        try (writer) {
+            if (!pending.isEmpty()) {
+                logger.warn("Result for fact {} is missing, writing {} waiting results after the gap.", nextSequence, pending.values().stream().mapToInt(Chunk::count).sum());
+                for (var sequence : new TreeSet<>(pending.keySet())) {
+                    writeLines(pending.get(sequence));
+                }
+                pending.clear();
+            }
+        }
+    }
+}
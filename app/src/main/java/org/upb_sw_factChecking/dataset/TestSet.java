@@ -1,16 +1,18 @@
 package org.upb_sw_factChecking.dataset;
 
-import org.apache.jena.rdf.model.*;
-import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.upb_sw_factChecking.vocab.Vocab;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class TestSet {
 
@@ -25,40 +27,60 @@ public class TestSet {
     private final static Logger logger = LoggerFactory.getLogger(TestSet.class);
 
     public TestSet(Path file) throws IOException {
-        if (!Files.exists(file)) {
-            logger.error("Training set file does not exist: {}", file);
-            throw new IllegalArgumentException("Training set file does not exist: " + file);
-        }
-        try (final var reader = Files.newBufferedReader(file)) {
-            loadStatements(reader);
+        try (final var stream = stream(file)) {
+            stream.forEach(entries::add);
         }
     }
 
     public TestSet(InputStream data) throws IOException {
-        try (final var reader = new BufferedReader(new InputStreamReader(data))) {
-            loadStatements(reader);
+        try (final var stream = stream(data)) {
+            stream.forEach(entries::add);
         }
     }
 
-    private void loadStatements(BufferedReader reader) throws IOException {
-        // Load statements from the file.
-        // The file contains training data in N-Triples format.
-        // Each training data contains a type and statement, therefore, each data is spread over 4 lines.
-
-        String line;
-        while ((line = reader.readLine()) != null) {
-            Model model = ModelFactory.createDefaultModel();
-            model.read(new StringReader(line), null, "N-Triples");
-            for (int i = 0; i < 3; i++) {
-                model.read(new StringReader(reader.readLine()), null, "N-Triples");
-            }
-            final var factIRI = model.listSubjectsWithProperty(RDF.type, Vocab.RDFSYNTAX_STATEMENT).next();
-            final var subject = model.listObjectsOfProperty(Vocab.RDFSYNTAX_SUBJECT).next();
-            final var predicate = ResourceFactory.createProperty(model.listObjectsOfProperty(Vocab.RDFSYNTAX_PREDICATE).next().toString());
-            final var object = model.listObjectsOfProperty(Vocab.RDFSYNTAX_OBJECT).next();
-            final var statement = model.createStatement((Resource) subject, predicate, object);
-            entries.add(new TestSet.TestSetEntry(factIRI, statement));
+    /**
+     * Streams the entries of a test set file without keeping the whole set in memory.
+     * The triples of an entry may appear in any order and the file may be gzip compressed.
+     *
+     * @param file the test set file in N-Triples format
+     * @return     the stream of entries, which has to be closed if it is not consumed completely
+     */
+    public static Stream<TestSetEntry> stream(Path file) {
+        if (!Files.exists(file)) {
+            logger.error("Test set file does not exist: {}", file);
+            throw new IllegalArgumentException("Test set file does not exist: " + file);
         }
+        return ReifiedFactReader.stream(file, false).map(TestSet::toEntry);
+    }
+
+    /**
+     * Streams the entries of a test set without keeping the whole set in memory.
+     *
+     * @param data the test set in N-Triples format, may be gzip compressed
+     * @return     the stream of entries, which has to be closed if it is not consumed completely
+     * @throws IOException if the data can not be read
+     */
+    public static Stream<TestSetEntry> stream(InputStream data) throws IOException {
+        return ReifiedFactReader.stream(data, false).map(TestSet::toEntry);
+    }
+
+    /**
+     * Collects the entries of a test set from triples that were already parsed, on the calling thread.
+     *
+     * @param triples the triples of the test set
+     * @return        the complete entries, in the order in which they are completed
+     */
+    public static List<TestSetEntry> collect(List<Triple> triples) {
+        final List<TestSetEntry> entries = new ArrayList<>();
+        final var collector = new ReifiedFactReader.Collector(false, fact -> entries.add(toEntry(fact)));
+        triples.forEach(collector::triple);
+        collector.finish();
+        return entries;
+    }
+
+    private static TestSetEntry toEntry(ReifiedFactReader.Fact fact) {
+        final var factory = ReifiedFactReader.FACTORY;
+        return new TestSetEntry(factory.wrapAsResource(fact.iri()), factory.asStatement(fact.statement()));
     }
 
     public List<TestSet.TestSetEntry> getEntries() {
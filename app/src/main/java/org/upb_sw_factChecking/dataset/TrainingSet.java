@@ -1,20 +1,16 @@
 package org.upb_sw_factChecking.dataset;
 
 import org.apache.jena.rdf.model.*;
-import org.apache.jena.riot.Lang;
-import org.apache.jena.riot.RDFDataMgr;
-import org.apache.jena.vocabulary.RDF;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.upb_sw_factChecking.vocab.Vocab;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Represents a training set.
@@ -33,40 +29,48 @@ public class TrainingSet {
     private final static Logger logger = LoggerFactory.getLogger(TrainingSet.class);
 
     public TrainingSet(Path file) throws IOException {
-        if (!Files.exists(file)) {
-            logger.error("Training set file does not exist: {}", file);
-            throw new IllegalArgumentException("Training set file does not exist: " + file);
-        }
-        try (final var reader = Files.newBufferedReader(file)) {
-            loadStatements(reader);
+        try (final var stream = stream(file)) {
+            stream.forEach(entries::add);
         }
     }
 
     public TrainingSet(InputStream data) throws IOException {
-        try (final var reader = new BufferedReader(new InputStreamReader(data))) {
-            loadStatements(reader);
+        try (final var stream = stream(data)) {
+            stream.forEach(entries::add);
         }
     }
 
-    private void loadStatements(BufferedReader reader) throws IOException {
-        // The file contains training data in N-Triples format.
-        // Each training data contains a type, statement, and truth value, therefore, each data is spread over 5 lines.
-
-        String line;
-        while ((line = reader.readLine()) != null) {
-            Model model = ModelFactory.createDefaultModel();
-            model.read(new StringReader(line), null, "N-Triples");
-            for (int i = 0; i < 4; i++) {
-                model.read(new StringReader(reader.readLine()), null, "N-Triples");
-            }
-            final var factIRI = model.listSubjectsWithProperty(RDF.type, Vocab.RDFSYNTAX_STATEMENT).next();
-            final var subject = model.listObjectsOfProperty(Vocab.RDFSYNTAX_SUBJECT).next();
-            final var predicate = ResourceFactory.createProperty(model.listObjectsOfProperty(Vocab.RDFSYNTAX_PREDICATE).next().toString());
-            final var object = model.listObjectsOfProperty(Vocab.RDFSYNTAX_OBJECT).next();
-            final var statement = model.createStatement((Resource) subject, predicate, object);
-            final var truthValue = model.listObjectsOfProperty(Vocab.AKSW_HAS_TRUTH_VALUE).next().asLiteral().getDouble();
-            entries.add(new TrainingSetEntry(factIRI, statement, truthValue));
+    /**
+     * Streams the entries of a training set file without keeping the whole set in memory.
+     * The triples of an entry may appear in any order and the file may be gzip compressed.
+     *
+     * @param file the training set file in N-Triples format
+     * @return     the stream of entries, which has to be closed if it is not consumed completely
+     */
+    public static Stream<TrainingSetEntry> stream(Path file) {
+        if (!Files.exists(file)) {
+            logger.error("Training set file does not exist: {}", file);
+            throw new IllegalArgumentException("Training set file does not exist: " + file);
         }
+        return ReifiedFactReader.stream(file, true).map(TrainingSet::toEntry);
+    }
+
+    /**
+     * Streams the entries of a training set without keeping the whole set in memory.
+     *
+     * @param data the training set in N-Triples format, may be gzip compressed
+     * @return     the stream of entries, which has to be closed if it is not consumed completely
+     * @throws IOException if the data can not be read
+     */
+    public static Stream<TrainingSetEntry> stream(InputStream data) throws IOException {
+        return ReifiedFactReader.stream(data, true).map(TrainingSet::toEntry);
+    }
+
+    private static TrainingSetEntry toEntry(ReifiedFactReader.Fact fact) {
+        final var factory = ReifiedFactReader.FACTORY;
+        return new TrainingSetEntry(factory.wrapAsResource(fact.iri()),
+                factory.asStatement(fact.statement()),
+                factory.asRDFNode(fact.truthValue()).asLiteral().getDouble());
     }
 
     public List<TrainingSetEntry> getEntries() {
@@ -74,12 +78,10 @@ public class TrainingSet {
     }
 
     public static void serializeToResultFile(List<TrainingSetEntry> entries, Path path) throws IOException {
-        Files.write(path, entries.stream().map(entry -> {
-            final var m = ModelFactory.createDefaultModel();
-            final var baos = new ByteArrayOutputStream();
-            m.add(entry.getTruthValueStatement());
-            RDFDataMgr.write(baos, m, Lang.TURTLE);
-            return baos.toString(StandardCharsets.UTF_8);
-        }).toList(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try (final var writer = ResultWriter.open(path, ResultWriter.Order.INPUT)) {
+            for (int i = 0; i < entries.size(); i++) {
+                writer.write(i, entries.get(i));
+            }
+        }
     }
 }
@@ -0,0 +1,161 @@
+package org.upb_sw_factChecking.graph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Adjacency of one direction of a {@link CsrGraph} in compressed sparse row form.
+ * <p>
+ * The edges of node <code>n</code> are stored at the indices <code>offsets[n]</code> (inclusive) to
+ * <code>offsets[n + 1]</code> (exclusive) of <code>predicates</code> and <code>nodes</code>.
+ * Inside a row, edges are sorted by predicate and then by node, so the edges of one predicate form a contiguous
+ * segment that can be found by binary search.
+ * <p>
+ * The arrays are int buffers, either wrapping heap arrays of a freshly built graph or mapping a {@link GraphSnapshot}.
+ */
+final class Adjacency {
+
+    private final IntBuffer offsets;
+    private final IntBuffer predicates;
+    private final IntBuffer nodes;
+
+    Adjacency(IntBuffer offsets, IntBuffer predicates, IntBuffer nodes) {
+        this.offsets = offsets;
+        this.predicates = predicates;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Builds the adjacency from parallel arrays of edges.
+     * Duplicate edges are removed.
+     *
+     * @param nodeCount the number of nodes
+     * @param from      the node each edge belongs to
+     * @param predicate the predicate of each edge
+     * @param to        the node each edge points to
+     * @param size      the number of edges in the arrays
+     * @return          the adjacency
+     */
+    static Adjacency build(int nodeCount, int[] from, int[] predicate, int[] to, int size) {
+        final int[] rowStarts = new int[nodeCount + 1];
+        for (int i = 0; i < size; i++) {
+            rowStarts[from[i] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            rowStarts[n + 1] += rowStarts[n];
+        }
+
+        // Pack predicate and target into one long per edge, so sorting a row sorts by predicate, then target.
+        final long[] packed = new long[size];
+        final int[] fill = Arrays.copyOf(rowStarts, nodeCount);
+        for (int i = 0; i < size; i++) {
+            packed[fill[from[i]]++] = ((long) predicate[i] << 32) | (to[i] & 0xFFFFFFFFL);
+        }
+
+        final int[] offsets = new int[nodeCount + 1];
+        final int[] predicates = new int[size];
+        final int[] nodes = new int[size];
+        int written = 0;
+        for (int n = 0; n < nodeCount; n++) {
+            offsets[n] = written;
+            Arrays.sort(packed, rowStarts[n], rowStarts[n + 1]);
+            for (int k = rowStarts[n]; k < rowStarts[n + 1]; k++) {
+                if (k > rowStarts[n] && packed[k] == packed[k - 1]) continue;
+                predicates[written] = (int) (packed[k] >>> 32);
+                nodes[written] = (int) packed[k];
+                written++;
+            }
+        }
+        offsets[nodeCount] = written;
+
+        return new Adjacency(IntBuffer.wrap(offsets),
+                IntBuffer.wrap(Arrays.copyOf(predicates, written)),
+                IntBuffer.wrap(Arrays.copyOf(nodes, written)));
+    }
+
+    int start(int node) {
+        return offsets.get(node);
+    }
+
+    int end(int node) {
+        return offsets.get(node + 1);
+    }
+
+    int predicate(int edge) {
+        return predicates.get(edge);
+    }
+
+    int node(int edge) {
+        return nodes.get(edge);
+    }
+
+    int edgeCount() {
+        return predicates.limit();
+    }
+
+    IntBuffer offsets() {
+        return offsets.duplicate();
+    }
+
+    IntBuffer predicates() {
+        return predicates.duplicate();
+    }
+
+    IntBuffer nodes() {
+        return nodes.duplicate();
+    }
+
+    /**
+     * Returns the index of the first edge of the node with the given predicate, or the index where it would be.
+     */
+    int lowerBound(int node, int predicate) {
+        int low = offsets.get(node);
+        int high = offsets.get(node + 1);
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (predicates.get(mid) < predicate) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index after the last edge of the node with the given predicate.
+     */
+    int upperBound(int node, int predicate) {
+        int low = offsets.get(node);
+        int high = offsets.get(node + 1);
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (predicates.get(mid) <= predicate) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks if the node has an edge with the given predicate to the given target.
+     */
+    boolean contains(int node, int predicate, int target) {
+        int low = lowerBound(node, predicate);
+        int high = upperBound(node, predicate);
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            final int value = nodes.get(mid);
+            if (value == target) {
+                return true;
+            } else if (value < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Node;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Term dictionary held in heap memory, that several threads can grow at once while a graph is loaded.
+ * <p>
+ * Terms are kept in segments of a fixed size, so assigning an id never copies the terms assigned before.
+ * A thread can resolve every id it got from {@link #getOrAdd}, no matter which thread added the term.
+ * The ids are dense once all adding threads are finished.
+ */
+public class ConcurrentTermDictionary implements TermDictionary {
+
+    private static final int SEGMENT_BITS = 16;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    private final ConcurrentHashMap<Node, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Node[]> segments = new AtomicReferenceArray<>(1 << (Integer.SIZE - 1 - SEGMENT_BITS));
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Returns the id of the given term, assigning a new id if the term is not known yet.
+     *
+     * @param node the term
+     * @return     the id of the term
+     */
+    public int getOrAdd(Node node) {
+        final var id = ids.get(node);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(node, this::assign);
+    }
+
+    private Integer assign(Node node) {
+        final int id = next.getAndIncrement();
+        if (id < 0) {
+            throw new IllegalStateException("More than " + Integer.MAX_VALUE + " terms");
+        }
+        // Published to other threads by the map entry holding the id.
+        segment(id >>> SEGMENT_BITS)[id & (SEGMENT_SIZE - 1)] = node;
+        return id;
+    }
+
+    private Node[] segment(int index) {
+        final var segment = segments.get(index);
+        if (segment != null) {
+            return segment;
+        }
+        segments.compareAndSet(index, null, new Node[SEGMENT_SIZE]);
+        return segments.get(index);
+    }
+
+    @Override
+    public int getId(Node node) {
+        return ids.getOrDefault(node, -1);
+    }
+
+    @Override
+    public Node getNode(int id) {
+        return segments.get(id >>> SEGMENT_BITS)[id & (SEGMENT_SIZE - 1)];
+    }
+
+    @Override
+    public int size() {
+        return next.get();
+    }
+}
@@ -0,0 +1,312 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NullIterator;
+import org.apache.jena.util.iterator.WrappedIterator;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only knowledge graph with dictionary encoded terms and adjacency in compressed sparse row form.
+ * <p>
+ * Every term is mapped to an integer id by a {@link TermDictionary}. Outgoing and incoming edges are kept in two
+ * {@link Adjacency} structures of primitive arrays, so traversals are plain array loops.
+ * A graph can be written to a {@link GraphSnapshot} and mapped back into memory by later runs.
+ * The class is also a Jena graph, so it can be wrapped into a model with
+ * {@link org.apache.jena.rdf.model.ModelFactory#createModelForGraph} wherever a model is required.
+ */
+public class CsrGraph extends GraphBase implements KnowledgeGraph {
+
+    /**
+     * Action called for an edge of a node, with the term ids of the predicate and of the node at its other end.
+     */
+    @FunctionalInterface
+    public interface EdgeAction {
+        void accept(int predicate, int node);
+    }
+
+    private final TermDictionary terms;
+    private final Adjacency outgoing;
+    private final Adjacency incoming;
+
+    CsrGraph(TermDictionary terms, Adjacency outgoing, Adjacency incoming) {
+        this.terms = terms;
+        this.outgoing = outgoing;
+        this.incoming = incoming;
+    }
+
+    /**
+     * Parses an RDF file into a new graph, N-Triples files on all cores, see {@link NTriplesLoader}.
+     *
+     * @param file the RDF file
+     * @return     the graph
+     */
+    public static CsrGraph load(Path file) {
+        return NTriplesLoader.loadCsr(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    public TermDictionary getTerms() {
+        return terms;
+    }
+
+    public int nodeCount() {
+        return terms.size();
+    }
+
+    public int edgeCount() {
+        return outgoing.edgeCount();
+    }
+
+    public int outDegree(int node) {
+        return outgoing.end(node) - outgoing.start(node);
+    }
+
+    public int inDegree(int node) {
+        return incoming.end(node) - incoming.start(node);
+    }
+
+    Adjacency outgoing() {
+        return outgoing;
+    }
+
+    Adjacency incoming() {
+        return incoming;
+    }
+
+    /**
+     * Checks if the graph contains the given triple of term ids.
+     */
+    public boolean contains(int subject, int predicate, int object) {
+        return outgoing.contains(subject, predicate, object);
+    }
+
+    /**
+     * Returns the ids of the objects of the given subject and predicate, sorted ascending.
+     */
+    public int[] objects(int subject, int predicate) {
+        final int from = outgoing.lowerBound(subject, predicate);
+        final int to = outgoing.upperBound(subject, predicate);
+        final int[] result = new int[to - from];
+        for (int i = from; i < to; i++) {
+            result[i - from] = outgoing.node(i);
+        }
+        return result;
+    }
+
+    /**
+     * Calls the action for the id of every object of the given subject and predicate ids, in ascending order.
+     */
+    public void forEachObject(int subject, int predicate, IntConsumer action) {
+        for (int i = outgoing.lowerBound(subject, predicate), to = outgoing.upperBound(subject, predicate); i < to; i++) {
+            action.accept(outgoing.node(i));
+        }
+    }
+
+    /**
+     * Calls the action for every outgoing edge of the given node id, with the ids of predicate and object.
+     */
+    public void forEachOutgoing(int subject, EdgeAction action) {
+        for (int i = outgoing.start(subject), to = outgoing.end(subject); i < to; i++) {
+            action.accept(outgoing.predicate(i), outgoing.node(i));
+        }
+    }
+
+    /**
+     * Calls the action for every incoming edge of the given node id, with the ids of predicate and subject.
+     */
+    public void forEachIncoming(int object, EdgeAction action) {
+        for (int i = incoming.start(object), to = incoming.end(object); i < to; i++) {
+            action.accept(incoming.predicate(i), incoming.node(i));
+        }
+    }
+
+    @Override
+    public void forEachObject(Node subject, Node predicate, Consumer<Node> action) {
+        final int s = terms.getId(subject);
+        final int p = terms.getId(predicate);
+        if (s < 0 || p < 0) return;
+        forEachObject(s, p, object -> action.accept(terms.getNode(object)));
+    }
+
+    @Override
+    public void forEachOutgoing(Node subject, BiConsumer<Node, Node> action) {
+        final int s = terms.getId(subject);
+        if (s < 0) return;
+        forEachOutgoing(s, (predicate, object) -> action.accept(terms.getNode(predicate), terms.getNode(object)));
+    }
+
+    @Override
+    public void forEachIncoming(Node object, BiConsumer<Node, Node> action) {
+        final int o = terms.getId(object);
+        if (o < 0) return;
+        forEachIncoming(o, (predicate, subject) -> action.accept(terms.getNode(predicate), terms.getNode(subject)));
+    }
+
+    /**
+     * Checks if the given predicates lead from the start node to the end node.
+     * Works like {@link KnowledgeGraph#connects}, but on term ids with sorted int arrays as frontiers.
+     */
+    @Override
+    public boolean connects(Node start, Node[] predicates, Node end) {
+        final int s = terms.getId(start);
+        final int e = terms.getId(end);
+        if (s < 0 || e < 0) return false;
+        if (predicates.length == 0) return s == e;
+
+        final int[] path = new int[predicates.length];
+        for (int i = 0; i < predicates.length; i++) {
+            path[i] = terms.getId(predicates[i]);
+            if (path[i] < 0) return false;
+        }
+
+        int[] frontier = {s};
+        int frontierSize = 1;
+        for (int step = 0; step < path.length - 1; step++) {
+            int[] next = new int[16];
+            int nextSize = 0;
+            for (int f = 0; f < frontierSize; f++) {
+                for (int i = outgoing.lowerBound(frontier[f], path[step]), to = outgoing.upperBound(frontier[f], path[step]); i < to; i++) {
+                    if (nextSize == next.length) {
+                        next = Arrays.copyOf(next, nextSize * 2);
+                    }
+                    next[nextSize++] = outgoing.node(i);
+                }
+            }
+            if (nextSize == 0) return false;
+
+            // Sort and remove duplicates, so every node is expanded only once.
+            Arrays.sort(next, 0, nextSize);
+            int unique = 1;
+            for (int i = 1; i < nextSize; i++) {
+                if (next[i] != next[unique - 1]) {
+                    next[unique++] = next[i];
+                }
+            }
+            frontier = next;
+            frontierSize = unique;
+        }
+
+        final int last = path[path.length - 1];
+        for (int f = 0; f < frontierSize; f++) {
+            if (outgoing.contains(frontier[f], last, e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(Triple pattern) {
+        final var s = pattern.getSubject();
+        final var p = pattern.getPredicate();
+        final var o = pattern.getObject();
+
+        final int sId = s.isConcrete() ? terms.getId(s) : -1;
+        final int pId = p.isConcrete() ? terms.getId(p) : -1;
+        final int oId = o.isConcrete() ? terms.getId(o) : -1;
+        if ((s.isConcrete() && sId < 0) || (p.isConcrete() && pId < 0) || (o.isConcrete() && oId < 0)) {
+            return NullIterator.instance();
+        }
+
+        if (s.isConcrete()) {
+            return WrappedIterator.create(new EdgeIterator(outgoing, sId, sId + 1, pId, oId, false));
+        } else if (o.isConcrete()) {
+            return WrappedIterator.create(new EdgeIterator(incoming, oId, oId + 1, pId, sId, true));
+        }
+        return WrappedIterator.create(new EdgeIterator(outgoing, 0, nodeCount(), pId, -1, false));
+    }
+
+    @Override
+    protected boolean graphBaseContains(Triple triple) {
+        if (triple.isConcrete()) {
+            // Also answers KnowledgeGraph.contains, which GraphBase implements through this method.
+            final int s = terms.getId(triple.getSubject());
+            final int p = terms.getId(triple.getPredicate());
+            final int o = terms.getId(triple.getObject());
+            return s >= 0 && p >= 0 && o >= 0 && outgoing.contains(s, p, o);
+        }
+        return super.graphBaseContains(triple);
+    }
+
+    @Override
+    protected int graphBaseSize() {
+        return edgeCount();
+    }
+
+    /**
+     * Iterates the edges of a range of rows, optionally restricted to one predicate and one target node.
+     */
+    private class EdgeIterator implements Iterator<Triple> {
+        private final Adjacency adjacency;
+        private final int rowEnd;
+        private final int predicate;
+        private final int target;
+        private final boolean reversed;
+
+        private int row;
+        private int edge;
+        private int edgeEnd;
+        private Triple next;
+
+        EdgeIterator(Adjacency adjacency, int rowStart, int rowEnd, int predicate, int target, boolean reversed) {
+            this.adjacency = adjacency;
+            this.rowEnd = rowEnd;
+            this.predicate = predicate;
+            this.target = target;
+            this.reversed = reversed;
+            this.row = rowStart - 1;
+            this.edge = 0;
+            this.edgeEnd = 0;
+        }
+
+        private void advanceRow() {
+            row++;
+            if (row >= rowEnd) return;
+            if (predicate >= 0) {
+                edge = adjacency.lowerBound(row, predicate);
+                edgeEnd = adjacency.upperBound(row, predicate);
+            } else {
+                edge = adjacency.start(row);
+                edgeEnd = adjacency.end(row);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                while (edge >= edgeEnd) {
+                    advanceRow();
+                    if (row >= rowEnd) return false;
+                }
+                final int current = edge++;
+                final int other = adjacency.node(current);
+                if (target >= 0 && other != target) continue;
+
+                final var rowNode = terms.getNode(row);
+                final var predicateNode = terms.getNode(adjacency.predicate(current));
+                final var otherNode = terms.getNode(other);
+                next = reversed
+                        ? Triple.create(otherNode, predicateNode, rowNode)
+                        : Triple.create(rowNode, predicateNode, otherNode);
+            }
+            return true;
+        }
+
+        @Override
+        public Triple next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            final var result = next;
+            next = null;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDFBase;
+
+import java.util.Arrays;
+
+/**
+ * Collects triples and builds a {@link CsrGraph} from them.
+ * <p>
+ * The builder is a RIOT stream sink, so a file can be parsed directly into it without creating a Jena model first.
+ */
+public class CsrGraphBuilder extends StreamRDFBase {
+
+    private final HashTermDictionary terms = new HashTermDictionary();
+    private int[] subjects = new int[1024];
+    private int[] predicates = new int[1024];
+    private int[] objects = new int[1024];
+    private int size = 0;
+
+    /**
+     * Builds a graph containing all triples of the given Jena graph.
+     *
+     * @param graph the Jena graph
+     * @return      the graph
+     */
+    public static CsrGraph fromGraph(Graph graph) {
+        final var builder = new CsrGraphBuilder();
+        graph.find().forEachRemaining(builder::triple);
+        return builder.build();
+    }
+
+    @Override
+    public void triple(Triple triple) {
+        add(triple.getSubject(), triple.getPredicate(), triple.getObject());
+    }
+
+    public void add(Node subject, Node predicate, Node object) {
+        if (size == subjects.length) {
+            final int capacity = size * 2;
+            subjects = Arrays.copyOf(subjects, capacity);
+            predicates = Arrays.copyOf(predicates, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+        subjects[size] = terms.getOrAdd(subject);
+        predicates[size] = terms.getOrAdd(predicate);
+        objects[size] = terms.getOrAdd(object);
+        size++;
+    }
+
+    /**
+     * Builds the graph from the collected triples.
+     * Duplicate triples are only stored once.
+     *
+     * @return the graph
+     */
+    public CsrGraph build() {
+        return build(terms, subjects, predicates, objects, size);
+    }
+
+    /**
+     * Builds a graph from triples of term ids.
+     * Duplicate triples are only stored once.
+     *
+     * @param terms      the dictionary of the term ids
+     * @param subjects   the subject of each triple
+     * @param predicates the predicate of each triple
+     * @param objects    the object of each triple
+     * @param size       the number of triples
+     * @return           the graph
+     */
+    static CsrGraph build(TermDictionary terms, int[] subjects, int[] predicates, int[] objects, int size) {
+        final var outgoing = Adjacency.build(terms.size(), subjects, predicates, objects, size);
+        final var incoming = Adjacency.build(terms.size(), objects, predicates, subjects, size);
+        return new CsrGraph(terms, outgoing, incoming);
+    }
+}
@@ -0,0 +1,256 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In- and out-degree statistics of a knowledge graph, used by path search to avoid hub entities and to estimate the
+ * cost of expanding a frontier.
+ * <p>
+ * The statistics are computed in one pass over the graph and stored in a small file next to the knowledge graph.
+ * Degrees are only kept for terms whose in- or out-degree reaches a minimum, every other term is estimated with
+ * the average degree, capped below that minimum.
+ * The file records the {@link GraphFingerprint} of the graph it was computed from, so statistics of a changed graph
+ * can be told apart.
+ * <p>
+ * Layout, all numbers big endian:
+ * <pre>
+ * header      magic, version (ints), size and modification time of the knowledge graph (longs),
+ *             minimum recorded degree (int), term count, edge count (longs)
+ * terms       count (int), for each: encoded term length (int), encoded term, out-degree, in-degree (ints)
+ * </pre>
+ */
+public final class DegreeStatistics {
+
+    static final int MAGIC = 0x4B474453; // "KGDS"
+    static final int VERSION = 3;
+
+    private final GraphFingerprint source;
+    private final int minRecordedDegree;
+    private final long termCount;
+    private final long edgeCount;
+    // Term -> {out-degree, in-degree}, only for terms with a degree of at least minRecordedDegree.
+    private final Map<Node, int[]> degrees;
+    private final int estimatedDegree;
+
+    private DegreeStatistics(GraphFingerprint source, int minRecordedDegree, long termCount, long edgeCount, Map<Node, int[]> degrees) {
+        this.source = source;
+        this.minRecordedDegree = minRecordedDegree;
+        this.termCount = termCount;
+        this.edgeCount = edgeCount;
+        this.degrees = degrees;
+        final long average = termCount == 0 ? 0 : (edgeCount + termCount - 1) / termCount;
+        this.estimatedDegree = (int) Math.max(0, Math.min(minRecordedDegree - 1, average));
+    }
+
+    /**
+     * Returns the statistics file of a knowledge graph.
+     *
+     * @param knowledgeGraph the dump file, snapshot file or store directory of the knowledge graph
+     * @return               the statistics file next to it
+     */
+    public static Path pathFor(Path knowledgeGraph) {
+        return knowledgeGraph.resolveSibling(knowledgeGraph.getFileName() + ".degrees");
+    }
+
+    /**
+     * Computes the statistics in one pass over the graph.
+     * Graphs in compressed sparse row form are read from their adjacency, other graphs triple by triple.
+     *
+     * @param graph             the graph
+     * @param minRecordedDegree the minimum in- or out-degree for the degrees of a term to be kept
+     * @return                  the statistics
+     */
+    public static DegreeStatistics compute(Graph graph, int minRecordedDegree) {
+        return compute(graph, minRecordedDegree, GraphFingerprint.NONE);
+    }
+
+    /**
+     * Computes the statistics in one pass over the graph, recording the fingerprint of the file it was loaded from.
+     *
+     * @param graph             the graph
+     * @param minRecordedDegree the minimum in- or out-degree for the degrees of a term to be kept
+     * @param source            the fingerprint of the knowledge graph the graph was loaded from
+     * @return                  the statistics
+     */
+    public static DegreeStatistics compute(Graph graph, int minRecordedDegree, GraphFingerprint source) {
+        if (graph instanceof CsrGraph csr) {
+            return compute(csr, minRecordedDegree, source);
+        }
+
+        final Map<Node, int[]> allDegrees = new HashMap<>();
+        long edgeCount = 0;
+        final var it = graph.find(Node.ANY, Node.ANY, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                final var triple = it.next();
+                allDegrees.computeIfAbsent(triple.getSubject(), n -> new int[2])[0]++;
+                allDegrees.computeIfAbsent(triple.getObject(), n -> new int[2])[1]++;
+                edgeCount++;
+            }
+        } finally {
+            it.close();
+        }
+
+        final Map<Node, int[]> degrees = new HashMap<>();
+        allDegrees.forEach((node, degree) -> {
+            if (Math.max(degree[0], degree[1]) >= minRecordedDegree) {
+                degrees.put(node, degree);
+            }
+        });
+        return new DegreeStatistics(source, minRecordedDegree, allDegrees.size(), edgeCount, degrees);
+    }
+
+    private static DegreeStatistics compute(CsrGraph graph, int minRecordedDegree, GraphFingerprint source) {
+        final var terms = graph.getTerms();
+        final Map<Node, int[]> degrees = new HashMap<>();
+        long termCount = 0;
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            final int out = graph.outDegree(node);
+            final int in = graph.inDegree(node);
+            if (out > 0 || in > 0) {
+                termCount++;
+            }
+            if (Math.max(out, in) >= minRecordedDegree) {
+                degrees.put(terms.getNode(node), new int[]{out, in});
+            }
+        }
+        return new DegreeStatistics(source, minRecordedDegree, termCount, graph.edgeCount(), degrees);
+    }
+
+    /**
+     * Loads statistics written by {@link #write}.
+     *
+     * @param file the statistics file
+     * @return     the statistics
+     * @throws IOException if an I/O error occurs or the file is not a statistics file of a supported version
+     */
+    public static DegreeStatistics load(Path file) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a degree statistics file: " + file);
+            }
+            final int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported degree statistics version " + version + " in " + file + ", expected " + VERSION);
+            }
+            final var source = new GraphFingerprint(in.readLong(), in.readLong());
+            final int minRecordedDegree = in.readInt();
+            final long termCount = in.readLong();
+            final long edgeCount = in.readLong();
+
+            final int termEntries = in.readInt();
+            final Map<Node, int[]> degrees = new HashMap<>(termEntries * 2);
+            for (int i = 0; i < termEntries; i++) {
+                degrees.put(readTerm(in), new int[]{in.readInt(), in.readInt()});
+            }
+            return new DegreeStatistics(source, minRecordedDegree, termCount, edgeCount, degrees);
+        }
+    }
+
+    /**
+     * Writes the statistics to a file.
+     *
+     * @param file the statistics file
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(Path file) throws IOException {
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(source.size());
+            out.writeLong(source.lastModified());
+            out.writeInt(minRecordedDegree);
+            out.writeLong(termCount);
+            out.writeLong(edgeCount);
+            out.writeInt(degrees.size());
+            for (var entry : degrees.entrySet()) {
+                writeTerm(out, entry.getKey());
+                out.writeInt(entry.getValue()[0]);
+                out.writeInt(entry.getValue()[1]);
+            }
+        }
+    }
+
+    private static void writeTerm(DataOutputStream out, Node node) throws IOException {
+        final var encoded = TermCodec.encode(node);
+        out.writeInt(encoded.length);
+        out.write(encoded);
+    }
+
+    private static Node readTerm(DataInputStream in) throws IOException {
+        final var encoded = new byte[in.readInt()];
+        in.readFully(encoded);
+        return TermCodec.decode(encoded);
+    }
+
+    /**
+     * Returns the out-degree of a term, exact if it reaches the minimum recorded degree, estimated otherwise.
+     *
+     * @param node the term
+     * @return     the out-degree
+     */
+    public int outDegree(Node node) {
+        final var degree = degrees.get(node);
+        return degree == null ? estimatedDegree : degree[0];
+    }
+
+    /**
+     * Returns the in-degree of a term, exact if it reaches the minimum recorded degree, estimated otherwise.
+     *
+     * @param node the term
+     * @return     the in-degree
+     */
+    public int inDegree(Node node) {
+        final var degree = degrees.get(node);
+        return degree == null ? estimatedDegree : degree[1];
+    }
+
+    /**
+     * Checks if the in- or out-degree of a term exceeds the given maximum.
+     * Exact for maxima of at least the minimum recorded degree.
+     *
+     * @param node      the term
+     * @param maxDegree the maximum degree
+     * @return          true if the term is a hub
+     */
+    public boolean isHub(Node node, int maxDegree) {
+        final var degree = degrees.get(node);
+        return degree != null && Math.max(degree[0], degree[1]) > maxDegree;
+    }
+
+    public GraphFingerprint getSource() {
+        return source;
+    }
+
+    public int getMinRecordedDegree() {
+        return minRecordedDegree;
+    }
+
+    public long getTermCount() {
+        return termCount;
+    }
+
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Returns the number of terms whose degrees are kept.
+     *
+     * @return the number of recorded terms
+     */
+    public int getRecordedTermCount() {
+        return degrees.size();
+    }
+}
@@ -0,0 +1,50 @@
+package org.upb_sw_factChecking.graph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Size and modification time of the file or directory a knowledge graph is loaded from.
+ * <p>
+ * Files derived from a knowledge graph and kept next to it record the fingerprint of the graph they were computed
+ * from, and are computed again once it no longer matches, e.g. after the dump was regenerated.
+ * For a directory, like a TDB2 store, the sizes of all files are summed up and the latest modification time is
+ * taken, lock files are left out as they change whenever the store is opened.
+ *
+ * @param size         the size in bytes
+ * @param lastModified the modification time in milliseconds since the epoch
+ */
+public record GraphFingerprint(long size, long lastModified) {
+
+    /**
+     * Fingerprint of statistics and indexes that are not tied to a file, it matches no knowledge graph.
+     */
+    public static final GraphFingerprint NONE = new GraphFingerprint(-1, -1);
+
+    /**
+     * Reads the fingerprint of a knowledge graph.
+     *
+     * @param knowledgeGraph the dump file, snapshot file or store directory of the knowledge graph
+     * @return               the fingerprint
+     * @throws IOException if an I/O error occurs
+     */
+    public static GraphFingerprint of(Path knowledgeGraph) throws IOException {
+        if (!Files.isDirectory(knowledgeGraph)) {
+            return new GraphFingerprint(Files.size(knowledgeGraph), Files.getLastModifiedTime(knowledgeGraph).toMillis());
+        }
+        long size = 0;
+        long lastModified = 0;
+        try (Stream<Path> files = Files.walk(knowledgeGraph)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                if (!Files.isRegularFile(file) || file.getFileName().toString().endsWith(".lock")) {
+                    continue;
+                }
+                size += Files.size(file);
+                lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        return new GraphFingerprint(size, lastModified);
+    }
+}
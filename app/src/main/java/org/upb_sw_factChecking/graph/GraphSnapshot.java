@@ -0,0 +1,193 @@
+package org.upb_sw_factChecking.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Versioned binary snapshot of a {@link CsrGraph}.
+ * <p>
+ * The snapshot contains the term dictionary and the adjacency of both directions. Opening a snapshot maps the file
+ * into memory with {@link FileChannel#map}, nothing is deserialized, so startup takes seconds and the page cache is shared between processes using the same snapshot.
+ * <p>
+ * Layout, all numbers big endian:
+ * <pre>
+ * header       magic, version, term count, edge count, hash slot count (ints), blob size (long), padded to 64 bytes
+ * long[terms]  start of each term in the blob
+ * int[slots]   open addressing hash table from encoded term to term id + 1, 0 for free slots
+ * int[...]     outgoing adjacency: offsets[terms + 1], predicates[edges], nodes[edges]
+ * int[...]     incoming adjacency: offsets[terms + 1], predicates[edges], nodes[edges]
+ * byte[blob]   encoded terms, each prefixed with its length, never crossing a chunk boundary
+ * </pre>
+ * Every section starts at a multiple of 8 bytes.
+ */
+public final class GraphSnapshot {
+
+    static final int MAGIC = 0x4B47534E; // "KGSN"
+    static final int VERSION = 2;
+    static final int BLOB_CHUNK_SIZE = 1 << 30;
+    private static final int HEADER_SIZE = 64;
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphSnapshot.class);
+
+    private GraphSnapshot() {}
+
+    /**
+     * Writes the graph to a snapshot file.
+     *
+     * @param graph the graph to write
+     * @param file  the snapshot file
+     * @throws IOException if an I/O error occurs or the graph is too large for the format
+     */
+    public static void write(CsrGraph graph, Path file) throws IOException {
+        final var terms = graph.getTerms();
+        final int termCount = terms.size();
+        final int edgeCount = graph.edgeCount();
+        checkSectionSize((long) edgeCount * Integer.BYTES);
+
+        // First pass: place every term in the blob and fill the hash table.
+        int slotCount = 2;
+        while (slotCount < 2L * termCount) {
+            slotCount <<= 1;
+        }
+        checkSectionSize((long) slotCount * Integer.BYTES);
+        final int[] slots = new int[slotCount];
+        final long[] offsets = new long[termCount];
+        long blobSize = 0;
+        for (int id = 0; id < termCount; id++) {
+            final byte[] encoded = TermCodec.encode(terms.getNode(id));
+            final int length = Integer.BYTES + encoded.length;
+            if (blobSize % BLOB_CHUNK_SIZE + length > BLOB_CHUNK_SIZE) {
+                blobSize += BLOB_CHUNK_SIZE - blobSize % BLOB_CHUNK_SIZE;
+            }
+            offsets[id] = blobSize;
+            blobSize += length;
+
+            int slot = TermCodec.hash(encoded) & (slotCount - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot] = id + 1;
+        }
+
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 20))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(termCount);
+            out.writeInt(edgeCount);
+            out.writeInt(slotCount);
+            out.writeLong(blobSize);
+            out.write(new byte[HEADER_SIZE - 5 * Integer.BYTES - Long.BYTES]);
+
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+            writeInts(out, IntBuffer.wrap(slots));
+            writeAdjacency(out, graph.outgoing());
+            writeAdjacency(out, graph.incoming());
+
+            long position = 0;
+            for (int id = 0; id < termCount; id++) {
+                final byte[] encoded = TermCodec.encode(terms.getNode(id));
+                while (position < offsets[id]) {
+                    out.writeByte(0);
+                    position++;
+                }
+                out.writeInt(encoded.length);
+                out.write(encoded);
+                position += Integer.BYTES + encoded.length;
+            }
+        }
+        logger.info("Wrote snapshot with {} terms and {} edges to {}.", termCount, edgeCount, file);
+    }
+
+    /**
+     * Opens a snapshot file by mapping it into memory.
+     *
+     * @param file the snapshot file
+     * @return     the graph stored in the snapshot
+     * @throws IOException if an I/O error occurs or the file is not a snapshot of a supported version
+     */
+    public static CsrGraph open(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a knowledge graph snapshot: " + file);
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file + ", expected " + VERSION);
+            }
+            final int termCount = header.getInt();
+            final int edgeCount = header.getInt();
+            final int slotCount = header.getInt();
+            final long blobSize = header.getLong();
+
+            long position = HEADER_SIZE;
+            final var offsets = map(channel, position, (long) termCount * Long.BYTES).asLongBuffer();
+            position = align(position + (long) termCount * Long.BYTES);
+            final var slots = map(channel, position, (long) slotCount * Integer.BYTES).asIntBuffer();
+            position = align(position + (long) slotCount * Integer.BYTES);
+
+            final IntBuffer[] adjacency = new IntBuffer[6];
+            for (int i = 0; i < adjacency.length; i++) {
+                final long count = i % 3 == 0 ? termCount + 1L : edgeCount;
+                adjacency[i] = map(channel, position, count * Integer.BYTES).asIntBuffer();
+                position = align(position + count * Integer.BYTES);
+            }
+
+            final var chunks = new ByteBuffer[(int) ((blobSize + BLOB_CHUNK_SIZE - 1) / BLOB_CHUNK_SIZE)];
+            for (int i = 0; i < chunks.length; i++) {
+                final long start = (long) i * BLOB_CHUNK_SIZE;
+                chunks[i] = map(channel, position + start, Math.min(BLOB_CHUNK_SIZE, blobSize - start));
+            }
+
+            final var terms = new MappedTermDictionary(termCount, offsets, slots, chunks);
+            logger.info("Opened snapshot with {} terms and {} edges from {}.", termCount, edgeCount, file);
+            return new CsrGraph(terms,
+                    new Adjacency(adjacency[0], adjacency[1], adjacency[2]),
+                    new Adjacency(adjacency[3], adjacency[4], adjacency[5]));
+        }
+    }
+
+    private static void writeAdjacency(DataOutputStream out, Adjacency adjacency) throws IOException {
+        writeInts(out, adjacency.offsets());
+        writeInts(out, adjacency.predicates());
+        writeInts(out, adjacency.nodes());
+    }
+
+    private static void writeInts(DataOutputStream out, IntBuffer values) throws IOException {
+        final int count = values.remaining();
+        for (int i = 0; i < count; i++) {
+            out.writeInt(values.get());
+        }
+        if (count % 2 != 0) {
+            // Keep the next section aligned to 8 bytes.
+            out.writeInt(0);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        checkSectionSize(size);
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    private static void checkSectionSize(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot section of " + size + " bytes exceeds the supported maximum of 2 GiB.");
+        }
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
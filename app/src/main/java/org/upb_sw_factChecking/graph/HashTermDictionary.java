@@ -0,0 +1,49 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Term dictionary held in heap memory, that can grow while a graph is built.
+ */
+public class HashTermDictionary implements TermDictionary {
+
+    private final Map<Node, Integer> ids = new HashMap<>();
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Returns the id of the given term, assigning a new id if the term is not known yet.
+     *
+     * @param node the term
+     * @return     the id of the term
+     */
+    public int getOrAdd(Node node) {
+        final var id = ids.get(node);
+        if (id != null) {
+            return id;
+        }
+        final int newId = nodes.size();
+        ids.put(node, newId);
+        nodes.add(node);
+        return newId;
+    }
+
+    @Override
+    public int getId(Node node) {
+        return ids.getOrDefault(node, -1);
+    }
+
+    @Override
+    public Node getNode(int id) {
+        return nodes.get(id);
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+}
@@ -0,0 +1,39 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Knowledge graph view of a Jena graph, answering every request with {@link Graph#find}.
+ */
+public class JenaKnowledgeGraph implements KnowledgeGraph {
+
+    private final Graph graph;
+
+    public JenaKnowledgeGraph(Graph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public boolean contains(Node subject, Node predicate, Node object) {
+        return graph.contains(subject, predicate, object);
+    }
+
+    @Override
+    public void forEachObject(Node subject, Node predicate, Consumer<Node> action) {
+        graph.find(subject, predicate, Node.ANY).forEachRemaining(triple -> action.accept(triple.getObject()));
+    }
+
+    @Override
+    public void forEachOutgoing(Node subject, BiConsumer<Node, Node> action) {
+        graph.find(subject, Node.ANY, Node.ANY).forEachRemaining(triple -> action.accept(triple.getPredicate(), triple.getObject()));
+    }
+
+    @Override
+    public void forEachIncoming(Node object, BiConsumer<Node, Node> action) {
+        graph.find(Node.ANY, Node.ANY, object).forEachRemaining(triple -> action.accept(triple.getPredicate(), triple.getSubject()));
+    }
+}
@@ -0,0 +1,105 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Read access to a knowledge graph as needed by path search and rule application.
+ * <p>
+ * Implementations may store the graph in any form. Plain Jena graphs are adapted with {@link #of(Graph)}.
+ */
+public interface KnowledgeGraph {
+
+    /**
+     * Returns the knowledge graph view of a Jena graph.
+     * Graphs that already implement this interface are returned as they are.
+     *
+     * @param graph the Jena graph
+     * @return      the knowledge graph view
+     */
+    static KnowledgeGraph of(Graph graph) {
+        return graph instanceof KnowledgeGraph knowledgeGraph ? knowledgeGraph : new JenaKnowledgeGraph(graph);
+    }
+
+    /**
+     * Checks if the graph contains the given triple.
+     *
+     * @param subject   the subject
+     * @param predicate the predicate
+     * @param object    the object
+     * @return          true if the triple is contained, false otherwise
+     */
+    boolean contains(Node subject, Node predicate, Node object);
+
+    /**
+     * Calls the action for every object of the given subject and predicate.
+     *
+     * @param subject   the subject
+     * @param predicate the predicate
+     * @param action    the action to call with each object
+     */
+    void forEachObject(Node subject, Node predicate, Consumer<Node> action);
+
+    /**
+     * Calls the action for every outgoing edge of the given node.
+     *
+     * @param subject the node
+     * @param action  the action to call with predicate and object of each edge
+     */
+    void forEachOutgoing(Node subject, BiConsumer<Node, Node> action);
+
+    /**
+     * Calls the action for every incoming edge of the given node.
+     *
+     * @param object the node
+     * @param action the action to call with predicate and subject of each edge
+     */
+    void forEachIncoming(Node object, BiConsumer<Node, Node> action);
+
+    /**
+     * Checks if the given predicates lead from the start node to the end node.
+     * <p>
+     * The graph is traversed breadth first, one predicate at a time. Each intermediate node is only expanded once
+     * per step, and the last step is a single lookup for the end node.
+     *
+     * @param start      the node the path starts at
+     * @param predicates the predicates of the path, in order
+     * @param end        the node the path has to end at
+     * @return           true if there is such a path, false otherwise
+     */
+    default boolean connects(Node start, Node[] predicates, Node end) {
+        if (predicates.length == 0) {
+            return start.equals(end);
+        }
+
+        Set<Node> frontier = Set.of(start);
+        for (int i = 0; i < predicates.length - 1; i++) {
+            final Set<Node> next = new HashSet<>();
+            for (Node node : frontier) {
+                forEachObject(node, predicates[i], object -> {
+                    // Literals can not be the subject of the next step.
+                    if (!object.isLiteral()) {
+                        next.add(object);
+                    }
+                });
+            }
+            if (next.isEmpty()) {
+                return false;
+            }
+            frontier = next;
+        }
+
+        final var last = predicates[predicates.length - 1];
+        for (Node node : frontier) {
+            if (contains(node, last, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
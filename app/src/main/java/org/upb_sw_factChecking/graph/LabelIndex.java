@@ -0,0 +1,361 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.vocabulary.RDFS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Index from entities to their <code>rdfs:label</code> in a preferred language, built once when the knowledge graph
+ * is loaded.
+ * <p>
+ * Of the labels of an entity, the index keeps one in the preferred language, else one in a sub-language of it
+ * (e.g. <code>en-GB</code> for <code>en</code>), else one without language, else any. The whole index is one
+ * buffer: an open addressing hash table from a 64 bit hash of the entity to the position of its label in a blob of
+ * UTF-8 labels. Hash collisions are not resolved, which is acceptable for labels that are only displayed.
+ * The buffer can be held on the heap, off the heap, or be a file next to the knowledge graph mapped into memory.
+ * A file records the {@link GraphFingerprint} of the graph it was built from, so the index of a changed graph can be
+ * told apart.
+ * <p>
+ * Layout, all numbers big endian:
+ * <pre>
+ * header       magic, version, label count, slot count, blob size, language length (ints),
+ *              size and modification time of the knowledge graph (longs), padded to 48 bytes
+ * byte[...]    preferred language, UTF-8
+ * long[slots]  hash of the entity of each slot, 0 for free slots
+ * int[slots]   position of the label of each slot in the blob
+ * byte[blob]   labels, each prefixed with its length
+ * </pre>
+ * Every section starts at a multiple of 8 bytes.
+ */
+public final class LabelIndex {
+
+    /**
+     * Where the index is held.
+     */
+    public enum Storage {
+        // Java heap.
+        HEAP,
+        // Direct buffer outside of the Java heap.
+        OFF_HEAP,
+        // File next to the knowledge graph, mapped into memory and shared through the page cache.
+        MAPPED
+    }
+
+    static final int MAGIC = 0x4B474C49; // "KGLI"
+    static final int VERSION = 2;
+    private static final int HEADER_SIZE = 48;
+
+    private static final Logger logger = LoggerFactory.getLogger(LabelIndex.class);
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int mask;
+    private final String language;
+    private final GraphFingerprint source;
+    private final int keysStart;
+    private final int positionsStart;
+    private final int blobStart;
+
+    private LabelIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        final int slotCount = buffer.getInt(12);
+        this.mask = slotCount - 1;
+        final int languageLength = buffer.getInt(20);
+        final var languageBytes = new byte[languageLength];
+        buffer.get(HEADER_SIZE, languageBytes);
+        this.language = new String(languageBytes, StandardCharsets.UTF_8);
+        this.source = new GraphFingerprint(buffer.getLong(24), buffer.getLong(32));
+        this.keysStart = align(HEADER_SIZE + languageLength);
+        this.positionsStart = keysStart + slotCount * Long.BYTES;
+        this.blobStart = align(positionsStart + slotCount * Integer.BYTES);
+    }
+
+    /**
+     * Returns the label index file of a knowledge graph.
+     *
+     * @param knowledgeGraph the dump file, snapshot file or store directory of the knowledge graph
+     * @return               the label index file next to it
+     */
+    public static Path pathFor(Path knowledgeGraph) {
+        return knowledgeGraph.resolveSibling(knowledgeGraph.getFileName() + ".labels");
+    }
+
+    /**
+     * Builds the index in one pass over the labels of the graph.
+     *
+     * @param graph    the graph
+     * @param language the preferred language tag, empty to prefer labels without language
+     * @param offHeap  whether to hold the index in a direct buffer instead of the heap
+     * @return         the index
+     */
+    public static LabelIndex build(Graph graph, String language, boolean offHeap) {
+        return build(graph, language, offHeap, GraphFingerprint.NONE);
+    }
+
+    /**
+     * Builds the index in one pass over the labels of the graph, recording the fingerprint of the file it was loaded
+     * from.
+     *
+     * @param graph    the graph
+     * @param language the preferred language tag, empty to prefer labels without language
+     * @param offHeap  whether to hold the index in a direct buffer instead of the heap
+     * @param source   the fingerprint of the knowledge graph the graph was loaded from
+     * @return         the index
+     */
+    public static LabelIndex build(Graph graph, String language, boolean offHeap, GraphFingerprint source) {
+        // Growing open addressing table of the best label found so far per entity.
+        long[] keys = new long[1024];
+        byte[] ranks = new byte[keys.length];
+        String[] labels = new String[keys.length];
+        int count = 0;
+
+        final var it = graph.find(Node.ANY, RDFS.label.asNode(), Node.ANY);
+        try {
+            while (it.hasNext()) {
+                final var triple = it.next();
+                final var subject = triple.getSubject();
+                final var object = triple.getObject();
+                if (!object.isLiteral() || !(subject.isURI() || subject.isBlank())) {
+                    continue;
+                }
+                if (2 * (count + 1) > keys.length) {
+                    final long[] oldKeys = keys;
+                    final byte[] oldRanks = ranks;
+                    final String[] oldLabels = labels;
+                    keys = new long[oldKeys.length * 2];
+                    ranks = new byte[keys.length];
+                    labels = new String[keys.length];
+                    for (int i = 0; i < oldKeys.length; i++) {
+                        if (oldKeys[i] != 0) {
+                            final int slot = freeSlot(keys, oldKeys[i]);
+                            keys[slot] = oldKeys[i];
+                            ranks[slot] = oldRanks[i];
+                            labels[slot] = oldLabels[i];
+                        }
+                    }
+                }
+
+                final long key = hash(subject);
+                final int slot = freeSlot(keys, key);
+                final byte rank = (byte) rank(object.getLiteralLanguage(), language);
+                if (keys[slot] == 0) {
+                    keys[slot] = key;
+                    ranks[slot] = rank;
+                    labels[slot] = object.getLiteralLexicalForm();
+                    count++;
+                } else if (rank < ranks[slot]) {
+                    ranks[slot] = rank;
+                    labels[slot] = object.getLiteralLexicalForm();
+                }
+            }
+        } finally {
+            it.close();
+        }
+
+        int slotCount = 2;
+        while (slotCount < 2L * count) {
+            slotCount <<= 1;
+        }
+        final byte[][] encoded = new byte[keys.length][];
+        long blobSize = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                encoded[i] = labels[i].getBytes(StandardCharsets.UTF_8);
+                blobSize += Integer.BYTES + encoded[i].length;
+            }
+        }
+        final var languageBytes = language.getBytes(StandardCharsets.UTF_8);
+        final long positionsStart = align(HEADER_SIZE + languageBytes.length) + (long) slotCount * Long.BYTES;
+        final long blobStart = align(positionsStart + (long) slotCount * Integer.BYTES);
+        if (blobStart + blobSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Label index of " + (blobStart + blobSize) + " bytes exceeds the supported maximum of 2 GiB.");
+        }
+
+        final int totalSize = (int) (blobStart + blobSize);
+        final var buffer = offHeap ? ByteBuffer.allocateDirect(totalSize) : ByteBuffer.allocate(totalSize);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, count).putInt(12, slotCount).putInt(16, (int) blobSize).putInt(20, languageBytes.length);
+        buffer.putLong(24, source.size()).putLong(32, source.lastModified());
+        buffer.put(HEADER_SIZE, languageBytes);
+        final int keysStart = align(HEADER_SIZE + languageBytes.length);
+        final int slotMask = slotCount - 1;
+        int position = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == 0) {
+                continue;
+            }
+            int slot = slot(keys[i], slotMask);
+            while (buffer.getLong(keysStart + slot * Long.BYTES) != 0) {
+                slot = (slot + 1) & slotMask;
+            }
+            buffer.putLong(keysStart + slot * Long.BYTES, keys[i]);
+            buffer.putInt((int) positionsStart + slot * Integer.BYTES, position);
+            buffer.putInt((int) blobStart + position, encoded[i].length);
+            buffer.put((int) blobStart + position + Integer.BYTES, encoded[i]);
+            position += Integer.BYTES + encoded[i].length;
+        }
+        return new LabelIndex(buffer);
+    }
+
+    private static int freeSlot(long[] keys, long key) {
+        final int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int rank(String tag, String language) {
+        if (tag == null || tag.isEmpty()) {
+            return 2;
+        }
+        if (tag.equalsIgnoreCase(language)) {
+            return 0;
+        }
+        if (!language.isEmpty() && tag.length() > language.length() && tag.charAt(language.length()) == '-'
+                && tag.regionMatches(true, 0, language, 0, language.length())) {
+            return 1;
+        }
+        return 3;
+    }
+
+    /**
+     * FNV-1a hash of an IRI or blank node, never 0.
+     */
+    private static long hash(Node node) {
+        final String text = node.isURI() ? node.getURI() : node.getBlankNodeLabel();
+        long hash = 0xCBF29CE484222325L;
+        hash = (hash ^ (node.isURI() ? 'I' : 'B')) * 0x100000001B3L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * Opens an index file written by {@link #write} by mapping it into memory.
+     *
+     * @param file the index file
+     * @return     the index
+     * @throws IOException if an I/O error occurs or the file is not a label index of a supported version
+     */
+    public static LabelIndex open(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a label index: " + file);
+            }
+            final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a label index: " + file);
+            }
+            final int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported label index version " + version + " in " + file + ", expected " + VERSION);
+            }
+            final var index = new LabelIndex(buffer);
+            logger.info("Opened label index with {} labels from {}.", index.size(), file);
+            return index;
+        }
+    }
+
+    /**
+     * Writes the index to a file, that can be mapped into memory with {@link #open}.
+     *
+     * @param file the index file
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var data = buffer.duplicate().clear();
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    /**
+     * Returns the label of the given entity.
+     *
+     * @param node the entity
+     * @return     the lexical form of its label, or null if it has none
+     */
+    public String get(Node node) {
+        if (!node.isURI() && !node.isBlank()) {
+            return null;
+        }
+        final long key = hash(node);
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            final long entry = buffer.getLong(keysStart + slot * Long.BYTES);
+            if (entry == 0) {
+                return null;
+            }
+            if (entry == key) {
+                final int position = blobStart + buffer.getInt(positionsStart + slot * Integer.BYTES);
+                final int length = buffer.getInt(position);
+                if (buffer.hasArray()) {
+                    return new String(buffer.array(), buffer.arrayOffset() + position + Integer.BYTES, length, StandardCharsets.UTF_8);
+                }
+                final var bytes = new byte[length];
+                buffer.get(position + Integer.BYTES, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /**
+     * Returns the label of the given entity, or the entity itself if it has no label.
+     *
+     * @param node the entity
+     * @return     its label, the lexical form of a literal, or the IRI
+     */
+    public String getOrDefault(Node node) {
+        if (node.isLiteral()) {
+            return node.getLiteralLexicalForm();
+        }
+        final var label = get(node);
+        return label != null ? label : node.isURI() ? node.getURI() : node.toString();
+    }
+
+    /**
+     * Returns the number of entities with a label.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the preferred language the index was built for.
+     */
+    public String getLanguage() {
+        return language;
+    }
+
+    /**
+     * Returns the fingerprint of the knowledge graph the index was built from.
+     */
+    public GraphFingerprint getSource() {
+        return source;
+    }
+
+    private static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
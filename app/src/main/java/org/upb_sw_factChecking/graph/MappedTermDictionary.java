@@ -0,0 +1,87 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Node;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Term dictionary read directly from the memory mapped sections of a {@link GraphSnapshot}.
+ * <p>
+ * Terms are only decoded when they are requested. A small direct-mapped cache keeps recently decoded terms,
+ * which mostly serves the hub nodes that are visited over and over.
+ */
+final class MappedTermDictionary implements TermDictionary {
+
+    private static final int CACHE_SIZE = 1 << 16;
+
+    private record CachedNode(int id, Node node) {}
+
+    private final int size;
+    private final LongBuffer offsets;
+    private final IntBuffer slots;
+    private final ByteBuffer[] blobChunks;
+    private final CachedNode[] cache = new CachedNode[CACHE_SIZE];
+
+    /**
+     * @param size       the number of terms
+     * @param offsets    the start of each length prefixed encoded term in the blob
+     * @param slots      the open addressing hash table, holding term id + 1 or 0 for free slots
+     * @param blobChunks the encoded terms, split into chunks of {@link GraphSnapshot#BLOB_CHUNK_SIZE} bytes
+     */
+    MappedTermDictionary(int size, LongBuffer offsets, IntBuffer slots, ByteBuffer[] blobChunks) {
+        this.size = size;
+        this.offsets = offsets;
+        this.slots = slots;
+        this.blobChunks = blobChunks;
+    }
+
+    @Override
+    public int getId(Node node) {
+        final byte[] encoded;
+        try {
+            encoded = TermCodec.encode(node);
+        } catch (IllegalArgumentException e) {
+            // Variables and other non-RDF terms are never part of the graph.
+            return -1;
+        }
+        final int mask = slots.limit() - 1;
+        for (int slot = TermCodec.hash(encoded) & mask; ; slot = (slot + 1) & mask) {
+            final int entry = slots.get(slot);
+            if (entry == 0) {
+                return -1;
+            }
+            if (Arrays.equals(encoded, bytes(entry - 1))) {
+                return entry - 1;
+            }
+        }
+    }
+
+    @Override
+    public Node getNode(int id) {
+        final int index = id & (CACHE_SIZE - 1);
+        final var cached = cache[index];
+        if (cached != null && cached.id() == id) {
+            return cached.node();
+        }
+        final var node = TermCodec.decode(bytes(id));
+        cache[index] = new CachedNode(id, node);
+        return node;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private byte[] bytes(int id) {
+        final long start = offsets.get(id);
+        final var chunk = blobChunks[(int) (start / GraphSnapshot.BLOB_CHUNK_SIZE)];
+        final int position = (int) (start % GraphSnapshot.BLOB_CHUNK_SIZE);
+        final byte[] result = new byte[chunk.getInt(position)];
+        chunk.get(position + Integer.BYTES, result);
+        return result;
+    }
+}
@@ -0,0 +1,363 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.upb_sw_factChecking.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads N-Triples dumps on several threads.
+ * <p>
+ * N-Triples is line based, so the file is split into chunks that end at a line break. Every chunk is mapped into
+ * memory and parsed by its own task, which encodes the terms with a {@link ConcurrentTermDictionary} shared by all
+ * tasks. A {@link CsrGraph} is built from the encoded triples of all chunks, a Jena graph is filled with the triples
+ * of each chunk as soon as it is parsed, using the one instance of each term kept by the dictionary.
+ * Blank node labels are kept as given, so a blank node that appears in several chunks is one node.
+ * <p>
+ * Loading can be restricted to the triples of a set of predicates, the other triples are dropped while they are
+ * parsed and never reach the graph.
+ * <p>
+ * Files in other syntaxes or compressed files can not be split and are parsed on the calling thread.
+ */
+public final class NTriplesLoader {
+
+    // Bytes per chunk, the last line of a chunk extends it to the next line break.
+    static final long CHUNK_SIZE = 64L << 20;
+
+    private static final Logger logger = LoggerFactory.getLogger(NTriplesLoader.class);
+
+    /**
+     * Bytes of a file, from start inclusive to end exclusive.
+     */
+    record Chunk(long start, long end) {}
+
+    private interface ChunkTask<T> {
+        T parse(Chunk chunk, InputStream input);
+    }
+
+    private NTriplesLoader() {}
+
+    /**
+     * Checks if the file is an uncompressed N-Triples file, that can be split into chunks.
+     *
+     * @param file the RDF file
+     * @return     true if the file can be loaded in parallel
+     */
+    public static boolean isSplittable(Path file) {
+        final var name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".nt") || name.endsWith(".ntriples");
+    }
+
+    /**
+     * Parses an RDF file into a new {@link CsrGraph}.
+     *
+     * @param file    the RDF file
+     * @param threads the number of threads parsing chunks of N-Triples files
+     * @return        the graph
+     */
+    public static CsrGraph loadCsr(Path file, int threads) {
+        return loadCsr(file, threads, null);
+    }
+
+    /**
+     * Parses the triples of the given predicates of an RDF file into a new {@link CsrGraph}.
+     *
+     * @param file       the RDF file
+     * @param threads    the number of threads parsing chunks of N-Triples files
+     * @param predicates the predicates of the triples to keep, null to keep all triples
+     * @return           the graph
+     */
+    public static CsrGraph loadCsr(Path file, int threads, Set<Node> predicates) {
+        return loadCsr(file, threads, predicates, CHUNK_SIZE);
+    }
+
+    static CsrGraph loadCsr(Path file, int threads, Set<Node> predicates, long chunkSize) {
+        final long start = System.nanoTime();
+        final var parsed = new LongAdder();
+        final var dropped = new LongAdder();
+        if (!isSplittable(file)) {
+            final var builder = new CsrGraphBuilder();
+            parseFile(file, predicates, parsed, dropped, builder::add);
+            final var graph = builder.build();
+            report(file, parsed.sum(), dropped.sum(), 1, 1, start);
+            return graph;
+        }
+
+        final var terms = new ConcurrentTermDictionary();
+        final List<int[]> chunks = parse(file, threads, chunkSize, (chunk, input) -> {
+            final int[][] encoded = {new int[1024]};
+            final int[] size = {0};
+            parseChunk(file, chunk, input, predicates, parsed, dropped, (subject, predicate, object) -> {
+                if (size[0] + 3 > encoded[0].length) {
+                    encoded[0] = Arrays.copyOf(encoded[0], encoded[0].length * 2);
+                }
+                encoded[0][size[0]++] = terms.getOrAdd(subject);
+                encoded[0][size[0]++] = terms.getOrAdd(predicate);
+                encoded[0][size[0]++] = terms.getOrAdd(object);
+            });
+            return Arrays.copyOf(encoded[0], size[0]);
+        });
+
+        long triples = 0;
+        for (int[] chunk : chunks) {
+            triples += chunk.length / 3;
+        }
+        if (triples > Integer.MAX_VALUE) {
+            throw new IllegalStateException("File " + file + " holds " + triples + " triples, more than supported");
+        }
+        final int size = (int) triples;
+        final int[] subjectIds = new int[size];
+        final int[] predicateIds = new int[size];
+        final int[] objectIds = new int[size];
+        int triple = 0;
+        for (int[] chunk : chunks) {
+            for (int i = 0; i < chunk.length; i += 3) {
+                subjectIds[triple] = chunk[i];
+                predicateIds[triple] = chunk[i + 1];
+                objectIds[triple] = chunk[i + 2];
+                triple++;
+            }
+        }
+        report(file, parsed.sum(), dropped.sum(), chunks.size(), threads, start);
+        return CsrGraphBuilder.build(terms, subjectIds, predicateIds, objectIds, size);
+    }
+
+    /**
+     * Parses an RDF file into a new Jena in-memory graph.
+     *
+     * @param file    the RDF file
+     * @param threads the number of threads parsing chunks of N-Triples files
+     * @return        the graph
+     */
+    public static Graph loadGraph(Path file, int threads) {
+        return loadGraph(file, threads, null);
+    }
+
+    /**
+     * Parses the triples of the given predicates of an RDF file into a new Jena in-memory graph.
+     *
+     * @param file       the RDF file
+     * @param threads    the number of threads parsing chunks of N-Triples files
+     * @param predicates the predicates of the triples to keep, null to keep all triples
+     * @return           the graph
+     */
+    public static Graph loadGraph(Path file, int threads, Set<Node> predicates) {
+        return loadGraph(file, threads, predicates, CHUNK_SIZE);
+    }
+
+    static Graph loadGraph(Path file, int threads, Set<Node> predicates, long chunkSize) {
+        final long start = System.nanoTime();
+        final var parsed = new LongAdder();
+        final var dropped = new LongAdder();
+        final var graph = ModelFactory.createDefaultModel().getGraph();
+        if (!isSplittable(file)) {
+            parseFile(file, predicates, parsed, dropped, (subject, predicate, object) -> graph.add(Triple.create(subject, predicate, object)));
+            report(file, parsed.sum(), dropped.sum(), 1, 1, start);
+            return graph;
+        }
+
+        final var terms = new ConcurrentTermDictionary();
+        final List<Integer> chunks = parse(file, threads, chunkSize, (chunk, input) -> {
+            final List<Triple> triples = new ArrayList<>();
+            parseChunk(file, chunk, input, predicates, parsed, dropped, (subject, predicate, object) -> triples.add(Triple.create(
+                    terms.getNode(terms.getOrAdd(subject)),
+                    terms.getNode(terms.getOrAdd(predicate)),
+                    terms.getNode(terms.getOrAdd(object)))));
+            // The in-memory graph is not thread-safe, parsing goes on while one chunk is added.
+            synchronized (graph) {
+                triples.forEach(graph::add);
+            }
+            return triples.size();
+        });
+
+        report(file, parsed.sum(), dropped.sum(), chunks.size(), threads, start);
+        return graph;
+    }
+
+    private interface TripleSink {
+        void add(Node subject, Node predicate, Node object);
+    }
+
+    /**
+     * Stream sink counting the parsed triples and passing on the triples of the kept predicates.
+     */
+    private static StreamRDFBase filter(Set<Node> predicates, LongAdder parsed, LongAdder dropped, TripleSink sink) {
+        return new StreamRDFBase() {
+            @Override
+            public void triple(Triple triple) {
+                parsed.increment();
+                if (predicates == null || predicates.contains(triple.getPredicate())) {
+                    sink.add(triple.getSubject(), triple.getPredicate(), triple.getObject());
+                } else {
+                    dropped.increment();
+                }
+            }
+        };
+    }
+
+    private static void parseFile(Path file, Set<Node> predicates, LongAdder parsed, LongAdder dropped, TripleSink sink) {
+        RDFParser.source(file).parse(filter(predicates, parsed, dropped, sink));
+    }
+
+    private static void parseChunk(Path file, Chunk chunk, InputStream input, Set<Node> predicates,
+                                   LongAdder parsed, LongAdder dropped, TripleSink sink) {
+        try {
+            RDFParser.source(input)
+                    .lang(Lang.NTRIPLES)
+                    .labelToNode(LabelToNode.createUseLabelAsGiven())
+                    .parse(filter(predicates, parsed, dropped, sink));
+        } catch (RiotException e) {
+            // Line numbers of the parser count from the start of the chunk.
+            throw new RiotException("Error parsing " + file + " in the chunk starting at byte " + chunk.start() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Splits the file into chunks, parses them on the given number of threads and returns the results in the order
+     * of the chunks.
+     */
+    private static <T> List<T> parse(Path file, int threads, long chunkSize, ChunkTask<T> task) {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ);
+             var executor = Executors.newFixedThreadPool(Math.max(1, threads))) {
+            final List<Future<T>> futures = new ArrayList<>();
+            for (var chunk : split(channel, chunkSize)) {
+                final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+                futures.add(executor.submit(() -> task.parse(chunk, new BufferInputStream(buffer))));
+            }
+            final List<T> results = new ArrayList<>(futures.size());
+            for (var future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + file, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading " + file, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Error loading " + file, e.getCause());
+        }
+    }
+
+    /**
+     * Splits a file into chunks of about the given size, each ending after a line break or at the end of the file.
+     *
+     * @param channel   the file
+     * @param chunkSize the minimum size of every chunk but the last
+     * @return          the chunks, in the order of the file
+     * @throws IOException if an I/O error occurs
+     */
+    static List<Chunk> split(FileChannel channel, long chunkSize) throws IOException {
+        final long size = channel.size();
+        final List<Chunk> chunks = new ArrayList<>();
+        final var window = ByteBuffer.allocate(8192);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            // Extend the chunk to the next line break.
+            boolean found = end == size || lineBreakBefore(channel, end);
+            while (!found) {
+                window.clear();
+                final int read = channel.read(window, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (window.get(i) == '\n') {
+                        end += i + 1;
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    end += read;
+                }
+            }
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static boolean lineBreakBefore(FileChannel channel, long position) throws IOException {
+        final var previous = ByteBuffer.allocate(1);
+        return channel.read(previous, position - 1) == 1 && previous.get(0) == '\n';
+    }
+
+    private static void report(Path file, long parsed, long dropped, int chunks, int threads, long start) {
+        final long nanos = System.nanoTime() - start;
+        Metrics.KNOWLEDGE_GRAPH_TRIPLES.add(parsed);
+        Metrics.KNOWLEDGE_GRAPH_TRIPLES_FILTERED.add(dropped);
+        logger.info("Parsed {} triples from {} in {} chunks on {} threads in {} ms ({} triples/s).", parsed, file,
+                chunks, Math.min(chunks, threads), TimeUnit.NANOSECONDS.toMillis(nanos),
+                Math.round(parsed / Math.max(nanos / 1e9, 1e-9)));
+        if (dropped > 0) {
+            logger.info("Kept {} triples of the loaded predicates, filtered out {} ({}%).", parsed - dropped, dropped,
+                    String.format(Locale.ROOT, "%.1f", 100.0 * dropped / parsed));
+        }
+    }
+
+    /**
+     * Input stream over a mapped chunk of the file.
+     */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
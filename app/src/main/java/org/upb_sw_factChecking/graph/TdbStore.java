@@ -0,0 +1,119 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.apache.jena.tdb2.loader.base.LoaderOps;
+import org.apache.jena.tdb2.sys.TDBInternal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Persistent <a href="https://jena.apache.org/documentation/tdb2/">TDB2</a> store of a knowledge graph.
+ * <p>
+ * The store is built from a dump file the first time it is opened, with the TDB2 bulk loader, which sorts the
+ * triples into the indexes in separate phases instead of inserting them one by one into a single write transaction.
+ * Later runs only read the store and need no dump file.
+ * <p>
+ * Once the load has finished, the fingerprint of the dump file is written to a marker file next to the store, see
+ * {@link #markerFor}. A store without the marker was not built completely, and a store whose marker does not match
+ * the given dump file was built from an older dump, both are built again from the dump file.
+ */
+public final class TdbStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TdbStore.class);
+
+    private TdbStore() {}
+
+    /**
+     * Returns the marker file of a store, written once the store is built completely.
+     *
+     * @param directory the directory of the store
+     * @return          the marker file next to it
+     */
+    public static Path markerFor(Path directory) {
+        return directory.resolveSibling(directory.getFileName() + ".loaded");
+    }
+
+    /**
+     * Opens the store in a directory, building it from the dump file if it is empty, was not built completely or
+     * was built from a different dump file.
+     *
+     * @param directory the directory of the store
+     * @param dumpFile  the dump file to build the store from, or null if the store already exists
+     * @return          the dataset of the store
+     * @throws IOException if the store has to be built and no dump file is given, or the files can not be accessed
+     */
+    public static Dataset open(Path directory, Path dumpFile) throws IOException {
+        final var marker = markerFor(directory);
+        final var loaded = readMarker(marker);
+        var dataset = TDB2Factory.connectDataset(directory.toString());
+        final boolean empty = isEmpty(dataset);
+        final var source = dumpFile == null ? null : GraphFingerprint.of(dumpFile);
+
+        if (!empty && loaded != null && (source == null || source.equals(loaded))) {
+            return dataset;
+        }
+        if (dumpFile == null) {
+            throw new IOException("TDB2 store " + directory + (empty ? " is empty" : " was not built completely")
+                    + ", a dump file is needed to build it");
+        }
+        if (!empty) {
+            logger.warn("TDB2 store {} {}, building it again.", directory,
+                    loaded == null ? "was not built completely" : "was built from a different dump file");
+            // The files are removed instead of deleting the triples, TDB2 does not give the space of deleted triples back.
+            TDBInternal.expel(dataset.asDatasetGraph());
+            delete(directory);
+            dataset = TDB2Factory.connectDataset(directory.toString());
+        }
+        Files.deleteIfExists(marker);
+
+        logger.info("Building TDB2 store in {} from {}.", directory, dumpFile);
+        final DataLoader loader = LoaderFactory.createLoader(dataset.asDatasetGraph(), LoaderOps.outputToLog());
+        loader.startBulk();
+        try {
+            loader.load(dumpFile.toString());
+            loader.finishBulk();
+        } catch (RuntimeException e) {
+            loader.finishException(e);
+            throw e;
+        }
+        Files.writeString(marker, source.size() + " " + source.lastModified() + "\n", StandardCharsets.UTF_8);
+        logger.info("Built TDB2 store with {} triples.", loader.countTriples());
+        return dataset;
+    }
+
+    private static boolean isEmpty(Dataset dataset) {
+        return Txn.calculateRead(dataset, () -> dataset.asDatasetGraph().isEmpty());
+    }
+
+    private static GraphFingerprint readMarker(Path marker) throws IOException {
+        if (!Files.exists(marker)) {
+            return null;
+        }
+        final var fields = Files.readString(marker, StandardCharsets.UTF_8).trim().split(" ");
+        try {
+            return new GraphFingerprint(Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            logger.warn("Ignoring invalid TDB2 marker file {}.", marker);
+            return null;
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (var file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of RDF terms used by {@link GraphSnapshot}.
+ * <p>
+ * A term is stored as one tag byte followed by UTF-8 text. Language tags and datatypes of literals follow the
+ * lexical form, separated by a zero byte.
+ */
+final class TermCodec {
+
+    private static final byte IRI = 0;
+    private static final byte BLANK = 1;
+    private static final byte STRING = 2;
+    private static final byte LANG_STRING = 3;
+    private static final byte TYPED = 4;
+
+    private TermCodec() {}
+
+    static byte[] encode(Node node) {
+        final byte tag;
+        final String text;
+        if (node.isURI()) {
+            tag = IRI;
+            text = node.getURI();
+        } else if (node.isBlank()) {
+            tag = BLANK;
+            text = node.getBlankNodeLabel();
+        } else if (node.isLiteral()) {
+            final var lexicalForm = node.getLiteralLexicalForm();
+            final var language = node.getLiteralLanguage();
+            if (language != null && !language.isEmpty()) {
+                tag = LANG_STRING;
+                text = lexicalForm + '\0' + language;
+            } else if (XSDDatatype.XSDstring.getURI().equals(node.getLiteralDatatypeURI())) {
+                tag = STRING;
+                text = lexicalForm;
+            } else {
+                tag = TYPED;
+                text = lexicalForm + '\0' + node.getLiteralDatatypeURI();
+            }
+        } else {
+            throw new IllegalArgumentException("Can not encode term " + node);
+        }
+
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        final byte[] result = new byte[bytes.length + 1];
+        result[0] = tag;
+        System.arraycopy(bytes, 0, result, 1, bytes.length);
+        return result;
+    }
+
+    static Node decode(byte[] encoded) {
+        final var text = new String(encoded, 1, encoded.length - 1, StandardCharsets.UTF_8);
+        return switch (encoded[0]) {
+            case IRI -> NodeFactory.createURI(text);
+            case BLANK -> NodeFactory.createBlankNode(text);
+            case STRING -> NodeFactory.createLiteralDT(text, XSDDatatype.XSDstring);
+            case LANG_STRING -> {
+                final int split = text.lastIndexOf('\0');
+                yield NodeFactory.createLiteralLang(text.substring(0, split), text.substring(split + 1));
+            }
+            case TYPED -> {
+                final int split = text.lastIndexOf('\0');
+                yield NodeFactory.createLiteralDT(text.substring(0, split),
+                        TypeMapper.getInstance().getSafeTypeByName(text.substring(split + 1)));
+            }
+            default -> throw new IllegalArgumentException("Unknown term tag " + encoded[0]);
+        };
+    }
+
+    /**
+     * FNV-1a hash of an encoded term, used for the hash table of the snapshot dictionary.
+     */
+    static int hash(byte[] encoded) {
+        int hash = 0x811C9DC5;
+        for (byte b : encoded) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,27 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Node;
+
+/**
+ * Dictionary encoding RDF terms (IRIs, blank nodes and literals) as dense integer ids starting at 0.
+ */
+public interface TermDictionary {
+
+    /**
+     * Returns the id of the given term.
+     *
+     * @param node the term
+     * @return     the id of the term, or -1 if the term is unknown
+     */
+    int getId(Node node);
+
+    /**
+     * Returns the term with the given id.
+     *
+     * @param id the id
+     * @return   the term
+     */
+    Node getNode(int id);
+
+    int size();
+}
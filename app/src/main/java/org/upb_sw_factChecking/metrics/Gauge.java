@@ -0,0 +1,33 @@
+package org.upb_sw_factChecking.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value that is computed when the metrics are exported, e.g. a throughput derived from a counter.
+ */
+public final class Gauge implements Metric {
+
+    private final String name;
+    private final String help;
+    private final DoubleSupplier value;
+
+    Gauge(String name, String help, DoubleSupplier value) {
+        this.name = name;
+        this.help = help;
+        this.value = value;
+    }
+
+    public double get() {
+        return value.getAsDouble();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String help() {
+        return help;
+    }
+}
@@ -0,0 +1,83 @@
+package org.upb_sw_factChecking.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of a count, e.g. the number of rules tried for a fact, in buckets with fixed upper bounds.
+ */
+public final class Histogram implements Metric {
+
+    private final String name;
+    private final String help;
+    // Inclusive upper bounds of the buckets, ascending. Values above the last bound are only counted in the total.
+    private final long[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    Histogram(String name, String help, long[] bounds) {
+        this.name = name;
+        this.help = help;
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        this.buckets = new LongAdder[bounds.length];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        count.increment();
+        sum.add(value);
+        int bucket = Arrays.binarySearch(bounds, value);
+        if (bucket < 0) {
+            bucket = -bucket - 1;
+        }
+        if (bucket < buckets.length) {
+            buckets[bucket].increment();
+        }
+    }
+
+    public long[] getBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * Returns the cumulative counts of the buckets: the number of values up to each bound.
+     *
+     * @return the cumulative counts, in the order of the bounds
+     */
+    public long[] getCumulativeCounts() {
+        final var counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String help() {
+        return help;
+    }
+}
@@ -0,0 +1,21 @@
+package org.upb_sw_factChecking.metrics;
+
+/**
+ * A named metric of a {@link MetricsRegistry}.
+ */
+public interface Metric {
+
+    /**
+     * Returns the name of the metric, in the form of a Prometheus metric name.
+     *
+     * @return the name
+     */
+    String name();
+
+    /**
+     * Returns a description of the metric.
+     *
+     * @return the description
+     */
+    String help();
+}
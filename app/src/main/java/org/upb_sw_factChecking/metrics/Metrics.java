@@ -0,0 +1,64 @@
+package org.upb_sw_factChecking.metrics;
+
+/**
+ * The metrics of rule generation and fact scoring, registered in one global registry.
+ * <p>
+ * Phases are measured with timers, the distributions of rules tried per fact and of paths found per example with
+ * histograms. Throughput gauges are derived from the counters.
+ */
+public final class Metrics {
+
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    private static final long[] COUNT_BUCKETS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000};
+
+    // Phases.
+    public static final Timer KNOWLEDGE_GRAPH_LOAD = REGISTRY.timer("factcheck_knowledge_graph_load_seconds",
+            "Time spent loading the knowledge graph");
+    public static final Timer RULE_LOAD = REGISTRY.timer("factcheck_rule_load_seconds",
+            "Time spent loading rule files");
+    public static final Timer PATH_SEARCH = REGISTRY.timer("factcheck_path_search_seconds",
+            "Time spent searching the paths of a training example");
+    public static final Timer RULE_CREATION = REGISTRY.timer("factcheck_rule_creation_seconds",
+            "Time spent creating the rules from the paths of a training example");
+    public static final Timer RULE_WEIGHTING = REGISTRY.timer("factcheck_rule_weighting_seconds",
+            "Time spent weighting the learned rules");
+    public static final Timer RULE_APPLICATION = REGISTRY.timer("factcheck_rule_application_seconds",
+            "Time spent evaluating rules on facts, per fact or per batch");
+    public static final Timer EXPLANATION = REGISTRY.timer("factcheck_explanation_seconds",
+            "Time spent building and logging the evidence path of a fact");
+    public static final Timer SERVER_REQUEST = REGISTRY.timer("factcheck_server_request_seconds",
+            "Time spent answering a scoring request of the server");
+
+    // Distributions.
+    public static final Histogram RULES_TRIED_PER_FACT = REGISTRY.histogram("factcheck_rules_tried_per_fact",
+            "Number of rules evaluated for a fact until its positive and negative rules were found", COUNT_BUCKETS);
+    public static final Histogram PATHS_PER_EXAMPLE = REGISTRY.histogram("factcheck_paths_per_example",
+            "Number of paths found for a training example", COUNT_BUCKETS);
+
+    // Counts.
+    public static final Counter KNOWLEDGE_GRAPH_TRIPLES = REGISTRY.counter("factcheck_knowledge_graph_triples_loaded_total",
+            "Triples parsed from knowledge graph dumps");
+    public static final Counter KNOWLEDGE_GRAPH_TRIPLES_FILTERED = REGISTRY.counter("factcheck_knowledge_graph_triples_filtered_total",
+            "Triples of knowledge graph dumps dropped because no rule uses their predicate");
+    public static final Counter EXAMPLES_LEARNED = REGISTRY.counter("factcheck_examples_learned_total",
+            "Training examples whose rules were generated");
+    public static final Counter EXAMPLES_TIMED_OUT = REGISTRY.counter("factcheck_examples_timed_out_total",
+            "Training examples whose path search stopped at the timeout");
+    public static final Counter RULE_BODY_EVALUATIONS = REGISTRY.counter("factcheck_rule_body_evaluations_total",
+            "Rule bodies evaluated for single facts");
+    public static final Counter FACTS_SCORED = REGISTRY.counter("factcheck_facts_scored_total",
+            "Facts scored");
+    public static final Counter FACTS_WITHOUT_EVIDENCE = REGISTRY.counter("factcheck_facts_without_evidence_total",
+            "Facts scored without any applying rule, so without an evidence path");
+    public static final Counter RULE_RELOADS = REGISTRY.counter("factcheck_rule_reloads_total",
+            "Rule files loaded by the server after it became ready");
+
+    // Throughput.
+    public static final Gauge EXAMPLES_LEARNED_RATE = REGISTRY.rate("factcheck_examples_learned_per_second",
+            "Training examples learned per second since start", EXAMPLES_LEARNED);
+    public static final Gauge FACTS_SCORED_RATE = REGISTRY.rate("factcheck_facts_scored_per_second",
+            "Facts scored per second since start", FACTS_SCORED);
+
+    private Metrics() {}
+}
@@ -0,0 +1,99 @@
+package org.upb_sw_factChecking.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the metrics of a registry to a file and logs a summary when closed.
+ * <p>
+ * Files ending in <code>.json</code> are written as JSON, any other file in the Prometheus text format, e.g. for the
+ * textfile collector of the node exporter. Each write replaces the file atomically, so readers never see a partial
+ * file.
+ */
+public final class MetricsExporter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsExporter.class);
+
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final ScheduledExecutorService scheduler;
+
+    private MetricsExporter(MetricsRegistry registry, Path file, long intervalSeconds) {
+        this.registry = registry;
+        this.file = file;
+        if (file != null && intervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final var thread = new Thread(runnable, "metrics-exporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::writeQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Starts exporting the metrics.
+     *
+     * @param registry        the registry to export
+     * @param file            the file to write the metrics to, or null to only log the summary when closed
+     * @param intervalSeconds the interval between writes in seconds, 0 to only write when closed
+     * @return                the exporter, to be closed at exit
+     */
+    public static MetricsExporter start(MetricsRegistry registry, Path file, long intervalSeconds) {
+        return new MetricsExporter(registry, file, intervalSeconds);
+    }
+
+    /**
+     * Writes the metrics to the file, replacing it.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void write() throws IOException {
+        final var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var writer = Files.newBufferedWriter(temporary)) {
+            if (file.getFileName().toString().endsWith(".json")) {
+                registry.writeJson(writer);
+            } else {
+                registry.writePrometheus(writer);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException e) {
+            logger.warn("Error writing metrics file {}", file, e);
+        }
+    }
+
+    /**
+     * Stops the periodic writes, writes the final metrics and logs their summary.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (file != null) {
+            writeQuietly();
+        }
+        final var summary = registry.summary();
+        if (!summary.isEmpty()) {
+            logger.info("Metrics after {} s:\n  {}", String.format(Locale.ROOT, "%.1f", registry.getUptimeSeconds()), String.join("\n  ", summary));
+        }
+    }
+}
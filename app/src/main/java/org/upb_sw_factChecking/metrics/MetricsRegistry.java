@@ -0,0 +1,198 @@
+package org.upb_sw_factChecking.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of named metrics, exported in the Prometheus text format or as JSON.
+ * <p>
+ * Metrics are registered once, usually as constants, and updated without any lock. An export reads every metric
+ * separately, so metrics updated during an export may be off by the updates in flight.
+ */
+public final class MetricsRegistry {
+
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+    private final List<Metric> ordered = new ArrayList<>();
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Registers a counter.
+     *
+     * @param name the name, by convention ending in <code>_total</code>
+     * @param help a description
+     * @return     the counter
+     */
+    public Counter counter(String name, String help) {
+        return register(new Counter(name, help));
+    }
+
+    /**
+     * Registers a timer.
+     *
+     * @param name the name, by convention ending in <code>_seconds</code>
+     * @param help a description
+     * @return     the timer
+     */
+    public Timer timer(String name, String help) {
+        return register(new Timer(name, help));
+    }
+
+    /**
+     * Registers a histogram.
+     *
+     * @param name   the name
+     * @param help   a description
+     * @param bounds the inclusive upper bounds of the buckets
+     * @return       the histogram
+     */
+    public Histogram histogram(String name, String help, long... bounds) {
+        return register(new Histogram(name, help, bounds));
+    }
+
+    /**
+     * Registers a gauge.
+     *
+     * @param name  the name
+     * @param help  a description
+     * @param value computes the value at export
+     * @return      the gauge
+     */
+    public Gauge gauge(String name, String help, DoubleSupplier value) {
+        return register(new Gauge(name, help, value));
+    }
+
+    /**
+     * Registers a gauge with the rate of a counter per second since the registry was created.
+     *
+     * @param name    the name
+     * @param help    a description
+     * @param counter the counter
+     * @return        the gauge
+     */
+    public Gauge rate(String name, String help, Counter counter) {
+        return gauge(name, help, () -> counter.get() / Math.max(getUptimeSeconds(), 1e-9));
+    }
+
+    private synchronized <M extends Metric> M register(M metric) {
+        if (metrics.putIfAbsent(metric.name(), metric) != null) {
+            throw new IllegalArgumentException("Metric " + metric.name() + " is already registered");
+        }
+        ordered.add(metric);
+        return metric;
+    }
+
+    private synchronized List<Metric> metrics() {
+        return List.copyOf(ordered);
+    }
+
+    public double getUptimeSeconds() {
+        return (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format.
+     * Timers are written as summaries, their maximum as a separate gauge family <code>name_max</code>, as a summary
+     * has no sample for it.
+     *
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs
+     */
+    public void writePrometheus(Writer writer) throws IOException {
+        for (Metric metric : metrics()) {
+            final var name = metric.name();
+            writer.write("# HELP " + name + " " + metric.help() + "\n");
+            if (metric instanceof Counter counter) {
+                writer.write("# TYPE " + name + " counter\n");
+                writer.write(name + " " + counter.get() + "\n");
+            } else if (metric instanceof Gauge gauge) {
+                writer.write("# TYPE " + name + " gauge\n");
+                writer.write(name + " " + format(gauge.get()) + "\n");
+            } else if (metric instanceof Timer timer) {
+                writer.write("# TYPE " + name + " summary\n");
+                writer.write(name + "_count " + timer.getCount() + "\n");
+                writer.write(name + "_sum " + format(timer.getTotalSeconds()) + "\n");
+                writer.write("# HELP " + name + "_max Maximum of: " + metric.help() + "\n");
+                writer.write("# TYPE " + name + "_max gauge\n");
+                writer.write(name + "_max " + format(timer.getMaxSeconds()) + "\n");
+            } else if (metric instanceof Histogram histogram) {
+                writer.write("# TYPE " + name + " histogram\n");
+                final var bounds = histogram.getBounds();
+                final var counts = histogram.getCumulativeCounts();
+                for (int i = 0; i < bounds.length; i++) {
+                    writer.write(name + "_bucket{le=\"" + bounds[i] + "\"} " + counts[i] + "\n");
+                }
+                writer.write(name + "_bucket{le=\"+Inf\"} " + histogram.getCount() + "\n");
+                writer.write(name + "_count " + histogram.getCount() + "\n");
+                writer.write(name + "_sum " + histogram.getSum() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Writes all metrics as one JSON object, keyed by metric name.
+     *
+     * @param writer the writer
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("{\n  \"uptime_seconds\": " + format(getUptimeSeconds()));
+        for (Metric metric : metrics()) {
+            writer.write(",\n  \"" + metric.name() + "\": ");
+            if (metric instanceof Counter counter) {
+                writer.write(Long.toString(counter.get()));
+            } else if (metric instanceof Gauge gauge) {
+                writer.write(format(gauge.get()));
+            } else if (metric instanceof Timer timer) {
+                writer.write("{\"count\": " + timer.getCount()
+                        + ", \"sum\": " + format(timer.getTotalSeconds())
+                        + ", \"max\": " + format(timer.getMaxSeconds()) + "}");
+            } else if (metric instanceof Histogram histogram) {
+                final var bounds = histogram.getBounds();
+                final var counts = histogram.getCumulativeCounts();
+                writer.write("{\"count\": " + histogram.getCount() + ", \"sum\": " + histogram.getSum() + ", \"buckets\": {");
+                for (int i = 0; i < bounds.length; i++) {
+                    writer.write((i > 0 ? ", " : "") + "\"" + bounds[i] + "\": " + counts[i]);
+                }
+                writer.write("}}");
+            }
+        }
+        writer.write("\n}\n");
+    }
+
+    /**
+     * Summarizes the metrics that were updated, one line per metric.
+     *
+     * @return the summary lines
+     */
+    public List<String> summary() {
+        final List<String> lines = new ArrayList<>();
+        for (Metric metric : metrics()) {
+            if (metric instanceof Counter counter && counter.get() > 0) {
+                lines.add(String.format(Locale.ROOT, "%s: %d", metric.name(), counter.get()));
+            } else if (metric instanceof Gauge gauge && gauge.get() > 0) {
+                lines.add(String.format(Locale.ROOT, "%s: %.2f", metric.name(), gauge.get()));
+            } else if (metric instanceof Timer timer && timer.getCount() > 0) {
+                lines.add(String.format(Locale.ROOT, "%s: %d times, %.3f s total, %.3f ms mean, %.3f ms max", metric.name(),
+                        timer.getCount(), timer.getTotalSeconds(), 1000 * timer.getTotalSeconds() / timer.getCount(), 1000 * timer.getMaxSeconds()));
+            } else if (metric instanceof Histogram histogram && histogram.getCount() > 0) {
+                lines.add(String.format(Locale.ROOT, "%s: %d values, %.2f mean", metric.name(),
+                        histogram.getCount(), histogram.getSum() / (double) histogram.getCount()));
+            }
+        }
+        return lines;
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return "0";
+        }
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+}
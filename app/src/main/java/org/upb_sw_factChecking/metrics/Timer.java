@@ -0,0 +1,92 @@
+package org.upb_sw_factChecking.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Accumulates the durations of a phase: how often it ran, the total and the longest time spent in it.
+ * <p>
+ * Recording a duration costs two reads of {@link System#nanoTime()} and a few striped additions, so timers can be
+ * updated on every fact or example.
+ */
+public final class Timer implements Metric {
+
+    private final String name;
+    private final String help;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    Timer(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    /**
+     * Starts measuring a duration, to be passed to {@link #stop}.
+     *
+     * @return the start time
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the duration since the given start time.
+     *
+     * @param start the value returned by {@link #start()}
+     */
+    public void stop(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Runs the action and records its duration.
+     *
+     * @param action the action
+     * @return       the result of the action
+     */
+    public <T> T time(Supplier<T> action) {
+        final long start = start();
+        try {
+            return action.get();
+        } finally {
+            stop(start);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getTotalSeconds() {
+        return totalNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public double getMaxSeconds() {
+        return maxNanos.get() / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String help() {
+        return help;
+    }
+}
@@ -0,0 +1,53 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Statement;
+import org.upb_sw_factChecking.graph.LabelIndex;
+
+/**
+ * Evidence for the score of a fact: the rule with minimum weight that applies to it, and the path through the
+ * knowledge graph matched by the body of the rule.
+ * <p>
+ * The path is taken from the bindings found while the rule was applied, so explaining a fact does not evaluate the
+ * rule again.
+ *
+ * @param rule the applying rule
+ * @param path the nodes bound to the variables <code>?e0</code> to <code>?en</code> of the rule body, from the subject
+ *             to the object of the fact, or null if the fact itself is part of the knowledge graph
+ */
+public record Evidence(WeightedRule rule, Node[] path) {
+
+    /**
+     * Formats the evidence as the instantiated rule,
+     * <code>(s p0 e1) (e1 p1 e2) ... (en-1 pn-1 o) -&gt; (s head o)</code>.
+     *
+     * @param fact   the fact the evidence is for
+     * @param labels the labels to show instead of the IRIs of the nodes, where they have one, or null to show IRIs
+     * @return       the formatted evidence
+     */
+    public String format(Statement fact, LabelIndex labels) {
+        final var head = "(" + name(labels, fact.getSubject().asNode()) + " " + name(labels, fact.getPredicate().asNode())
+                + " " + name(labels, fact.getObject().asNode()) + ")";
+        if (path == null) {
+            return head + " is part of the knowledge graph";
+        }
+
+        final var plan = rule.getPlan();
+        final var result = new StringBuilder();
+        for (int i = 0; i < plan.length(); i++) {
+            result.append('(')
+                    .append(name(labels, path[i])).append(' ')
+                    .append(name(labels, plan.predicate(i))).append(' ')
+                    .append(name(labels, path[i + 1]))
+                    .append(") ");
+        }
+        return result.append("-> ").append(head).toString();
+    }
+
+    private static String name(LabelIndex labels, Node node) {
+        if (labels != null) {
+            return labels.getOrDefault(node);
+        }
+        return node.isLiteral() ? node.getLiteralLexicalForm() : node.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.upb_sw_factChecking.dataset.TrainingSet;
+import org.upb_sw_factChecking.graph.LabelIndex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the evidence of scored facts as JSON lines, one object per fact:
+ * <pre>
+ * {"fact": "&lt;f&gt;", "subject": "&lt;s&gt;", "predicate": "&lt;p&gt;", "object": "&lt;o&gt;", "truthValue": 0.75,
+ *  "rule": "positive", "weight": 0.5, "inKnowledgeGraph": false,
+ *  "path": [["&lt;s&gt;", "&lt;p0&gt;", "&lt;e1&gt;"], ["&lt;e1&gt;", "&lt;p1&gt;", "&lt;o&gt;"]],
+ *  "labels": {"&lt;s&gt;": "S"}}
+ * </pre>
+ * Nodes are written in their N-Triples form. The rule, weight and path are null if no rule applies to the fact, the
+ * path is null as well if the fact itself is part of the knowledge graph. Labels are only written if a label index is
+ * given.
+ * <p>
+ * The writer is thread-safe, the lines of a batch are formatted by the calling thread and written in the order the
+ * batches are finished.
+ */
+public class EvidenceWriter implements Closeable {
+
+    private final Writer writer;
+    // Labels of the nodes of the fact and the path, null to not write labels.
+    private final LabelIndex labels;
+
+    /**
+     * @param writer the writer to write the lines to, it is closed together with this evidence writer
+     * @param labels the label index of the knowledge graph, or null to not write labels
+     */
+    public EvidenceWriter(Writer writer, LabelIndex labels) {
+        this.writer = writer;
+        this.labels = labels;
+    }
+
+    /**
+     * Creates the evidence file, replacing an existing file.
+     *
+     * @param file   the evidence file
+     * @param labels the label index of the knowledge graph, or null to not write labels
+     * @return       the evidence writer
+     * @throws IOException if the file can not be created
+     */
+    public static EvidenceWriter open(Path file, LabelIndex labels) throws IOException {
+        return new EvidenceWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), labels);
+    }
+
+    /**
+     * Writes the evidence of a batch of scored facts.
+     *
+     * @param entries  the facts with their computed truth values
+     * @param evidence the evidence of each fact, null where no rule applies
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(List<TrainingSet.TrainingSetEntry> entries, Evidence[] evidence) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        final var lines = new StringBuilder(entries.size() * 256);
+        for (int i = 0; i < entries.size(); i++) {
+            formatLine(entries.get(i), evidence[i], lines);
+        }
+        synchronized (this) {
+            writer.write(lines.toString());
+        }
+    }
+
+    private void formatLine(TrainingSet.TrainingSetEntry entry, Evidence evidence, StringBuilder out) {
+        final var subject = entry.statement().getSubject().asNode();
+        final var predicate = entry.statement().getPredicate().asNode();
+        final var object = entry.statement().getObject().asNode();
+        final Map<Node, String> found = new LinkedHashMap<>();
+
+        out.append("{\"fact\": ");
+        string(NodeFmtLib.strNT(entry.factIRI().asNode()), out);
+        out.append(", \"subject\": ");
+        node(subject, found, out);
+        out.append(", \"predicate\": ");
+        node(predicate, found, out);
+        out.append(", \"object\": ");
+        node(object, found, out);
+        out.append(", \"truthValue\": ").append(entry.truthValue());
+
+        if (evidence == null) {
+            out.append(", \"rule\": null, \"weight\": null, \"inKnowledgeGraph\": false, \"path\": null");
+        } else {
+            out.append(", \"rule\": \"").append(evidence.rule().isPositive ? "positive" : "negative").append('"');
+            out.append(", \"weight\": ").append(evidence.rule().weight);
+            out.append(", \"inKnowledgeGraph\": ").append(evidence.path() == null);
+            out.append(", \"path\": ");
+            final var path = evidence.path();
+            if (path == null) {
+                out.append("null");
+            } else {
+                final var plan = evidence.rule().getPlan();
+                out.append('[');
+                for (int i = 0; i < plan.length(); i++) {
+                    out.append(i > 0 ? ", [" : "[");
+                    node(path[i], found, out);
+                    out.append(", ");
+                    node(plan.predicate(i), found, out);
+                    out.append(", ");
+                    node(path[i + 1], found, out);
+                    out.append(']');
+                }
+                out.append(']');
+            }
+        }
+
+        if (labels != null) {
+            out.append(", \"labels\": {");
+            boolean first = true;
+            for (var label : found.entrySet()) {
+                if (!first) {
+                    out.append(", ");
+                }
+                first = false;
+                string(NodeFmtLib.strNT(label.getKey()), out);
+                out.append(": ");
+                string(label.getValue(), out);
+            }
+            out.append('}');
+        }
+        out.append("}\n");
+    }
+
+    /**
+     * Appends a node in its N-Triples form and collects its label if labels are written.
+     */
+    private void node(Node node, Map<Node, String> found, StringBuilder out) {
+        string(NodeFmtLib.strNT(node), out);
+        if (labels != null && !node.isLiteral() && !found.containsKey(node)) {
+            final var label = labels.get(node);
+            if (label != null) {
+                found.put(node, label);
+            }
+        }
+    }
+
+    /**
+     * Appends a JSON string literal.
+     */
+    static void string(String value, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -1,21 +1,29 @@
 package org.upb_sw_factChecking.scoring;
 
-import org.apache.jena.arq.querybuilder.SelectBuilder;
-import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.graph.Node;
 import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.ResourceFactory;
 import org.apache.jena.rdf.model.Statement;
-import org.apache.jena.reasoner.rulesys.Rule;
-import org.apache.jena.vocabulary.RDFS;
+import org.apache.jena.sparql.core.Transactional;
+import org.apache.jena.system.Txn;
 import org.slf4j.Logger;
 import org.upb_sw_factChecking.app.SystemParameters;
 import org.upb_sw_factChecking.dataset.TrainingSet;
+import org.upb_sw_factChecking.graph.KnowledgeGraph;
+import org.upb_sw_factChecking.graph.LabelIndex;
+import org.upb_sw_factChecking.metrics.Metrics;
+import org.upb_sw_factChecking.metrics.Timer;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 
 /**
@@ -23,16 +31,151 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public class FactScorer {
 
+    /**
+     * Rules sharing the same head predicate, each array sorted by ascending weight.
+     *
+     * @param positiveRules the positive rules for the predicate
+     * @param negativeRules the negative rules for the predicate
+     */
+    private record PredicateRules(WeightedRule[] positiveRules, WeightedRule[] negativeRules) {}
+
+    private static final PredicateRules NO_RULES = new PredicateRules(new WeightedRule[0], new WeightedRule[0]);
+
+    /**
+     * How the evidence of scored facts is explained.
+     */
+    public enum Explain {
+        /** Only compute scores. */
+        NONE,
+        /** Explain evidence with the IRIs of the nodes on its path. */
+        IRIS,
+        /** Explain evidence with the labels of the nodes on its path, where they have one. */
+        LABELS
+    }
+
     private final Model knownFacts;
+    // Store of the known facts if it requires transactions (TDB2), null for in-memory graphs.
+    private final Transactional transactional;
     private WeightedRule[] positiveRules;
     private WeightedRule[] negativeRules;
+    private Map<Node, PredicateRules> rulesByPredicate = Map.of();
+    // Binary rule file the rules of a predicate are loaded from when the predicate is first seen, null otherwise.
+    private RuleFile ruleFile;
+    // Learning state of rules generated by this scorer, null for rules loaded from a file.
+    private LearnedRules learnedRules;
+    private final ReachabilityCache reachabilityCache;
+    // Time limits of rule generation in milliseconds, 0 for none.
+    private long exampleTimeout = SystemParameters.EXAMPLE_TIMEOUT;
+    private long generationBudget = SystemParameters.GENERATION_BUDGET;
+    private PathEnumerator.Pruning pruning = PathEnumerator.Pruning.NONE;
+    private Explain explain = Explain.NONE;
+    // Labels shown in explanations of level LABELS, null to show IRIs.
+    private LabelIndex labels;
+    // Examples of the last rule generation that timed out or were not started within the budget.
+    private List<TrainingSet.TrainingSetEntry> timedOutExamples = List.of();
+    private List<TrainingSet.TrainingSetEntry> notStartedExamples = List.of();
 
     private final static int INITIAL_MAX_PATH_LENGTH = SystemParameters.INITIAL_MAX_PATH_LENGTH;
+    private final static int ABSOLUTE_MAX_PATH_LENGTH = SystemParameters.ABSOLUTE_MAX_PATH_LENGTH;
 
     private final static Logger logger = org.slf4j.LoggerFactory.getLogger(FactScorer.class);
 
     public FactScorer(Model knownFacts) {
+        this(knownFacts, null);
+    }
+
+    /**
+     * Creates a fact scorer on a transactional store.
+     * Every access to the known facts is then wrapped in a read transaction of the calling thread.
+     *
+     * @param knownFacts    the knowledge graph
+     * @param transactional the store the knowledge graph belongs to, or null if it does not require transactions
+     */
+    public FactScorer(Model knownFacts, Transactional transactional) {
+        this(knownFacts, transactional, new ReachabilityCache(SystemParameters.REACHABILITY_CACHE_SIZE, ReachabilityCache.Eviction.LRU));
+    }
+
+    /**
+     * Creates a fact scorer with the given cache of rule body reachability.
+     *
+     * @param knownFacts        the knowledge graph
+     * @param transactional     the store the knowledge graph belongs to, or null if it does not require transactions
+     * @param reachabilityCache the cache for the rule bodies evaluated on the knowledge graph
+     */
+    public FactScorer(Model knownFacts, Transactional transactional, ReachabilityCache reachabilityCache) {
         this.knownFacts = knownFacts;
+        this.transactional = transactional;
+        this.reachabilityCache = reachabilityCache;
+    }
+
+    /**
+     * Sets the time limits of rule generation.
+     * <p>
+     * The path search of an example stops at the example timeout, and rules are generated from the paths found until
+     * then. Once the generation budget is used up, running examples stop and no further examples are started.
+     *
+     * @param exampleTimeout   the maximum time for the path search of one example in milliseconds, 0 for none
+     * @param generationBudget the maximum time for the rule generation of a training set in milliseconds, 0 for none
+     */
+    public void setGenerationLimits(long exampleTimeout, long generationBudget) {
+        this.exampleTimeout = exampleTimeout;
+        this.generationBudget = generationBudget;
+    }
+
+    /**
+     * Sets how the path search of rule generation is pruned by the degree statistics of the knowledge graph.
+     *
+     * @param pruning the limits of the path search, {@link PathEnumerator.Pruning#NONE} to not prune
+     */
+    public void setPruning(PathEnumerator.Pruning pruning) {
+        this.pruning = pruning;
+    }
+
+    /**
+     * Sets how the evidence of scored facts is explained. Evidence paths are only kept and logged if this is not
+     * {@link Explain#NONE}.
+     *
+     * @param explain the explanation level
+     */
+    public void setExplain(Explain explain) {
+        this.explain = explain;
+    }
+
+    public Explain getExplain() {
+        return explain;
+    }
+
+    /**
+     * Sets the labels shown in explanations of level {@link Explain#LABELS}.
+     *
+     * @param labels the label index of the known facts, or null to show IRIs
+     */
+    public void setLabels(LabelIndex labels) {
+        this.labels = labels;
+    }
+
+    public LabelIndex getLabels() {
+        return labels;
+    }
+
+    /**
+     * Returns the examples whose path search timed out in the last rule generation.
+     * Their rules are based on the paths found until the timeout.
+     *
+     * @return the timed out examples
+     */
+    public List<TrainingSet.TrainingSetEntry> getTimedOutExamples() {
+        return timedOutExamples;
+    }
+
+    /**
+     * Returns the examples the last rule generation did not start because the generation budget was used up.
+     * They are not part of the learned rules.
+     *
+     * @return the examples that were not started
+     */
+    public List<TrainingSet.TrainingSetEntry> getNotStartedExamples() {
+        return notStartedExamples;
     }
 
     /**
@@ -44,116 +187,440 @@ public class FactScorer {
      * @param gamma       the gamma parameter for the rule weight calculation
      */
     public void generateAndWeightRules(TrainingSet trainingSet, double alpha, double beta, double gamma) {
-        Map<Rule, Set<TrainingSet.TrainingSetEntry>> coverage = Collections.synchronizedMap(new HashMap<>());               // Rule -> Set of covered examples
-        Map<String, Set<TrainingSet.TrainingSetEntry>> coveragePredicates = Collections.synchronizedMap(new HashMap<>());  // Predicate -> Set of covered examples
-        Set<WeightedRule> ruleSet = Collections.synchronizedSet(new HashSet<>());                                           // Set of generated rules
-
-        // Generate rules for each example in the training set.
-        AtomicInteger counter = new AtomicInteger();
-        trainingSet.getEntries().parallelStream().forEach(example -> {
-            final var ruleArray = WeightedRule.generateRules(knownFacts, example.statement(), example.truthValue() == 1.0, INITIAL_MAX_PATH_LENGTH);
-            logger.info("Example Number {} of {}: Generated {} rules for example {}.", counter.incrementAndGet(), trainingSet.getEntries().size(), ruleArray.length, example.statement());
-
-            // For each generated rule, add it to the rule set and update the coverage maps.
-            for (var rule : ruleArray) {
-                final var coveredExampleList = coverage.computeIfAbsent(rule.rule, r -> Collections.synchronizedSet(new HashSet<>()));
-                final var predicateCoveredExamplesPredicateList = coveragePredicates.computeIfAbsent(getPredicate(rule.rule), r -> Collections.synchronizedSet(new HashSet<>()));
-                coveredExampleList.add(example);
-                predicateCoveredExamplesPredicateList.add(example);
-                ruleSet.add(rule);
-            }
-        });
+        learnRules(new LearnedRules(), trainingSet, alpha, beta, gamma);
+    }
 
-        // Counter covered examples for each rule.
-        for (WeightedRule rule : ruleSet) {
-            // Count covered examples by rule.
-            final var examples = coverage.get(rule.rule);
-            AtomicInteger countCorrect = new AtomicInteger();
-            AtomicInteger countCounter = new AtomicInteger();
-
-            examples.forEach(example -> {
-                // If rule is positive and example is true or rule is negative and example is false,
-                // increment correct counter.
-                if ((example.truthValue() == 1.0 && rule.isPositive) || (example.truthValue() == 0.0 && !rule.isPositive)) {
-                    countCorrect.getAndIncrement();
-                } else {
-                    countCounter.getAndIncrement();
-                }
-            });
-
-            // Count covered examples by predicate.
-            final var examplesPredicate = coveragePredicates.get(getPredicate(rule.rule));
-            AtomicInteger predicateCountCorrect = new AtomicInteger();
-            AtomicInteger predicateCountCounter = new AtomicInteger();
-            examplesPredicate.forEach(example -> {
-                if ((example.truthValue() == 1.0 && rule.isPositive) || (example.truthValue() == 0.0 && !rule.isPositive)) {
-                    predicateCountCorrect.getAndIncrement();
-                } else {
-                    predicateCountCounter.getAndIncrement();
+    /**
+     * Folds the examples of the training set into previously learned rules.
+     * Paths are only searched for examples that were not learned yet, then the weights of all rules are recomputed
+     * from the merged counters. The result replaces the rules of this scorer.
+     *
+     * @param learned     the previously learned rules, updated in place
+     * @param trainingSet the training set to generate rules from
+     * @param alpha       the alpha parameter for the rule weight calculation
+     * @param beta        the beta parameter for the rule weight calculation
+     * @param gamma       the gamma parameter for the rule weight calculation
+     */
+    public void learnRules(LearnedRules learned, TrainingSet trainingSet, double alpha, double beta, double gamma) {
+        learnRules(learned, trainingSet, alpha, beta, gamma, null);
+    }
+
+    /**
+     * Folds the examples of the training set into previously learned rules, like
+     * {@link #learnRules(LearnedRules, TrainingSet, double, double, double)}, and records every finished example in
+     * the checkpoint. Examples of the checkpoint must already have been added to the learned rules when it was opened.
+     *
+     * @param learned     the previously learned rules, updated in place
+     * @param trainingSet the training set to generate rules from
+     * @param alpha       the alpha parameter for the rule weight calculation
+     * @param beta        the beta parameter for the rule weight calculation
+     * @param gamma       the gamma parameter for the rule weight calculation
+     * @param checkpoint  the checkpoint of finished examples, or null
+     */
+    public void learnRules(LearnedRules learned, TrainingSet trainingSet, double alpha, double beta, double gamma, RuleCheckpoint checkpoint) {
+        final var newExamples = trainingSet.getEntries().stream().filter(example -> !learned.isLearned(example)).toList();
+        if (newExamples.size() < trainingSet.getEntries().size()) {
+            logger.info("Skipping {} examples that were already learned.", trainingSet.getEntries().size() - newExamples.size());
+        }
+
+        // Generate rules for each new example and count it for their bodies and head predicate.
+        // Every example is a task on its own virtual thread, the semaphore bounds how many run at once.
+        final long start = System.nanoTime();
+        final long budgetEnd = generationBudget > 0 ? start + TimeUnit.MILLISECONDS.toNanos(generationBudget) : Long.MAX_VALUE;
+        final var permits = new Semaphore(Runtime.getRuntime().availableProcessors());
+        final AtomicInteger counter = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Queue<TrainingSet.TrainingSetEntry> timedOut = new ConcurrentLinkedQueue<>();
+        final List<TrainingSet.TrainingSetEntry> notStarted = new ArrayList<>();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < newExamples.size(); i++) {
+                permits.acquireUninterruptibly();
+                if (System.nanoTime() - budgetEnd >= 0 || failure.get() != null) {
+                    permits.release();
+                    notStarted.addAll(newExamples.subList(i, newExamples.size()));
+                    break;
                 }
-            });
+                final var example = newExamples.get(i);
+                executor.submit(() -> {
+                    try {
+                        // The example stops at its own timeout or at the end of the budget, whichever comes first.
+                        final long now = System.nanoTime();
+                        final long deadline = exampleTimeout > 0 ? Math.min(budgetEnd, now + TimeUnit.MILLISECONDS.toNanos(exampleTimeout)) : budgetEnd;
+                        final var statement = example.statement();
+                        final var result = Metrics.PATH_SEARCH.time(() -> read(() -> PathEnumerator.search(knownFacts,
+                                statement.getSubject(), statement.getObject(), INITIAL_MAX_PATH_LENGTH, ABSOLUTE_MAX_PATH_LENGTH, deadline, pruning)));
+                        Metrics.PATHS_PER_EXAMPLE.record(result.paths().length);
+                        final long creationStart = Timer.start();
+                        final var ruleArray = WeightedRule.fromPaths(result.paths(), statement, example.truthValue() == 1.0);
+                        Metrics.RULE_CREATION.stop(creationStart);
+                        if (result.timedOut()) {
+                            timedOut.add(example);
+                            Metrics.EXAMPLES_TIMED_OUT.increment();
+                            logger.warn("Example {} timed out after {} ms, keeping the {} rules found so far.", example.factIRI(),
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - now), ruleArray.length);
+                        } else if (ruleArray.length == 0) {
+                            logger.warn("No rules generated for example {}.", statement);
+                        }
+                        logger.info("Example Number {} of {}: Generated {} rules for example {}.", counter.incrementAndGet(), newExamples.size(), ruleArray.length, statement);
 
-            // Assign counters to rule for later weight calculation.
-            rule.setCounters(countCorrect.get(), countCounter.get(), predicateCountCorrect.get(), predicateCountCounter.get());
+                        learned.addExample(example, ruleArray);
+                        Metrics.EXAMPLES_LEARNED.increment();
+                        if (checkpoint != null) {
+                            checkpoint.append(example, ruleArray);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        if (failure.get() != null) {
+            throw new RuntimeException("Rule generation failed", failure.get());
         }
 
-        // Calculate and assign weights.
-        for (var rule : ruleSet) {
-            double temp1 = rule.getNumberOfCoveredExamples() == 0 ? 0 : (double) rule.getNumberOfCoveredExamples() / rule.getNumberOfCoveredExamplesUnbound();
-            double temp2 = rule.getNumberOfCoveredCounters() == 0 ? 0 : (double) rule.getNumberOfCoveredCounters() / rule.getNumberOfCoveredCountersUnbound();
-            double w2r = alpha * (1 - temp1) + beta * temp2;
-            double wcr = 1 -
-                    ((rule.getNumberOfCoveredExamples() - 1 / gamma * rule.getNumberOfCoveredCounters()) /
-                        rule.getNumberOfCoveredExamples()) * (1 - w2r);
-            // if there are many more counters than examples, the weight might be above 1.0, which is not allowed.
-            rule.setWeight(Double.min(1.0, wcr));
+        timedOutExamples = List.copyOf(timedOut);
+        notStartedExamples = List.copyOf(notStarted);
+        if (!timedOutExamples.isEmpty()) {
+            logger.warn("{} examples timed out, their rules are based on the paths found until then: {}", timedOutExamples.size(),
+                    timedOutExamples.stream().map(example -> example.factIRI().getURI()).toList());
         }
+        if (!notStartedExamples.isEmpty()) {
+            logger.warn("Generation budget of {} ms exhausted, {} examples were not learned and are left for the next run.",
+                    generationBudget, notStartedExamples.size());
+        }
+        logger.info("Generated rules for {} examples in {} ms.", counter.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        final long weightingStart = Timer.start();
+        learned.weightRules(alpha, beta, gamma);
+        Metrics.RULE_WEIGHTING.stop(weightingStart);
 
         // Create sorted rule arrays.
-        positiveRules = ruleSet.stream().sorted(Comparator.comparingDouble(rule -> rule.weight)).filter(weightedRule -> weightedRule.isPositive).toArray(WeightedRule[]::new);
-        negativeRules = ruleSet.stream().sorted(Comparator.comparingDouble(rule -> rule.weight)).filter(weightedRule -> !weightedRule.isPositive).toArray(WeightedRule[]::new);
+        final var ruleSet = learned.getRules();
+        positiveRules = Arrays.stream(ruleSet).sorted(Comparator.comparingDouble(rule -> rule.weight)).filter(weightedRule -> weightedRule.isPositive).toArray(WeightedRule[]::new);
+        negativeRules = Arrays.stream(ruleSet).sorted(Comparator.comparingDouble(rule -> rule.weight)).filter(weightedRule -> !weightedRule.isPositive).toArray(WeightedRule[]::new);
+        learnedRules = learned;
+        ruleFile = null;
+        indexRules();
     }
 
     public double scoreStatement(Statement fact) {
+        return scoreStatement(fact, null);
+    }
+
+    /**
+     * Scores a fact and keeps its evidence.
+     *
+     * @param fact     the fact to score
+     * @param evidence an array to store the evidence of the fact at index 0, null if there is none, or null if the
+     *                 evidence is not needed. The evidence is only kept if the explanation level is not
+     *                 {@link Explain#NONE}.
+     * @return         the truth value of the fact
+     */
+    public double scoreStatement(Statement fact, Evidence[] evidence) {
+        return read(() -> scoreStatementInTransaction(fact, evidence));
+    }
+
+    private double scoreStatementInTransaction(Statement fact, Evidence[] evidence) {
+        // Only rules whose head predicate matches the fact can apply.
+        final var candidates = candidatesFor(fact.getPredicate().asNode());
+        final long applicationStart = Timer.start();
+        int tried = 0;
+
         AtomicReference<Double> minPositiveWeight  = new AtomicReference<>(1.0); // initialize with 1.0
-        AtomicReference<Rule> positiveRule = new AtomicReference<>();
-        for (WeightedRule rule : positiveRules) {
-            if (rule.doesRuleApply(knownFacts, fact)) {
+        AtomicReference<WeightedRule> positiveRule = new AtomicReference<>();
+        for (WeightedRule rule : candidates.positiveRules()) {
+            tried++;
+            if (rule.doesRuleApply(knownFacts, fact, reachabilityCache)) {
                 minPositiveWeight.getAndSet(rule.weight);
-                positiveRule.set(rule.rule);
+                positiveRule.set(rule);
                 break;
             }
         }
 
         AtomicReference<Double> minNegativeWeight = new AtomicReference<>(1.0); // initialize with 1.0
-        AtomicReference<Rule> negativeRule = new AtomicReference<>();
+        AtomicReference<WeightedRule> negativeRule = new AtomicReference<>();
         // if we already found a positive rule that applies, we don't need to check the negative rules
         if (minPositiveWeight.get() == 1.0) {
-            for (WeightedRule rule : negativeRules) {
-                if (rule.doesRuleApply(knownFacts, fact)) {
+            for (WeightedRule rule : candidates.negativeRules()) {
+                tried++;
+                if (rule.doesRuleApply(knownFacts, fact, reachabilityCache)) {
                     minNegativeWeight.getAndSet(rule.weight);
-                    negativeRule.set(rule.rule);
+                    negativeRule.set(rule);
                     break;
                 }
             }
         }
+        Metrics.RULE_APPLICATION.stop(applicationStart);
+        Metrics.RULES_TRIED_PER_FACT.record(tried);
 
-        // Synchronization just to prevent interleaving of the log messages.
-        synchronized(this) {
-            if (positiveRule.get() != null) {
-                logger.info("Positive evidence path: {}", instantiateRule(knownFacts, positiveRule.get(), fact, true));
-                logger.info("Positive evidence path: {}", instantiateRule(knownFacts, positiveRule.get(), fact, false));
-            } else if (negativeRule.get() != null) {
-                logger.info("Negative evidence path: {}", instantiateRule(knownFacts, negativeRule.get(), fact, true));
-                logger.info("Negative evidence path: {}", instantiateRule(knownFacts, negativeRule.get(), fact, false));
+        Evidence found = null;
+        final var rule = positiveRule.get() != null ? positiveRule.get() : negativeRule.get();
+        if (explain != Explain.NONE && rule != null) {
+            // The prefixes of the rule body were cached while the rule was applied, so the path is taken from them.
+            final var graph = KnowledgeGraph.of(knownFacts.getGraph());
+            final var triple = fact.asTriple();
+            found = new Evidence(rule, graph.contains(triple.getSubject(), triple.getPredicate(), triple.getObject())
+                    ? null : reachabilityCache.findPath(graph, rule.getPlan(), triple.getSubject(), triple.getObject()));
+        }
+        if (evidence != null) {
+            evidence[0] = found;
+        }
+        return score(fact, positiveRule.get(), minPositiveWeight.get(), negativeRule.get(), minNegativeWeight.get(), found);
+    }
+
+    /**
+     * Scores a batch of facts at once.
+     * <p>
+     * The facts are grouped by predicate, and each candidate rule body is evaluated once for the whole group,
+     * as a join from the subjects of all facts that no stronger rule applied to yet, intersected with their objects.
+     * Each fact is assigned the same rules with minimum weight as {@link #scoreStatement} would assign.
+     *
+     * @param facts the facts to score
+     * @return      the truth values of the facts, in the same order
+     */
+    public double[] scoreBatch(List<Statement> facts) {
+        return scoreBatch(facts, null);
+    }
+
+    /**
+     * Scores a batch of facts at once, like {@link #scoreBatch(List)}, and keeps their evidence.
+     * <p>
+     * The evidence paths are taken from the variable bindings of the batch evaluation of the rule bodies, so they
+     * are found without evaluating any rule again.
+     *
+     * @param facts    the facts to score
+     * @param evidence an array of the size of facts to store the evidence of each fact in, null where there is none,
+     *                 or null if the evidence is not needed. The evidence is only kept if the explanation level is not
+     *                 {@link Explain#NONE}.
+     * @return         the truth values of the facts, in the same order
+     */
+    public double[] scoreBatch(List<Statement> facts, Evidence[] evidence) {
+        return read(() -> scoreBatchInTransaction(facts, evidence));
+    }
+
+    private double[] scoreBatchInTransaction(List<Statement> facts, Evidence[] evidence) {
+        final var graph = KnowledgeGraph.of(knownFacts.getGraph());
+        final Map<Node, List<Statement>> factsByPredicate = new HashMap<>();
+        for (Statement fact : facts) {
+            factsByPredicate.computeIfAbsent(fact.getPredicate().asNode(), p -> new ArrayList<>()).add(fact);
+        }
+
+        final Map<Statement, Double> scores = new HashMap<>();
+        final Map<Statement, Evidence> evidenceByFact = new HashMap<>();
+        factsByPredicate.forEach((predicate, group) -> {
+            final var candidates = candidatesFor(predicate);
+            final long applicationStart = Timer.start();
+            final Map<Statement, int[]> tried = new HashMap<>();
+            final Map<Statement, Node[]> positivePaths = explain == Explain.NONE ? null : new HashMap<>();
+            final Map<Statement, Node[]> negativePaths = explain == Explain.NONE ? null : new HashMap<>();
+            final var positiveMatches = firstMatchingRules(graph, candidates.positiveRules(), group, tried, positivePaths);
+
+            // Negative rules are only needed for the facts no positive rule below the maximum weight applies to.
+            final var unmatched = group.stream().filter(fact -> {
+                final var positive = positiveMatches.get(fact);
+                return positive == null || positive.weight == 1.0;
+            }).toList();
+            final var negativeMatches = firstMatchingRules(graph, candidates.negativeRules(), unmatched, tried, negativePaths);
+            Metrics.RULE_APPLICATION.stop(applicationStart);
+
+            for (Statement fact : group) {
+                final var triedRules = tried.get(fact);
+                Metrics.RULES_TRIED_PER_FACT.record(triedRules == null ? 0 : triedRules[0]);
+                final var positive = positiveMatches.get(fact);
+                final var negative = negativeMatches.get(fact);
+                Evidence found = null;
+                if (explain != Explain.NONE && positive != null) {
+                    found = new Evidence(positive, positivePaths.get(fact));
+                } else if (explain != Explain.NONE && negative != null) {
+                    found = new Evidence(negative, negativePaths.get(fact));
+                }
+                if (found != null) {
+                    evidenceByFact.put(fact, found);
+                }
+                scores.put(fact, score(fact,
+                        positive, positive == null ? 1.0 : positive.weight,
+                        negative, negative == null ? 1.0 : negative.weight, found));
+            }
+        });
+
+        final double[] result = new double[facts.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = scores.get(facts.get(i));
+            if (evidence != null) {
+                evidence[i] = evidenceByFact.get(facts.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the first rule of the sorted rules that applies to each fact.
+     * <p>
+     * Each rule is evaluated once for all facts still without a match by a join from all their subjects.
+     * With the reachability cache enabled, the nodes the rule body reaches are first looked up per distinct subject,
+     * the join only starts from the subjects missing from the cache and keeps every node it reaches, which is then
+     * cached per subject, so subjects repeated within and across batches are only traversed once per rule.
+     * Without the cache, the join only keeps the objects of the facts.
+     *
+     * @param graph the known facts
+     * @param rules the candidate rules, sorted by ascending weight
+     * @param facts the facts, all with the head predicate of the rules
+     * @param tried the number of rules tried per fact, incremented for every rule tried on a fact
+     * @param paths the map to store the path matched by the first applying rule of each fact in, null for facts
+     *              contained in the graph, or null if the paths are not needed
+     * @return      the first applying rule of each fact that any rule applies to
+     */
+    private Map<Statement, WeightedRule> firstMatchingRules(KnowledgeGraph graph, WeightedRule[] rules, List<Statement> facts,
+                                                            Map<Statement, int[]> tried, Map<Statement, Node[]> paths) {
+        final Map<Statement, WeightedRule> matches = new HashMap<>();
+        if (rules.length == 0) {
+            return matches;
+        }
+
+        List<Statement> open = new ArrayList<>();
+        for (Statement fact : facts) {
+            tried.computeIfAbsent(fact, f -> new int[1])[0]++;
+            // Facts contained in the graph are entailed by every rule, see WeightedRule#doesRuleApply.
+            if (graph.contains(fact.getSubject().asNode(), fact.getPredicate().asNode(), fact.getObject().asNode())) {
+                matches.put(fact, rules[0]);
             } else {
-                logger.warn("No evidence path found for {}", fact);
+                open.add(fact);
             }
+        }
 
-            // Score the fact based on the weights of the rules.
-            return (((1 - minPositiveWeight.get()) - (1 - minNegativeWeight.get())) + 1) / 2;
+        for (int r = 0; r < rules.length; r++) {
+            final var rule = rules[r];
+            if (open.isEmpty()) {
+                break;
+            }
+            if (r > 0) {
+                // The first rule was already counted for every fact.
+                for (Statement fact : open) {
+                    tried.get(fact)[0]++;
+                }
+            }
+            final List<Statement> remaining = new ArrayList<>();
+            if (reachabilityCache.isEnabled()) {
+                final var plan = rule.getPlan();
+                final Map<Node, Set<Node>> reachedBySubject = new HashMap<>();
+                final Set<Node> missed = new HashSet<>();
+                for (Statement fact : open) {
+                    final var subject = fact.getSubject().asNode();
+                    if (!reachedBySubject.containsKey(subject) && !missed.contains(subject)) {
+                        final var cached = reachabilityCache.getIfPresent(plan, subject);
+                        if (cached == null) {
+                            missed.add(subject);
+                        } else {
+                            reachedBySubject.put(subject, cached);
+                        }
+                    }
+                }
+
+                // The subjects missing from the cache are evaluated together, and the nodes each of them reaches are cached.
+                final List<Map<Node, Set<Node>>> layers = paths == null || missed.isEmpty() ? null : new ArrayList<>();
+                if (!missed.isEmpty()) {
+                    final Map<Node, Set<Node>> reached = new HashMap<>();
+                    for (Node subject : missed) {
+                        reached.put(subject, new HashSet<>());
+                    }
+                    plan.connectsAll(graph, missed, null, layers).forEach((node, origins) -> {
+                        for (Node origin : origins) {
+                            reached.get(origin).add(node);
+                        }
+                    });
+                    reached.forEach((subject, nodes) -> {
+                        final var unmodifiable = Collections.unmodifiableSet(nodes);
+                        reachabilityCache.put(plan, subject, unmodifiable);
+                        reachedBySubject.put(subject, unmodifiable);
+                    });
+                }
+
+                for (Statement fact : open) {
+                    final var subject = fact.getSubject().asNode();
+                    final var object = fact.getObject().asNode();
+                    if (reachedBySubject.get(subject).contains(object)) {
+                        matches.put(fact, rule);
+                        if (paths != null) {
+                            paths.put(fact, missed.contains(subject)
+                                    ? plan.witness(graph, layers, subject, object)
+                                    : reachabilityCache.findPath(graph, plan, subject, object));
+                        }
+                    } else {
+                        remaining.add(fact);
+                    }
+                }
+                open = remaining;
+                continue;
+            }
+
+            final Set<Node> subjects = new HashSet<>();
+            final Set<Node> objects = new HashSet<>();
+            for (Statement fact : open) {
+                subjects.add(fact.getSubject().asNode());
+                objects.add(fact.getObject().asNode());
+            }
+            final List<Map<Node, Set<Node>>> layers = paths == null ? null : new ArrayList<>();
+            final var reached = rule.getPlan().connectsAll(graph, subjects, objects, layers);
+            for (Statement fact : open) {
+                final var origins = reached.get(fact.getObject().asNode());
+                if (origins != null && origins.contains(fact.getSubject().asNode())) {
+                    matches.put(fact, rule);
+                    if (paths != null) {
+                        paths.put(fact, rule.getPlan().witness(graph, layers, fact.getSubject().asNode(), fact.getObject().asNode()));
+                    }
+                } else {
+                    remaining.add(fact);
+                }
+            }
+            open = remaining;
+        }
+        return matches;
+    }
+
+    /**
+     * Logs the evidence for a fact and scores it from the weights of the rules applying to it.
+     *
+     * @param fact           the scored fact
+     * @param positiveRule   the positive rule with minimum weight that applies, or null
+     * @param positiveWeight the weight of the positive rule, 1.0 if there is none
+     * @param negativeRule   the negative rule with minimum weight that applies, or null
+     * @param negativeWeight the weight of the negative rule, 1.0 if there is none
+     * @param evidence       the evidence of the fact, or null if it is not explained
+     * @return               the truth value of the fact
+     */
+    private double score(Statement fact, WeightedRule positiveRule, double positiveWeight, WeightedRule negativeRule, double negativeWeight,
+                         Evidence evidence) {
+        Metrics.FACTS_SCORED.increment();
+        if (positiveRule == null && negativeRule == null) {
+            Metrics.FACTS_WITHOUT_EVIDENCE.increment();
+            if (explain != Explain.NONE) {
+                logger.warn("No evidence path found for {}", fact);
+            }
+        } else if (evidence != null && logger.isInfoEnabled()) {
+            // Each evidence path is one log message, so the messages of parallel threads do not interleave without a lock.
+            final long explanationStart = Timer.start();
+            logger.info("{} evidence path: {}", evidence.rule().isPositive ? "Positive" : "Negative",
+                    evidence.format(fact, explain == Explain.LABELS ? labels : null));
+            Metrics.EXPLANATION.stop(explanationStart);
         }
 
+        // Score the fact based on the weights of the rules.
+        return (((1 - positiveWeight) - (1 - negativeWeight)) + 1) / 2;
+    }
+
+    public ReachabilityCache getReachabilityCache() {
+        return reachabilityCache;
+    }
+
+    /**
+     * Runs the action inside a read transaction if the known facts require one.
+     * Each parallel worker thread opens its own transaction.
+     */
+    private <T> T read(Supplier<T> action) {
+        return transactional == null ? action.get() : Txn.calculateRead(transactional, action);
     }
 
     /**
@@ -163,6 +630,12 @@ public class FactScorer {
      * @throws IOException if an error occurs while writing the file
      */
     public void saveRulesToFile(Path file) throws IOException {
+        if (learnedRules != null) {
+            // Keep the counters and learned examples so that further examples can be learned incrementally.
+            learnedRules.save(file);
+            return;
+        }
+        loadAllRules();
         final var combinedArray = new WeightedRule[positiveRules.length + negativeRules.length];
         System.arraycopy(positiveRules, 0, combinedArray, 0, positiveRules.length);
         System.arraycopy(negativeRules, 0, combinedArray, positiveRules.length, negativeRules.length);
@@ -176,12 +649,36 @@ public class FactScorer {
      * @return     true if the rules were loaded successfully, false otherwise
      */
     public boolean loadRulesFromFile(Path file) {
+        final long start = Timer.start();
+        try {
+            return readRules(file);
+        } finally {
+            Metrics.RULE_LOAD.stop(start);
+        }
+    }
+
+    private boolean readRules(Path file) {
         if (!file.toFile().exists()) {
             return false;
         }
 
         final WeightedRule[] rules;
         try {
+            if (RuleFile.isRuleFile(file)) {
+                // Binary rules are decoded per predicate when they are needed.
+                final var opened = RuleFile.open(file);
+                if (opened.ruleCount() == 0) {
+                    logger.warn("No rules loaded from file.");
+                    return false;
+                }
+                positiveRules = null;
+                negativeRules = null;
+                rulesByPredicate = new ConcurrentHashMap<>();
+                ruleFile = opened;
+                learnedRules = null;
+                logger.info("Opened binary rule file with {} rules for {} predicates.", opened.ruleCount(), opened.headPredicates().size());
+                return true;
+            }
             rules = WeightedRule.loadRules(file);
             if (rules.length == 0) {
                 logger.warn("No rules loaded from file.");
@@ -195,71 +692,70 @@ public class FactScorer {
         Arrays.sort(rules, Comparator.comparingDouble(rule -> rule.weight));
         positiveRules = Arrays.stream(rules).filter(weightedRule -> weightedRule.isPositive).toArray(WeightedRule[]::new);
         negativeRules = Arrays.stream(rules).filter(weightedRule -> !weightedRule.isPositive).toArray(WeightedRule[]::new);
+        ruleFile = null;
+        learnedRules = null;
+        indexRules();
         return true;
     }
 
-
     /**
-     * Creates a string representation of the evidence path for a fact.
-     * The evidence path is instantiated with the labels of the resources if labeled is true.
-     * Does this by executing a SPARQL query on the known facts.
-     *
-     * @param knownFacts base knowledge graph
-     * @param rule       the rule to instantiate
-     * @param fact       the fact to instantiate the rule with
-     * @param labeled    whether to use labels for the resources
-     * @return           the string representation of the evidence path
+     * Returns the rules with the given head predicate, loading them from the binary rule file if necessary.
      */
-    private static String instantiateRule(Model knownFacts, Rule rule, Statement fact, boolean labeled) {
-        SelectBuilder builder = new SelectBuilder();
-        builder.addVar("*");
-        if (rule.bodyLength() < 2) {
-            return rule.toShortString();
+    private PredicateRules candidatesFor(Node predicate) {
+        final var file = ruleFile;
+        if (file == null) {
+            return rulesByPredicate.getOrDefault(predicate, NO_RULES);
         }
-
-        builder.addWhere(fact.getSubject(), ResourceFactory.createProperty(rule.getBody()[0].toString().split(" ")[1].replace("@", "http://rdf.freebase.com/ns/")), "?e1");
-        for (int i = 1; i < rule.bodyLength() - 1; i++) {
-            builder.addWhere("?e" + i, ResourceFactory.createProperty(rule.getBody()[i].toString().split(" ")[1].replace("@", "http://rdf.freebase.com/ns/")), "?e" + (i + 1));
-        }
-        builder.addWhere("?e" + (rule.bodyLength() - 1), ResourceFactory.createProperty(rule.getBody()[rule.bodyLength() - 1].toString().split(" ")[1].replace("@", "http://rdf.freebase.com/ns/")), fact.getObject().isResource() ? fact.getObject().asResource() : fact.getObject().asLiteral());
-
-        var ruleString = rule.toShortString();
-        try (var qexec = QueryExecutionFactory.create(builder.build(), knownFacts)) {
-            final var execution = qexec.execSelect();
-            if (!execution.hasNext())
-                return ruleString;
-            final var result = execution.next();
-            for (int i = 1; i < rule.bodyLength(); i++) {
-                var resourceString = result.getResource("?e" + i).toString();
-                if (labeled) {
-                    final var label = knownFacts.listObjectsOfProperty(result.getResource("?e" + i), RDFS.label).nextOptional();
-                    if (label.isPresent())
-                        resourceString = label.get().asLiteral().getLexicalForm();
-                }
-                ruleString = ruleString.replaceAll("\\?e" + i, resourceString);
-            }
-            var subjectString = fact.getSubject().toString();
-            var objectString = fact.getObject().toString(); // assuming the object is always uri
-            if (labeled) {
-                final var subjectLabel = knownFacts.listObjectsOfProperty(fact.getSubject(), RDFS.label).nextOptional();
-                final var objectLabel = knownFacts.listObjectsOfProperty(fact.getObject().asResource(), RDFS.label).nextOptional();
-                if (subjectLabel.isPresent())
-                    subjectString = subjectLabel.get().asLiteral().getLexicalForm();
-                if (objectLabel.isPresent())
-                    objectString = objectLabel.get().asLiteral().getLexicalForm();
+        return rulesByPredicate.computeIfAbsent(predicate, p -> {
+            final var rules = Metrics.RULE_LOAD.time(() -> file.load(p));
+            if (rules.length == 0) {
+                return NO_RULES;
             }
-            ruleString = ruleString.replaceAll("\\?e0", subjectString).replaceAll("\\?e" + rule.bodyLength(), objectString);
+            // Segments are already sorted, positive rules first.
+            return new PredicateRules(
+                    Arrays.stream(rules).filter(weightedRule -> weightedRule.isPositive).toArray(WeightedRule[]::new),
+                    Arrays.stream(rules).filter(weightedRule -> !weightedRule.isPositive).toArray(WeightedRule[]::new));
+        });
+    }
+
+    /**
+     * Decodes all rules of a lazily loaded binary rule file.
+     */
+    private void loadAllRules() {
+        if (ruleFile == null) {
+            return;
         }
-        return ruleString;
+        final var rules = ruleFile.loadAll();
+        Arrays.sort(rules, Comparator.comparingDouble(rule -> rule.weight));
+        positiveRules = Arrays.stream(rules).filter(weightedRule -> weightedRule.isPositive).toArray(WeightedRule[]::new);
+        negativeRules = Arrays.stream(rules).filter(weightedRule -> !weightedRule.isPositive).toArray(WeightedRule[]::new);
+        ruleFile = null;
+        indexRules();
     }
 
     /**
-     * Returns the predicate of the head from a rule.
-     *
-     * @param rule the rule to get the predicate from
-     * @return     the predicate of the head
+     * Groups the sorted positive and negative rules by the predicate of their head.
+     * The order inside each group is kept, so the rules of a predicate stay sorted by weight.
      */
-    private static String getPredicate(Rule rule) {
-        return rule.getHead()[0].toString().split(" ")[1];
+    private void indexRules() {
+        final Map<Node, List<WeightedRule>> positive = new HashMap<>();
+        final Map<Node, List<WeightedRule>> negative = new HashMap<>();
+        for (WeightedRule rule : positiveRules) {
+            positive.computeIfAbsent(rule.getHeadPredicate(), p -> new ArrayList<>()).add(rule);
+        }
+        for (WeightedRule rule : negativeRules) {
+            negative.computeIfAbsent(rule.getHeadPredicate(), p -> new ArrayList<>()).add(rule);
+        }
+
+        final Map<Node, PredicateRules> index = new HashMap<>();
+        final Set<Node> predicates = new HashSet<>(positive.keySet());
+        predicates.addAll(negative.keySet());
+        for (Node predicate : predicates) {
+            index.put(predicate, new PredicateRules(
+                    positive.getOrDefault(predicate, List.of()).toArray(WeightedRule[]::new),
+                    negative.getOrDefault(predicate, List.of()).toArray(WeightedRule[]::new)));
+        }
+        rulesByPredicate = index;
+        logger.info("Indexed {} positive and {} negative rules for {} predicates.", positiveRules.length, negativeRules.length, index.size());
     }
 }
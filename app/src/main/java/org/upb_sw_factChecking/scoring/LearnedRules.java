@@ -0,0 +1,270 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.upb_sw_factChecking.dataset.TrainingSet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rules together with the state needed to learn from further examples.
+ * <p>
+ * For every rule body, the number of positive and negative examples it was generated for is known from the counters
+ * of its rules, and for every head predicate, the number of positive and negative examples that generated any rule.
+ * Together with the IRIs of the examples learned so far, this is enough to fold new examples into the rule set and
+ * recompute all weights without searching paths for the old examples again.
+ * <p>
+ * Examples are either positive (truth value 1.0) or negative (truth value 0.0).
+ * <p>
+ * Examples can be added concurrently without locking: the counters are striped {@link LongAdder}s in concurrent maps,
+ * and an example is counted only by the thread that first adds its IRI.
+ */
+public class LearnedRules {
+
+    /**
+     * Number of positive and negative examples that generated rules with a head predicate.
+     *
+     * @param positives the number of positive examples
+     * @param negatives the number of negative examples
+     */
+    record PredicateTotals(int positives, int negatives) {}
+
+    /**
+     * Number of positive and negative examples.
+     */
+    private static final class Counts {
+        final LongAdder positives = new LongAdder();
+        final LongAdder negatives = new LongAdder();
+
+        void add(boolean isPositive, long count) {
+            (isPositive ? positives : negatives).add(count);
+        }
+
+        // Examples of the same polarity as a rule are covered examples, the others are counter examples.
+        int correct(boolean isPositive) {
+            return (isPositive ? positives : negatives).intValue();
+        }
+
+        int counter(boolean isPositive) {
+            return correct(!isPositive);
+        }
+    }
+
+    private static final Counts NO_COUNTS = new Counts();
+
+    // Rule body, as the key of its positive rule -> number of positive and negative examples it was generated for.
+    private final Map<RuleKey, Counts> bodyCoverage = new ConcurrentHashMap<>();
+    // Head predicate -> number of positive and negative examples that generated rules with the predicate.
+    private final Map<Node, Counts> predicateTotals = new ConcurrentHashMap<>();
+    private final Set<WeightedRule> rules = ConcurrentHashMap.newKeySet();
+    private final Set<String> learnedExamples = ConcurrentHashMap.newKeySet();
+
+    public LearnedRules() {
+    }
+
+    /**
+     * Checks if the example was already learned.
+     *
+     * @param example the example
+     * @return        true if an example with the same IRI was learned, false otherwise
+     */
+    public boolean isLearned(TrainingSet.TrainingSetEntry example) {
+        return learnedExamples.contains(example.factIRI().getURI());
+    }
+
+    /**
+     * Adds the rules generated for an example and counts the example for their bodies and head predicate.
+     * Examples that were already learned are ignored.
+     *
+     * @param example   the example
+     * @param generated the rules generated for the example
+     */
+    public void addExample(TrainingSet.TrainingSetEntry example, WeightedRule[] generated) {
+        addExample(example.factIRI().getURI(), example.statement().getPredicate().asNode(), example.truthValue(), generated);
+    }
+
+    /**
+     * Adds the rules generated for an example, see {@link #addExample(TrainingSet.TrainingSetEntry, WeightedRule[])}.
+     *
+     * @param exampleIRI    the IRI of the example
+     * @param headPredicate the predicate of the statement of the example
+     * @param truthValue    the truth value of the example
+     * @param generated     the rules generated for the example
+     */
+    void addExample(String exampleIRI, Node headPredicate, double truthValue, WeightedRule[] generated) {
+        if (!learnedExamples.add(exampleIRI)) {
+            return;
+        }
+        final boolean isPositive = truthValue == 1.0;
+
+        // The same body may be generated from several paths, it covers the example only once.
+        final Set<RuleKey> bodies = new HashSet<>();
+        for (WeightedRule rule : generated) {
+            final var body = rule.getKey().withPolarity(true);
+            if (bodies.add(body)) {
+                bodyCoverage.computeIfAbsent(body, r -> new Counts()).add(isPositive, 1);
+            }
+            rules.add(rule);
+        }
+        if (!bodies.isEmpty()) {
+            predicateTotals.computeIfAbsent(headPredicate, p -> new Counts()).add(isPositive, 1);
+        }
+    }
+
+    /**
+     * Assigns the counters of every rule from the coverage of its body and head predicate and calculates its weight.
+     * Must not run concurrently with {@link #addExample}.
+     *
+     * @param alpha the alpha parameter for the rule weight calculation
+     * @param beta  the beta parameter for the rule weight calculation
+     * @param gamma the gamma parameter for the rule weight calculation
+     */
+    public void weightRules(double alpha, double beta, double gamma) {
+        for (WeightedRule rule : rules) {
+            final var body = bodyCoverage.getOrDefault(rule.getKey().withPolarity(true), NO_COUNTS);
+            final var totals = predicateTotals.getOrDefault(rule.getHeadPredicate(), NO_COUNTS);
+            rule.setCounters(body.correct(rule.isPositive), body.counter(rule.isPositive),
+                    totals.correct(rule.isPositive), totals.counter(rule.isPositive));
+        }
+
+        // Calculate and assign weights.
+        for (var rule : rules) {
+            double temp1 = rule.getNumberOfCoveredExamples() == 0 ? 0 : (double) rule.getNumberOfCoveredExamples() / rule.getNumberOfCoveredExamplesUnbound();
+            double temp2 = rule.getNumberOfCoveredCounters() == 0 ? 0 : (double) rule.getNumberOfCoveredCounters() / rule.getNumberOfCoveredCountersUnbound();
+            double w2r = alpha * (1 - temp1) + beta * temp2;
+            double wcr = 1 -
+                    ((rule.getNumberOfCoveredExamples() - 1 / gamma * rule.getNumberOfCoveredCounters()) /
+                        rule.getNumberOfCoveredExamples()) * (1 - w2r);
+            // if there are many more counters than examples, the weight might be above 1.0, which is not allowed.
+            rule.setWeight(Double.min(1.0, wcr));
+        }
+    }
+
+    public WeightedRule[] getRules() {
+        return rules.toArray(WeightedRule[]::new);
+    }
+
+    public int getLearnedExampleCount() {
+        return learnedExamples.size();
+    }
+
+    /**
+     * Loads rules and their learning state from a rule file written by {@link #save}.
+     *
+     * @param file the rule file, in text or binary format
+     * @return     the learned rules
+     * @throws IOException if an I/O error occurs or the file does not contain the learning state
+     */
+    public static LearnedRules load(Path file) throws IOException {
+        final var learned = new LearnedRules();
+        final Map<Node, PredicateTotals> totals;
+        final List<String> examples;
+        if (RuleFile.isRuleFile(file)) {
+            final var ruleFile = RuleFile.open(file);
+            learned.rules.addAll(Arrays.asList(ruleFile.loadAll()));
+            totals = ruleFile.predicateTotals();
+            examples = ruleFile.learnedExamples();
+        } else {
+            learned.rules.addAll(Arrays.asList(WeightedRule.loadRules(file)));
+            totals = new HashMap<>();
+            examples = new ArrayList<>();
+            readTextState(file, totals, examples);
+        }
+        if (totals == null || examples == null || examples.isEmpty()) {
+            throw new IOException("Rule file " + file + " does not contain the learning state, the rules have to be learned from scratch.");
+        }
+
+        // The counters of the rules of a body are the numbers of its positive and negative examples.
+        // Both rules of a body carry the same numbers, the body is counted from the first one.
+        for (WeightedRule rule : learned.rules) {
+            learned.bodyCoverage.computeIfAbsent(rule.getKey().withPolarity(true), r -> {
+                final var counts = new Counts();
+                counts.add(rule.isPositive, rule.getNumberOfCoveredExamples());
+                counts.add(!rule.isPositive, rule.getNumberOfCoveredCounters());
+                return counts;
+            });
+        }
+        totals.forEach((predicate, total) -> {
+            final var counts = new Counts();
+            counts.add(true, total.positives());
+            counts.add(false, total.negatives());
+            learned.predicateTotals.put(predicate, counts);
+        });
+        learned.learnedExamples.addAll(examples);
+        return learned;
+    }
+
+    /**
+     * Saves the rules with their counters and the learning state.
+     * <p>
+     * Files ending in <code>.bin</code> are written in the binary format of {@link RuleFile}. Text files contain the
+     * rules as written by {@link WeightedRule#serializeRules}, followed by a section with one line
+     * <code>predicate; positives; negatives</code> per head predicate and a section with the IRIs of the learned
+     * examples, one per line.
+     *
+     * @param file the rule file
+     * @throws IOException if an I/O error occurs
+     */
+    public void save(Path file) throws IOException {
+        final var ruleArray = getRules();
+        final Map<Node, PredicateTotals> totals = new LinkedHashMap<>();
+        predicateTotals.forEach((predicate, total) -> totals.put(predicate, new PredicateTotals(total.correct(true), total.correct(false))));
+        final List<String> examples = learnedExamples.stream().sorted().toList();
+
+        if (WeightedRule.isBinaryRuleFileName(file)) {
+            RuleFile.write(ruleArray, totals, examples, file);
+            return;
+        }
+        WeightedRule.serializeRules(ruleArray, file);
+        try (var writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+            writer.write("predicates " + totals.size());
+            writer.newLine();
+            for (var entry : totals.entrySet()) {
+                writer.write(String.format("%s; %d; %d", entry.getKey().getURI(), entry.getValue().positives(), entry.getValue().negatives()));
+                writer.newLine();
+            }
+            writer.write("examples " + examples.size());
+            writer.newLine();
+            for (String example : examples) {
+                writer.write(example);
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void readTextState(Path file, Map<Node, PredicateTotals> totals, List<String> examples) throws IOException {
+        try (var reader = Files.newBufferedReader(file)) {
+            final int ruleCount = Integer.parseInt(reader.readLine().trim());
+            for (int i = 0; i < ruleCount; i++) {
+                reader.readLine();
+            }
+
+            String line = reader.readLine();
+            if (line == null || !line.startsWith("predicates ")) {
+                return;
+            }
+            final int predicateCount = Integer.parseInt(line.substring("predicates ".length()).trim());
+            for (int i = 0; i < predicateCount; i++) {
+                final var split = reader.readLine().split(";");
+                totals.put(NodeFactory.createURI(split[0].trim()),
+                        new PredicateTotals(Integer.parseInt(split[1].trim()), Integer.parseInt(split[2].trim())));
+            }
+
+            line = reader.readLine();
+            if (line == null || !line.startsWith("examples ")) {
+                return;
+            }
+            final int exampleCount = Integer.parseInt(line.substring("examples ".length()).trim());
+            for (int i = 0; i < exampleCount; i++) {
+                examples.add(reader.readLine().trim());
+            }
+        }
+    }
+}
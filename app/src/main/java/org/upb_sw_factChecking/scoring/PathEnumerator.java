@@ -0,0 +1,523 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.upb_sw_factChecking.graph.CsrGraph;
+import org.upb_sw_factChecking.graph.DegreeStatistics;
+import org.upb_sw_factChecking.graph.HashTermDictionary;
+import org.upb_sw_factChecking.graph.KnowledgeGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Enumerates all paths between two nodes of a knowledge graph by a meet-in-the-middle search.
+ * <p>
+ * The search keeps layers of nodes reachable from the subject in exactly <code>i</code> steps and layers of nodes
+ * that reach the object in exactly <code>j</code> steps. The layers are expanded alternately from both sides,
+ * always on the side with the smaller frontier. A path of length <code>l</code> then has to pass a node in the
+ * intersection of a forward layer <code>a</code> and the backward layer <code>l - a</code>, from where the two
+ * halves of the path are enumerated without ever following an edge that does not lead to a result.
+ * <p>
+ * Like the SPARQL queries this replaces, paths are walks: they may visit the same node more than once.
+ * <p>
+ * A search can be given a deadline. It is checked cooperatively while the layers are expanded and the paths are
+ * enumerated, together with the interrupt flag of the thread, and the search then stops with the paths found so far.
+ * <p>
+ * With {@link DegreeStatistics} of the graph, a search can also be pruned: hubs, nodes whose degree exceeds a maximum,
+ * are never passed through, the side to expand is chosen by the estimated number of edges to follow instead of the
+ * frontier size, and the search is not deepened beyond the initial maximum path length if the next layer is
+ * estimated to be too large.
+ * <p>
+ * Layers are sorted arrays of term ids. A {@link CsrGraph} is searched on its own term ids, with its exact degrees
+ * in place of the statistics, so terms are only decoded for the paths found. Nodes of other graphs get ids from a
+ * dictionary that is local to the search.
+ */
+public class PathEnumerator {
+
+    /**
+     * Paths found by a search.
+     *
+     * @param paths    the paths, ordered by length
+     * @param timedOut true if the search stopped at its deadline and the paths may be incomplete
+     */
+    public record Result(Statement[][] paths, boolean timedOut) {}
+
+    /**
+     * Limits of a search based on the degree statistics of the graph.
+     *
+     * @param degrees                the degree statistics, null to not prune
+     * @param maxDegree              the maximum degree of nodes a path may pass through, 0 for any
+     * @param maxEstimatedLayerSize  the maximum estimated size of a layer when deepening the search beyond the initial
+     *                               maximum path length, 0 for any
+     */
+    public record Pruning(DegreeStatistics degrees, int maxDegree, long maxEstimatedLayerSize) {
+        public static final Pruning NONE = new Pruning(null, 0, 0);
+    }
+
+    /**
+     * Term id level access to the graph a search runs on.
+     */
+    private interface SearchGraph {
+
+        /**
+         * Returns the id of a node, or -1 if the node is not part of the graph.
+         */
+        int id(Node node);
+
+        Node node(int id);
+
+        /**
+         * Checks if the node is a literal, which can not have outgoing edges.
+         */
+        boolean isLiteral(int id);
+
+        void forEachOutgoing(int subject, CsrGraph.EdgeAction action);
+
+        void forEachIncoming(int object, CsrGraph.EdgeAction action);
+
+        long outDegree(int id);
+
+        long inDegree(int id);
+
+        boolean isHub(int id, int maxDegree);
+    }
+
+    /**
+     * Searches a graph in compressed sparse row form directly on its term ids.
+     * Literals have no outgoing edges in the adjacency, so they need not be told apart.
+     */
+    private record CsrSearchGraph(CsrGraph graph) implements SearchGraph {
+
+        @Override
+        public int id(Node node) {
+            return graph.getTerms().getId(node);
+        }
+
+        @Override
+        public Node node(int id) {
+            return graph.getTerms().getNode(id);
+        }
+
+        @Override
+        public boolean isLiteral(int id) {
+            return false;
+        }
+
+        @Override
+        public void forEachOutgoing(int subject, CsrGraph.EdgeAction action) {
+            graph.forEachOutgoing(subject, action);
+        }
+
+        @Override
+        public void forEachIncoming(int object, CsrGraph.EdgeAction action) {
+            graph.forEachIncoming(object, action);
+        }
+
+        @Override
+        public long outDegree(int id) {
+            return graph.outDegree(id);
+        }
+
+        @Override
+        public long inDegree(int id) {
+            return graph.inDegree(id);
+        }
+
+        @Override
+        public boolean isHub(int id, int maxDegree) {
+            return Math.max(graph.outDegree(id), graph.inDegree(id)) > maxDegree;
+        }
+    }
+
+    /**
+     * Searches any other graph, assigning ids to the nodes as they are reached.
+     */
+    private static final class DictionarySearchGraph implements SearchGraph {
+
+        private final KnowledgeGraph graph;
+        private final DegreeStatistics degrees;
+        private final HashTermDictionary terms = new HashTermDictionary();
+
+        DictionarySearchGraph(KnowledgeGraph graph, DegreeStatistics degrees) {
+            this.graph = graph;
+            this.degrees = degrees;
+        }
+
+        @Override
+        public int id(Node node) {
+            return terms.getOrAdd(node);
+        }
+
+        @Override
+        public Node node(int id) {
+            return terms.getNode(id);
+        }
+
+        @Override
+        public boolean isLiteral(int id) {
+            return terms.getNode(id).isLiteral();
+        }
+
+        @Override
+        public void forEachOutgoing(int subject, CsrGraph.EdgeAction action) {
+            graph.forEachOutgoing(terms.getNode(subject), (predicate, object) -> action.accept(terms.getOrAdd(predicate), terms.getOrAdd(object)));
+        }
+
+        @Override
+        public void forEachIncoming(int object, CsrGraph.EdgeAction action) {
+            graph.forEachIncoming(terms.getNode(object), (predicate, subject) -> action.accept(terms.getOrAdd(predicate), terms.getOrAdd(subject)));
+        }
+
+        @Override
+        public long outDegree(int id) {
+            return degrees.outDegree(terms.getNode(id));
+        }
+
+        @Override
+        public long inDegree(int id) {
+            return degrees.inDegree(terms.getNode(id));
+        }
+
+        @Override
+        public boolean isHub(int id, int maxDegree) {
+            return degrees.isHub(terms.getNode(id), maxDegree);
+        }
+    }
+
+    /**
+     * Thrown inside the search when the deadline passed, without a stack trace.
+     */
+    private static final class DeadlineExceeded extends RuntimeException {
+        DeadlineExceeded() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final DeadlineExceeded DEADLINE_EXCEEDED = new DeadlineExceeded();
+    // The clock is read once per this many steps.
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+    private static final int[] EMPTY_LAYER = new int[0];
+
+    private final SearchGraph graph;
+    private final Model model;
+    private final int subject;
+    private final int object;
+    // System.nanoTime() value at which the search stops, Long.MAX_VALUE for none.
+    private final long deadline;
+    private final Pruning pruning;
+    private int steps = 0;
+
+    // forward.get(i) contains the ids of the nodes reachable from the subject in exactly i steps, sorted ascending.
+    private final List<int[]> forward = new ArrayList<>();
+    // backward.get(j) contains the ids of the nodes from which the object is reachable in exactly j steps, sorted ascending.
+    private final List<int[]> backward = new ArrayList<>();
+    // Ids collected while a layer is expanded.
+    private int[] reached = new int[16];
+    private int reachedCount = 0;
+
+    private PathEnumerator(Model model, Resource subject, RDFNode object, long deadline, Pruning pruning) {
+        this.model = model;
+        this.deadline = deadline;
+        this.pruning = pruning;
+        final var knowledgeGraph = KnowledgeGraph.of(model.getGraph());
+        this.graph = knowledgeGraph instanceof CsrGraph csr
+                ? new CsrSearchGraph(csr)
+                : new DictionarySearchGraph(knowledgeGraph, pruning.degrees());
+        this.subject = graph.id(subject.asNode());
+        this.object = graph.id(object.asNode());
+        // A node that is not part of the graph has no paths.
+        forward.add(this.subject < 0 ? EMPTY_LAYER : new int[]{this.subject});
+        backward.add(this.object < 0 ? EMPTY_LAYER : new int[]{this.object});
+    }
+
+    /**
+     * Finds all paths from the subject to the object.
+     * <p>
+     * All paths up to <code>initialMaxPathLength</code> are returned. If no path of the longest searched length
+     * has been found, the path length is increased by one until a path is found or
+     * <code>absoluteMaxPathLength</code> is reached.
+     *
+     * @param model                 the base knowledge graph
+     * @param subject               the subject of the paths
+     * @param object                the object of the paths
+     * @param initialMaxPathLength  the initial maximum path length
+     * @param absoluteMaxPathLength the absolute maximum path length
+     * @return                      an array of paths, ordered by length
+     */
+    public static Statement[][] findPaths(Model model, Resource subject, RDFNode object, int initialMaxPathLength, int absoluteMaxPathLength) {
+        return search(model, subject, object, initialMaxPathLength, absoluteMaxPathLength, Long.MAX_VALUE, Pruning.NONE).paths();
+    }
+
+    /**
+     * Finds the paths from the subject to the object like {@link #findPaths}, but stops at the deadline or when the
+     * thread is interrupted. The paths found until then are kept.
+     *
+     * @param model                 the base knowledge graph
+     * @param subject               the subject of the paths
+     * @param object                the object of the paths
+     * @param initialMaxPathLength  the initial maximum path length
+     * @param absoluteMaxPathLength the absolute maximum path length
+     * @param deadline              the {@link System#nanoTime()} value to stop at, Long.MAX_VALUE for none
+     * @return                      the paths found and whether the search was stopped
+     */
+    public static Result search(Model model, Resource subject, RDFNode object, int initialMaxPathLength, int absoluteMaxPathLength, long deadline) {
+        return search(model, subject, object, initialMaxPathLength, absoluteMaxPathLength, deadline, Pruning.NONE);
+    }
+
+    /**
+     * Finds the paths from the subject to the object like {@link #search(Model, Resource, RDFNode, int, int, long)},
+     * pruned by the degree statistics of the graph.
+     *
+     * @param model                 the base knowledge graph
+     * @param subject               the subject of the paths
+     * @param object                the object of the paths
+     * @param initialMaxPathLength  the initial maximum path length
+     * @param absoluteMaxPathLength the absolute maximum path length
+     * @param deadline              the {@link System#nanoTime()} value to stop at, Long.MAX_VALUE for none
+     * @param pruning               the limits of the search
+     * @return                      the paths found and whether the search was stopped
+     */
+    public static Result search(Model model, Resource subject, RDFNode object, int initialMaxPathLength, int absoluteMaxPathLength, long deadline, Pruning pruning) {
+        final var enumerator = new PathEnumerator(model, subject, object, deadline, pruning);
+        final List<Statement[]> paths = new ArrayList<>();
+
+        boolean timedOut = false;
+        try {
+            for (int length = 1; length <= absoluteMaxPathLength; length++) {
+                if (length > initialMaxPathLength && enumerator.exceedsLayerLimit(length)) {
+                    // Deepening further is estimated to be too expensive.
+                    break;
+                }
+                if (!enumerator.expandTo(length)) {
+                    // One side ran out of nodes, there are no longer paths.
+                    break;
+                }
+                final int before = paths.size();
+                enumerator.pathsOfLength(length, paths);
+                if (length >= initialMaxPathLength && paths.size() > before) {
+                    break;
+                }
+            }
+        } catch (DeadlineExceeded e) {
+            timedOut = true;
+        }
+        return new Result(paths.toArray(new Statement[0][]), timedOut);
+    }
+
+    /**
+     * Stops the search if the deadline passed or the thread was interrupted.
+     */
+    private void checkDeadline() {
+        if (deadline == Long.MAX_VALUE || ++steps % DEADLINE_CHECK_INTERVAL != 0) {
+            return;
+        }
+        if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+            throw DEADLINE_EXCEEDED;
+        }
+    }
+
+    /**
+     * Expands the layers until their combined depth reaches the given path length.
+     *
+     * @param length the path length to reach
+     * @return       false if a frontier became empty, true otherwise
+     */
+    private boolean expandTo(int length) {
+        while (forward.size() + backward.size() - 2 < length) {
+            final var forwardFrontier = forward.getLast();
+            final var backwardFrontier = backward.getLast();
+            if (forwardFrontier.length == 0 || backwardFrontier.length == 0) {
+                return false;
+            }
+            if (forwardCost(forwardFrontier) <= backwardCost(backwardFrontier)) {
+                forward.add(expandForward(forwardFrontier));
+            } else {
+                backward.add(expandBackward(backwardFrontier));
+            }
+        }
+        return forward.getLast().length > 0 && backward.getLast().length > 0;
+    }
+
+    /**
+     * Checks if the layer needed for paths of the given length is estimated to exceed the maximum layer size.
+     *
+     * @param length the path length to reach
+     * @return       true if the search should not be deepened to that length
+     */
+    private boolean exceedsLayerLimit(int length) {
+        if (pruning.degrees() == null || pruning.maxEstimatedLayerSize() <= 0) {
+            return false;
+        }
+        if (forward.size() + backward.size() - 2 >= length) {
+            return false;
+        }
+        final long estimate = Math.min(forwardCost(forward.getLast()), backwardCost(backward.getLast()));
+        return estimate > pruning.maxEstimatedLayerSize();
+    }
+
+    /**
+     * Estimates the number of edges followed when expanding the forward frontier.
+     * Without degree statistics, this is the size of the frontier.
+     */
+    private long forwardCost(int[] frontier) {
+        if (pruning.degrees() == null) {
+            return frontier.length;
+        }
+        long cost = 0;
+        for (int node : frontier) {
+            if (!graph.isLiteral(node)) {
+                cost += graph.outDegree(node);
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Estimates the number of edges followed when expanding the backward frontier.
+     * Without degree statistics, this is the size of the frontier.
+     */
+    private long backwardCost(int[] frontier) {
+        if (pruning.degrees() == null) {
+            return frontier.length;
+        }
+        long cost = 0;
+        for (int node : frontier) {
+            cost += graph.inDegree(node);
+        }
+        return cost;
+    }
+
+    /**
+     * Checks if paths may pass through the given node. Only hubs other than the subject and the object are excluded.
+     */
+    private boolean isPassable(int node) {
+        return pruning.degrees() == null || pruning.maxDegree() <= 0
+                || node == subject || node == object
+                || !graph.isHub(node, pruning.maxDegree());
+    }
+
+    private void reach(int node) {
+        if (isPassable(node)) {
+            if (reachedCount == reached.length) {
+                reached = Arrays.copyOf(reached, reachedCount * 2);
+            }
+            reached[reachedCount++] = node;
+        }
+    }
+
+    /**
+     * Returns the nodes reached since the last layer, sorted and without duplicates.
+     */
+    private int[] reachedLayer() {
+        Arrays.sort(reached, 0, reachedCount);
+        int unique = 0;
+        for (int i = 0; i < reachedCount; i++) {
+            if (unique == 0 || reached[i] != reached[unique - 1]) {
+                reached[unique++] = reached[i];
+            }
+        }
+        reachedCount = 0;
+        return Arrays.copyOf(reached, unique);
+    }
+
+    private int[] expandForward(int[] frontier) {
+        for (int node : frontier) {
+            // Literals have no outgoing edges.
+            if (graph.isLiteral(node)) continue;
+            checkDeadline();
+            graph.forEachOutgoing(node, (predicate, target) -> reach(target));
+        }
+        return reachedLayer();
+    }
+
+    private int[] expandBackward(int[] frontier) {
+        for (int node : frontier) {
+            checkDeadline();
+            graph.forEachIncoming(node, (predicate, source) -> reach(source));
+        }
+        return reachedLayer();
+    }
+
+    /**
+     * Enumerates all paths of exactly the given length.
+     * Requires the layers to be expanded to at least that length.
+     *
+     * @param length the path length
+     * @param result the list to add the paths of that length to
+     */
+    private void pathsOfLength(int length, List<Statement[]> result) {
+        final int forwardDepth = Math.min(forward.size() - 1, length);
+        final int backwardDepth = length - forwardDepth;
+
+        final var middle = forward.get(forwardDepth);
+        final var meeting = backward.get(backwardDepth);
+
+        for (int node : middle) {
+            if (Arrays.binarySearch(meeting, node) < 0) continue;
+
+            final List<Triple[]> prefixes = new ArrayList<>();
+            collectPrefixes(node, forwardDepth, new Triple[forwardDepth], prefixes);
+            final List<Triple[]> suffixes = new ArrayList<>();
+            collectSuffixes(node, backwardDepth, new Triple[backwardDepth], suffixes);
+
+            for (Triple[] prefix : prefixes) {
+                for (Triple[] suffix : suffixes) {
+                    final var path = new Statement[length];
+                    for (int i = 0; i < forwardDepth; i++) {
+                        path[i] = model.asStatement(prefix[i]);
+                    }
+                    for (int i = 0; i < backwardDepth; i++) {
+                        path[forwardDepth + i] = model.asStatement(suffix[i]);
+                    }
+                    result.add(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects all paths from the subject to the given node that are <code>depth</code> steps long,
+     * by walking backwards through the forward layers.
+     */
+    private void collectPrefixes(int node, int depth, Triple[] current, List<Triple[]> out) {
+        checkDeadline();
+        if (depth == 0) {
+            out.add(current.clone());
+            return;
+        }
+        final var previousLayer = forward.get(depth - 1);
+        graph.forEachIncoming(node, (predicate, source) -> {
+            if (Arrays.binarySearch(previousLayer, source) >= 0) {
+                current[depth - 1] = Triple.create(graph.node(source), graph.node(predicate), graph.node(node));
+                collectPrefixes(source, depth - 1, current, out);
+            }
+        });
+    }
+
+    /**
+     * Collects all paths from the given node to the object that are <code>depth</code> steps long,
+     * by walking forwards through the backward layers.
+     */
+    private void collectSuffixes(int node, int depth, Triple[] current, List<Triple[]> out) {
+        checkDeadline();
+        if (depth == 0) {
+            out.add(current.clone());
+            return;
+        }
+        if (graph.isLiteral(node)) return;
+        final var nextLayer = backward.get(depth - 1);
+        final int position = current.length - depth;
+        graph.forEachOutgoing(node, (predicate, target) -> {
+            if (Arrays.binarySearch(nextLayer, target) >= 0) {
+                current[position] = Triple.create(graph.node(node), graph.node(predicate), graph.node(target));
+                collectSuffixes(target, depth - 1, current, out);
+            }
+        });
+    }
+}
@@ -0,0 +1,301 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.reasoner.TriplePattern;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.upb_sw_factChecking.graph.CsrGraph;
+import org.upb_sw_factChecking.graph.KnowledgeGraph;
+import org.upb_sw_factChecking.graph.TermDictionary;
+
+import java.util.*;
+
+/**
+ * Compiled form of a rule body.
+ * <p>
+ * Every rule generated by this system has a chain of triple patterns as body,
+ * <code>(?e0 p0 ?e1) (?e1 p1 ?e2) ... (?e(n-1) p(n-1) ?en) -> (?e0 head ?en)</code>.
+ * Checking such a rule for a fact only requires to know whether the predicates of the body lead from the subject
+ * of the fact to its object, so the body is reduced to its ordered list of predicates once and then evaluated by
+ * walking the graph directly, see {@link KnowledgeGraph#connects}.
+ */
+public class PathPlan {
+
+    private final Node[] predicates;
+    // Plans are used as cache keys, so the hash is computed once.
+    private final int hash;
+
+    private PathPlan(Node[] predicates) {
+        this.predicates = predicates;
+        this.hash = Arrays.hashCode(predicates);
+    }
+
+    /**
+     * Creates the path plan of a rule body from its predicates.
+     *
+     * @param predicates the predicates of the body, in order
+     * @return           the path plan
+     */
+    public static PathPlan of(Node[] predicates) {
+        return new PathPlan(predicates.clone());
+    }
+
+    /**
+     * Compiles the body of the given rule into a path plan.
+     *
+     * @param rule the rule to compile
+     * @return     the path plan of the rule body
+     * @throws IllegalArgumentException if the rule body is not a chain from the head subject to the head object
+     */
+    public static PathPlan compile(Rule rule) {
+        final var head = (TriplePattern) rule.getHead()[0];
+        final var body = rule.getBody();
+        final var predicates = new Node[body.length];
+
+        Node current = head.getSubject();
+        for (int i = 0; i < body.length; i++) {
+            if (!(body[i] instanceof TriplePattern pattern) || !pattern.getSubject().equals(current)) {
+                throw new IllegalArgumentException("Rule body is not a path: " + rule.toShortString());
+            }
+            predicates[i] = pattern.getPredicate();
+            current = pattern.getObject();
+        }
+        if (!current.equals(head.getObject())) {
+            throw new IllegalArgumentException("Rule body does not end in the head object: " + rule.toShortString());
+        }
+        return new PathPlan(predicates);
+    }
+
+    /**
+     * Checks if the predicates of this plan lead from the start node to the end node in the given graph.
+     *
+     * @param graph the graph to traverse
+     * @param start the node the path starts at
+     * @param end   the node the path has to end at
+     * @return      true if there is such a path, false otherwise
+     */
+    public boolean connects(KnowledgeGraph graph, Node start, Node end) {
+        return graph.connects(start, predicates, end);
+    }
+
+    /**
+     * Finds which start nodes the predicates of this plan lead to which end nodes, for a whole batch at once.
+     * <p>
+     * The body is evaluated set-at-a-time: every node of the frontier carries the start nodes it was reached from,
+     * so each node is expanded once per step no matter how many start nodes reach it. The last step only keeps
+     * the given end nodes.
+     *
+     * @param graph  the graph to traverse
+     * @param starts the nodes the paths start at
+     * @param ends   the nodes the paths may end at, or null to keep every node the last step reaches
+     * @return       for each reached end node, the start nodes it is reached from
+     */
+    public Map<Node, Set<Node>> connectsAll(KnowledgeGraph graph, Collection<Node> starts, Set<Node> ends) {
+        return connectsAll(graph, starts, ends, null);
+    }
+
+    /**
+     * Finds which start nodes the predicates of this plan lead to which end nodes, like
+     * {@link #connectsAll(KnowledgeGraph, Collection, Set)}, and keeps the bindings of the intermediate variables.
+     * <p>
+     * The frontier of every step before the last one is added to the given list, so the list then holds for each
+     * variable <code>?ei</code> the nodes bound to it and the start nodes they were reached from. A path for a
+     * matching start and end node can be taken from these bindings with {@link #witness} without evaluating the
+     * body again.
+     *
+     * @param graph  the graph to traverse
+     * @param starts the nodes the paths start at
+     * @param ends   the nodes the paths may end at, or null to keep every node the last step reaches
+     * @param layers the list to add the bindings of the variables <code>?e0</code> to <code>?e(n-1)</code> to,
+     *               or null if they are not needed
+     * @return       for each reached end node, the start nodes it is reached from
+     */
+    public Map<Node, Set<Node>> connectsAll(KnowledgeGraph graph, Collection<Node> starts, Set<Node> ends, List<Map<Node, Set<Node>>> layers) {
+        if (graph instanceof CsrGraph csr && predicates.length > 0) {
+            return connectsAll(csr, starts, ends, layers);
+        }
+
+        Map<Node, Set<Node>> frontier = new HashMap<>();
+        for (Node start : starts) {
+            frontier.computeIfAbsent(start, k -> new HashSet<>()).add(start);
+        }
+        if (predicates.length == 0) {
+            if (ends != null) {
+                frontier.keySet().retainAll(ends);
+            }
+            return frontier;
+        }
+
+        for (int i = 0; i < predicates.length; i++) {
+            if (layers != null) {
+                layers.add(frontier);
+            }
+            final boolean last = i == predicates.length - 1;
+            final Map<Node, Set<Node>> next = new HashMap<>();
+            for (var entry : frontier.entrySet()) {
+                graph.forEachObject(entry.getKey(), predicates[i], object -> {
+                    // Literals can not be the subject of the next step.
+                    if (last ? ends == null || ends.contains(object) : !object.isLiteral()) {
+                        next.computeIfAbsent(object, k -> new HashSet<>()).addAll(entry.getValue());
+                    }
+                });
+            }
+            if (next.isEmpty()) {
+                return Map.of();
+            }
+            frontier = next;
+        }
+        return frontier;
+    }
+
+    /**
+     * Evaluates the body like {@link #connectsAll(KnowledgeGraph, Collection, Set, List)}, on the term ids of a graph
+     * in compressed sparse row form.
+     * <p>
+     * The frontier is a sorted array of node ids, and the start nodes each node was reached from are a bit set of
+     * their index in the batch, so terms are only decoded for the reached end nodes, and for the bindings if they
+     * are kept.
+     */
+    private Map<Node, Set<Node>> connectsAll(CsrGraph graph, Collection<Node> starts, Set<Node> ends, List<Map<Node, Set<Node>>> layers) {
+        final var terms = graph.getTerms();
+        final int[] path = new int[predicates.length];
+        for (int i = 0; i < predicates.length; i++) {
+            path[i] = terms.getId(predicates[i]);
+            if (path[i] < 0) return Map.of();
+        }
+        final int[] endIds = ends == null ? null : ends.stream().mapToInt(terms::getId).filter(id -> id >= 0).sorted().toArray();
+        if (endIds != null && endIds.length == 0) return Map.of();
+
+        // Start nodes by their index in the origin bit sets, the first frontier pairs each id with its own index.
+        final List<Node> startNodes = new ArrayList<>();
+        long[] pairs = new long[starts.size()];
+        int pairCount = 0;
+        for (Node start : new LinkedHashSet<>(starts)) {
+            final int id = terms.getId(start);
+            if (id < 0) continue;
+            pairs[pairCount++] = ((long) id << 32) | startNodes.size();
+            startNodes.add(start);
+        }
+
+        int[] frontier = new int[0];
+        BitSet[] origins = new BitSet[0];
+        for (int step = -1; step < path.length; step++) {
+            if (step >= 0) {
+                if (layers != null) {
+                    layers.add(decode(terms, frontier, origins, startNodes));
+                }
+                // Pair every reached node with the index of the frontier node it was reached from.
+                pairCount = 0;
+                final boolean last = step == path.length - 1;
+                for (int f = 0; f < frontier.length; f++) {
+                    for (int object : graph.objects(frontier[f], path[step])) {
+                        if (last && endIds != null && Arrays.binarySearch(endIds, object) < 0) continue;
+                        if (pairCount == pairs.length) {
+                            pairs = Arrays.copyOf(pairs, Math.max(16, pairCount * 2));
+                        }
+                        pairs[pairCount++] = ((long) object << 32) | f;
+                    }
+                }
+            }
+            if (pairCount == 0) return Map.of();
+
+            // Sort the pairs by node, so each node is added once with the union of the origins of its pairs.
+            Arrays.sort(pairs, 0, pairCount);
+            final int[] nextFrontier = new int[pairCount];
+            final BitSet[] nextOrigins = new BitSet[pairCount];
+            int size = 0;
+            for (int i = 0; i < pairCount; i++) {
+                final int node = (int) (pairs[i] >>> 32);
+                final int from = (int) pairs[i];
+                if (size == 0 || nextFrontier[size - 1] != node) {
+                    nextFrontier[size] = node;
+                    nextOrigins[size++] = new BitSet();
+                }
+                if (step < 0) {
+                    nextOrigins[size - 1].set(from);
+                } else {
+                    nextOrigins[size - 1].or(origins[from]);
+                }
+            }
+            frontier = Arrays.copyOf(nextFrontier, size);
+            origins = Arrays.copyOf(nextOrigins, size);
+        }
+        return decode(terms, frontier, origins, startNodes);
+    }
+
+    private static Map<Node, Set<Node>> decode(TermDictionary terms, int[] frontier, BitSet[] origins, List<Node> startNodes) {
+        final Map<Node, Set<Node>> decoded = new HashMap<>(frontier.length * 2);
+        for (int i = 0; i < frontier.length; i++) {
+            final Set<Node> from = new HashSet<>();
+            origins[i].stream().forEach(index -> from.add(startNodes.get(index)));
+            decoded.put(terms.getNode(frontier[i]), from);
+        }
+        return decoded;
+    }
+
+    /**
+     * Takes one path from the start node to the end node from the variable bindings of a batch evaluation.
+     * <p>
+     * The path is reconstructed backwards from the end node, every step picks the first node bound to the previous
+     * variable that was reached from the start node and links to the already chosen successor, checked with
+     * {@link KnowledgeGraph#contains} like {@link ReachabilityCache#findPath} does.
+     *
+     * @param graph  the graph the bindings were computed on
+     * @param layers the bindings kept by {@link #connectsAll(KnowledgeGraph, Collection, Set, List)}
+     * @param start  the node the path starts at
+     * @param end    the node the path ends at, reached from the start node
+     * @return       the nodes of the path, from start to end, or null if the bindings do not contain such a path
+     */
+    public Node[] witness(KnowledgeGraph graph, List<Map<Node, Set<Node>>> layers, Node start, Node end) {
+        final int length = predicates.length;
+        final var path = new Node[length + 1];
+        path[0] = start;
+        path[length] = end;
+        for (int i = length - 1; i > 0; i--) {
+            for (var entry : layers.get(i).entrySet()) {
+                if (entry.getValue().contains(start) && graph.contains(entry.getKey(), predicates[i], path[i + 1])) {
+                    path[i] = entry.getKey();
+                    break;
+                }
+            }
+            if (path[i] == null) {
+                return null;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Returns the plan of the first predicates of this plan.
+     *
+     * @param length the number of predicates to keep
+     * @return       the prefix plan
+     */
+    public PathPlan prefix(int length) {
+        return length == predicates.length ? this : new PathPlan(Arrays.copyOf(predicates, length));
+    }
+
+    public Node predicate(int index) {
+        return predicates[index];
+    }
+
+    public Node[] getPredicates() {
+        return predicates.clone();
+    }
+
+    public int length() {
+        return predicates.length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null || obj.getClass() != this.getClass()) return false;
+        final var other = (PathPlan) obj;
+        return hash == other.hash && Arrays.equals(predicates, other.predicates);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
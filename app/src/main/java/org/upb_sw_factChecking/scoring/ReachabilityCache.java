@@ -0,0 +1,236 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.upb_sw_factChecking.graph.KnowledgeGraph;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe, size-bounded cache of rule body reachability.
+ * <p>
+ * Maps a predicate chain and a start node to the set of nodes the chain leads to from the start node.
+ * A chain is evaluated through its prefixes, which are cached as well, so rules sharing the beginning of their body
+ * share the work, and evidence paths can be reconstructed from the cached prefixes, see {@link #findPath}.
+ * <p>
+ * The size of the cache is the total number of cached nodes. The cache is split into segments with their own lock
+ * and their own share of the size, each evicting entries in the configured order when it is full.
+ * All entries belong to the graph the cache is used with, a cache must not be shared between graphs.
+ */
+public class ReachabilityCache {
+
+    /**
+     * Order in which entries are evicted from a full cache.
+     */
+    public enum Eviction {
+        // Least recently used entries first.
+        LRU,
+        // Oldest entries first, lookups do not reorder entries.
+        FIFO
+    }
+
+    private record Key(PathPlan plan, Node start) {}
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private static final class Segment extends LinkedHashMap<Key, Set<Node>> {
+        private final long capacity;
+        private long size = 0;
+
+        Segment(long capacity, boolean accessOrder) {
+            super(16, 0.75f, accessOrder);
+            this.capacity = capacity;
+        }
+    }
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize  the maximum number of cached nodes, 0 disables the cache
+     * @param eviction the order in which entries are evicted
+     */
+    public ReachabilityCache(long maxSize, Eviction eviction) {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(maxSize / SEGMENT_COUNT, eviction == Eviction.LRU);
+        }
+    }
+
+    /**
+     * Returns the nodes the predicates of the plan lead to from the start node.
+     * Literals are part of the result, but are never expanded further.
+     *
+     * @param graph the graph to traverse on a cache miss
+     * @param plan  the predicate chain
+     * @param start the node to start at
+     * @return      the unmodifiable set of reached nodes
+     */
+    public Set<Node> reachable(KnowledgeGraph graph, PathPlan plan, Node start) {
+        if (plan.length() == 0) {
+            return Set.of(start);
+        }
+
+        final var key = new Key(plan, start);
+        final var cached = count(lookup(key));
+        return cached != null ? cached : evaluate(graph, key);
+    }
+
+    /**
+     * Returns the reachable nodes like {@link #reachable}, without counting the lookup, for the prefixes of a lookup
+     * and for the evidence paths of rules that were already checked.
+     */
+    private Set<Node> find(KnowledgeGraph graph, PathPlan plan, Node start) {
+        if (plan.length() == 0) {
+            return Set.of(start);
+        }
+
+        final var key = new Key(plan, start);
+        final var cached = lookup(key);
+        return cached != null ? cached : evaluate(graph, key);
+    }
+
+    private Set<Node> evaluate(KnowledgeGraph graph, Key key) {
+        final var plan = key.plan();
+        final var previous = find(graph, plan.prefix(plan.length() - 1), key.start());
+        final var predicate = plan.predicate(plan.length() - 1);
+        final Set<Node> next = new HashSet<>();
+        for (Node node : previous) {
+            // Literals can not be the subject of the next step.
+            if (!node.isLiteral()) {
+                graph.forEachObject(node, predicate, next::add);
+            }
+        }
+        final var result = Collections.unmodifiableSet(next);
+        put(key, result);
+        return result;
+    }
+
+    /**
+     * Returns the cached reachable nodes of the plan from the start node without traversing the graph.
+     *
+     * @param plan  the predicate chain
+     * @param start the node to start at
+     * @return      the cached set of reached nodes, or null if it is not cached
+     */
+    public Set<Node> getIfPresent(PathPlan plan, Node start) {
+        return count(lookup(new Key(plan, start)));
+    }
+
+    /**
+     * Stores the reachable nodes of the plan from the start node, computed outside the cache, for example by a batch
+     * evaluation with {@link PathPlan#connectsAll}.
+     *
+     * @param plan    the predicate chain
+     * @param start   the node to start at
+     * @param reached the unmodifiable set of nodes the plan leads to from the start node
+     */
+    public void put(PathPlan plan, Node start, Set<Node> reached) {
+        put(new Key(plan, start), reached);
+    }
+
+    /**
+     * Finds one path following the predicates of the plan from the start node to the end node.
+     * <p>
+     * The path is reconstructed backwards from the end node: every node reachable through a prefix of the plan has a
+     * predecessor reachable through the next shorter prefix, so picking any node of the cached prefix sets that links
+     * to the already chosen successor always leads back to the start node.
+     * The path belongs to a lookup that was already made, so its lookups are not counted as hits or misses.
+     *
+     * @param graph the graph to traverse
+     * @param plan  the predicate chain
+     * @param start the node the path starts at
+     * @param end   the node the path ends at
+     * @return      the nodes of the path, from start to end, or null if there is no such path
+     */
+    public Node[] findPath(KnowledgeGraph graph, PathPlan plan, Node start, Node end) {
+        final int length = plan.length();
+        if (!find(graph, plan, start).contains(end)) {
+            return null;
+        }
+
+        final var path = new Node[length + 1];
+        path[0] = start;
+        path[length] = end;
+        for (int i = length - 1; i > 0; i--) {
+            final var successor = path[i + 1];
+            final var predicate = plan.predicate(i);
+            for (Node node : find(graph, plan.prefix(i), start)) {
+                if (!node.isLiteral() && graph.contains(node, predicate, successor)) {
+                    path[i] = node;
+                    break;
+                }
+            }
+        }
+        return path;
+    }
+
+    private Set<Node> lookup(Key key) {
+        final var segment = segmentOf(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    private Set<Node> count(Set<Node> cached) {
+        if (cached == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    private void put(Key key, Set<Node> value) {
+        final var segment = segmentOf(key);
+        final long weight = value.size() + 1L;
+        if (weight > segment.capacity) {
+            // Too large to be cached without evicting the whole segment.
+            return;
+        }
+        synchronized (segment) {
+            final var previous = segment.put(key, value);
+            segment.size += weight - (previous == null ? 0 : previous.size() + 1L);
+            final var iterator = segment.values().iterator();
+            while (segment.size > segment.capacity && iterator.hasNext()) {
+                segment.size -= iterator.next().size() + 1L;
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private Segment segmentOf(Key key) {
+        final int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * Returns whether the cache can hold any entry, false if it was created with a size of 0.
+     */
+    public boolean isEnabled() {
+        return segments[0].capacity > 0;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     */
+    public double getHitRate() {
+        final long hits = getHits();
+        final long total = hits + getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
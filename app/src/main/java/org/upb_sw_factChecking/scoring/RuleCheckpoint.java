@@ -0,0 +1,170 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.upb_sw_factChecking.dataset.TrainingSet;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of the examples rule generation has finished, so an interrupted run can resume.
+ * <p>
+ * Every finished example is one line of tab separated fields: the IRI of the example, its truth value, the predicate
+ * of its statement and, for each generated rule, the predicates of the rule body separated by spaces.
+ * Lines are handed to the operating system as soon as an example is finished and forced to the disk at least every
+ * five seconds, so a crash of the JVM loses nothing and a crash of the machine only the last seconds.
+ * A line cut off by a crash is discarded when the log is opened again.
+ * The checkpoint is thread-safe.
+ */
+public class RuleCheckpoint implements Closeable {
+
+    private static final long SYNC_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+    private final static Logger logger = LoggerFactory.getLogger(RuleCheckpoint.class);
+
+    private final Path file;
+    private final FileChannel channel;
+    private long lastSync = System.nanoTime();
+
+    private RuleCheckpoint(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Returns the checkpoint file used while generating the rules for a rules file.
+     *
+     * @param rulesFile the rules file
+     * @return          the checkpoint file next to the rules file
+     */
+    public static Path pathFor(Path rulesFile) {
+        return rulesFile.resolveSibling(rulesFile.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * Opens the checkpoint, creating it if it does not exist.
+     * The examples of an existing checkpoint are added to the learned rules.
+     *
+     * @param file    the checkpoint file
+     * @param learned the rules to add the examples of the checkpoint to
+     * @return        the checkpoint, positioned after the last complete line
+     * @throws IOException if an I/O error occurs
+     */
+    public static RuleCheckpoint open(Path file, LearnedRules learned) throws IOException {
+        long validLength = 0;
+        int replayed = 0;
+        if (Files.exists(file)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+                final var line = new ByteArrayOutputStream();
+                long position = 0;
+                int b;
+                while ((b = in.read()) != -1) {
+                    position++;
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    replay(line.toString(StandardCharsets.UTF_8), learned);
+                    line.reset();
+                    validLength = position;
+                    replayed++;
+                }
+                if (line.size() > 0) {
+                    logger.warn("Discarding incomplete last line of checkpoint {}.", file);
+                }
+            }
+        }
+
+        final var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        if (replayed > 0) {
+            logger.info("Resumed {} finished examples from checkpoint {}.", replayed, file);
+        }
+        return new RuleCheckpoint(file, channel);
+    }
+
+    private static void replay(String line, LearnedRules learned) {
+        final var fields = line.split("\t");
+        final double truthValue = Double.parseDouble(fields[1]);
+        final var headPredicate = NodeFactory.createURI(fields[2]);
+        final var rules = new WeightedRule[fields.length - 3];
+        for (int i = 0; i < rules.length; i++) {
+            final var iris = fields[i + 3].split(" ");
+            final var body = new Node[iris.length];
+            for (int k = 0; k < iris.length; k++) {
+                body[k] = NodeFactory.createURI(iris[k]);
+            }
+            rules[i] = WeightedRule.fromPredicates(headPredicate, body, truthValue == 1.0, 1.0);
+        }
+        learned.addExample(fields[0], headPredicate, truthValue, rules);
+    }
+
+    /**
+     * Records that rule generation finished an example.
+     *
+     * @param example the example
+     * @param rules   the rules generated for the example
+     * @throws IOException if an I/O error occurs
+     */
+    public void append(TrainingSet.TrainingSetEntry example, WeightedRule[] rules) throws IOException {
+        final var line = new StringBuilder();
+        line.append(example.factIRI().getURI())
+                .append('\t').append(example.truthValue())
+                .append('\t').append(example.statement().getPredicate().getURI());
+        for (WeightedRule rule : rules) {
+            line.append('\t');
+            final var body = rule.getPlan().getPredicates();
+            for (int i = 0; i < body.length; i++) {
+                if (i > 0) {
+                    line.append(' ');
+                }
+                line.append(body[i].getURI());
+            }
+        }
+        line.append('\n');
+        final var bytes = ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8));
+
+        synchronized (this) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            final long now = System.nanoTime();
+            if (now - lastSync >= SYNC_INTERVAL) {
+                channel.force(false);
+                lastSync = now;
+            }
+        }
+    }
+
+    /**
+     * Closes and deletes the checkpoint, once the rules have been saved.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Binary rule file with precompiled predicate chains.
+ * <p>
+ * Rules are grouped into one segment per head predicate. Opening the file maps it into memory and only reads the
+ * predicate dictionary and the segment table, the rules of a segment are decoded when the segment is loaded.
+ * Inside a segment, positive rules come first, then negative rules, each sorted by ascending weight.
+ * <p>
+ * Layout, all numbers big endian:
+ * <pre>
+ * header      magic, version, predicate count, segment count, rule count (ints),
+ *             offset of the learning state (long, 0 if absent)
+ * predicates  for each predicate id: IRI length (int), IRI (UTF-8)
+ * segments    for each segment: head predicate id (int), rule count (int), offset of the first rule (long)
+ * rules       polarity (byte, 1 = positive), body length (byte), head predicate id (int),
+ *             body predicate ids (ints), weight (double),
+ *             examples, counters, examples unbound, counters unbound (ints)
+ * learning    predicate count (int), for each: IRI length (int), IRI (UTF-8), positives, negatives (ints),
+ *             example count (int), for each: IRI length (int), IRI (UTF-8)
+ * </pre>
+ * The learning state is only written for rules learned by {@link LearnedRules}.
+ */
+final class RuleFile {
+
+    static final int MAGIC = 0x4B47524C; // "KGRL"
+    static final int VERSION = 2;
+
+    private record Segment(int ruleCount, long offset) {}
+
+    private final ByteBuffer buffer;
+    private final Node[] predicates;
+    private final Map<Node, Segment> segments;
+    private final int ruleCount;
+    private final long learningOffset;
+
+    private RuleFile(ByteBuffer buffer, Node[] predicates, Map<Node, Segment> segments, int ruleCount, long learningOffset) {
+        this.buffer = buffer;
+        this.predicates = predicates;
+        this.segments = segments;
+        this.ruleCount = ruleCount;
+        this.learningOffset = learningOffset;
+    }
+
+    /**
+     * Checks if the file starts with the magic number of a binary rule file.
+     *
+     * @param file the file to check
+     * @return     true if the file is a binary rule file, false otherwise
+     * @throws IOException if an I/O error occurs
+     */
+    static boolean isRuleFile(Path file) throws IOException {
+        try (var in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a binary rule file by mapping it into memory.
+     *
+     * @param file the rule file
+     * @return     the opened rule file
+     * @throws IOException if an I/O error occurs or the file is not a rule file of a supported version
+     */
+    static RuleFile open(Path file) throws IOException {
+        final ByteBuffer buffer;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Rule file " + file + " exceeds the supported maximum of 2 GiB.");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary rule file: " + file);
+        }
+        final int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported rule file version " + version + " in " + file + ", expected " + VERSION);
+        }
+        final int predicateCount = buffer.getInt();
+        final int segmentCount = buffer.getInt();
+        final int ruleCount = buffer.getInt();
+        final long learningOffset = buffer.getLong();
+
+        final var predicates = new Node[predicateCount];
+        for (int id = 0; id < predicateCount; id++) {
+            final var bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            predicates[id] = NodeFactory.createURI(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        final Map<Node, Segment> segments = new HashMap<>();
+        for (int i = 0; i < segmentCount; i++) {
+            final var head = predicates[buffer.getInt()];
+            segments.put(head, new Segment(buffer.getInt(), buffer.getLong()));
+        }
+        return new RuleFile(buffer, predicates, segments, ruleCount, learningOffset);
+    }
+
+    /**
+     * Writes the rules to a binary rule file, without learning state.
+     *
+     * @param rules the rules to write
+     * @param file  the rule file
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(WeightedRule[] rules, Path file) throws IOException {
+        write(rules, null, null, file);
+    }
+
+    /**
+     * Writes the rules and the learning state to a binary rule file.
+     *
+     * @param rules    the rules to write
+     * @param totals   the example totals per head predicate, or null to omit the learning state
+     * @param examples the IRIs of the learned examples, or null to omit the learning state
+     * @param file     the rule file
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(WeightedRule[] rules, Map<Node, LearnedRules.PredicateTotals> totals, List<String> examples, Path file) throws IOException {
+        // Assign predicate ids and group the rules by head predicate.
+        final Map<Node, Integer> ids = new LinkedHashMap<>();
+        final Map<Node, List<WeightedRule>> groups = new LinkedHashMap<>();
+        for (WeightedRule rule : rules) {
+            ids.putIfAbsent(rule.getHeadPredicate(), ids.size());
+            for (Node predicate : rule.getPlan().getPredicates()) {
+                ids.putIfAbsent(predicate, ids.size());
+            }
+            groups.computeIfAbsent(rule.getHeadPredicate(), p -> new ArrayList<>()).add(rule);
+        }
+        final Comparator<WeightedRule> segmentOrder = Comparator.<WeightedRule, Boolean>comparing(rule -> !rule.isPositive)
+                .thenComparingDouble(rule -> rule.weight);
+        groups.values().forEach(group -> group.sort(segmentOrder));
+
+        final var encodedPredicates = new ArrayList<byte[]>(ids.size());
+        long offset = 5L * Integer.BYTES + Long.BYTES;
+        for (Node predicate : ids.keySet()) {
+            final var bytes = predicate.getURI().getBytes(StandardCharsets.UTF_8);
+            encodedPredicates.add(bytes);
+            offset += Integer.BYTES + bytes.length;
+        }
+        offset += (long) groups.size() * (2 * Integer.BYTES + Long.BYTES);
+
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(ids.size());
+            out.writeInt(groups.size());
+            out.writeInt(rules.length);
+            long learningOffset = offset;
+            for (var group : groups.values()) {
+                for (WeightedRule rule : group) {
+                    learningOffset += recordSize(rule.getPlan().length());
+                }
+            }
+            out.writeLong(totals == null || examples == null ? 0 : learningOffset);
+            for (byte[] bytes : encodedPredicates) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (var entry : groups.entrySet()) {
+                out.writeInt(ids.get(entry.getKey()));
+                out.writeInt(entry.getValue().size());
+                out.writeLong(offset);
+                for (WeightedRule rule : entry.getValue()) {
+                    offset += recordSize(rule.getPlan().length());
+                }
+            }
+            for (var group : groups.values()) {
+                for (WeightedRule rule : group) {
+                    final var body = rule.getPlan().getPredicates();
+                    out.writeByte(rule.isPositive ? 1 : 0);
+                    out.writeByte(body.length);
+                    out.writeInt(ids.get(rule.getHeadPredicate()));
+                    for (Node predicate : body) {
+                        out.writeInt(ids.get(predicate));
+                    }
+                    out.writeDouble(rule.weight);
+                    out.writeInt(rule.getNumberOfCoveredExamples());
+                    out.writeInt(rule.getNumberOfCoveredCounters());
+                    out.writeInt(rule.getNumberOfCoveredExamplesUnbound());
+                    out.writeInt(rule.getNumberOfCoveredCountersUnbound());
+                }
+            }
+            if (totals == null || examples == null) {
+                return;
+            }
+            out.writeInt(totals.size());
+            for (var entry : totals.entrySet()) {
+                writeString(out, entry.getKey().getURI());
+                out.writeInt(entry.getValue().positives());
+                out.writeInt(entry.getValue().negatives());
+            }
+            out.writeInt(examples.size());
+            for (String example : examples) {
+                writeString(out, example);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        final var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int recordSize(int bodyLength) {
+        return 2 + Integer.BYTES + bodyLength * Integer.BYTES + Double.BYTES + 4 * Integer.BYTES;
+    }
+
+    int ruleCount() {
+        return ruleCount;
+    }
+
+    Set<Node> headPredicates() {
+        return Collections.unmodifiableSet(segments.keySet());
+    }
+
+    /**
+     * Returns the predicates of the heads and bodies of all rules, without decoding the rules.
+     */
+    Set<Node> predicates() {
+        return Set.of(predicates);
+    }
+
+    /**
+     * Decodes the rules of one head predicate.
+     *
+     * @param headPredicate the head predicate
+     * @return              the positive rules, then the negative rules, each sorted by ascending weight
+     */
+    WeightedRule[] load(Node headPredicate) {
+        final var segment = segments.get(headPredicate);
+        if (segment == null) {
+            return new WeightedRule[0];
+        }
+
+        final var rules = new WeightedRule[segment.ruleCount()];
+        int position = (int) segment.offset();
+        for (int i = 0; i < rules.length; i++) {
+            final boolean isPositive = buffer.get(position) == 1;
+            final int bodyLength = buffer.get(position + 1);
+            final var head = predicates[buffer.getInt(position + 2)];
+            final var body = new Node[bodyLength];
+            for (int k = 0; k < bodyLength; k++) {
+                body[k] = predicates[buffer.getInt(position + 6 + k * Integer.BYTES)];
+            }
+            final int weightPosition = position + 6 + bodyLength * Integer.BYTES;
+            rules[i] = WeightedRule.fromPredicates(head, body, isPositive, buffer.getDouble(weightPosition));
+            final int counterPosition = weightPosition + Double.BYTES;
+            rules[i].setCounters(buffer.getInt(counterPosition), buffer.getInt(counterPosition + Integer.BYTES),
+                    buffer.getInt(counterPosition + 2 * Integer.BYTES), buffer.getInt(counterPosition + 3 * Integer.BYTES));
+            position += recordSize(bodyLength);
+        }
+        return rules;
+    }
+
+    /**
+     * Decodes all rules of the file.
+     *
+     * @return the rules, grouped by head predicate
+     */
+    WeightedRule[] loadAll() {
+        final var rules = new ArrayList<WeightedRule>(ruleCount);
+        for (Node headPredicate : segments.keySet()) {
+            rules.addAll(Arrays.asList(load(headPredicate)));
+        }
+        return rules.toArray(WeightedRule[]::new);
+    }
+
+    /**
+     * Decodes the example totals per head predicate of the learning state.
+     *
+     * @return the totals, or null if the file has no learning state
+     */
+    Map<Node, LearnedRules.PredicateTotals> predicateTotals() {
+        if (learningOffset == 0) {
+            return null;
+        }
+        final var in = buffer.duplicate().position((int) learningOffset);
+        final int count = in.getInt();
+        final Map<Node, LearnedRules.PredicateTotals> totals = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            final var predicate = NodeFactory.createURI(readString(in));
+            totals.put(predicate, new LearnedRules.PredicateTotals(in.getInt(), in.getInt()));
+        }
+        return totals;
+    }
+
+    /**
+     * Decodes the IRIs of the learned examples of the learning state.
+     *
+     * @return the example IRIs, or null if the file has no learning state
+     */
+    List<String> learnedExamples() {
+        if (learningOffset == 0) {
+            return null;
+        }
+        final var in = buffer.duplicate().position((int) learningOffset);
+        final int predicateCount = in.getInt();
+        for (int i = 0; i < predicateCount; i++) {
+            readString(in);
+            in.position(in.position() + 2 * Integer.BYTES);
+        }
+        final int count = in.getInt();
+        final var examples = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            examples.add(readString(in));
+        }
+        return examples;
+    }
+
+    private static String readString(ByteBuffer in) {
+        final var bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,116 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Canonical identity of a rule.
+ * <p>
+ * A rule generated by this system is fully described by its polarity, its head predicate and the predicates of its
+ * body chain, see {@link PathPlan}. The key stores the predicates as ids of a global predicate dictionary in one
+ * <code>int[]</code>, head predicate first, with a precomputed hash. Keys are interned in a global rule table, so
+ * equal rules share the same key instance and comparing them is mostly a reference comparison.
+ * <p>
+ * The rule table only holds its keys weakly, so the keys of rules that are no longer used, like the rules dropped
+ * while learning or the rules replaced by a reload of the rules file, are removed from it. The predicate dictionary is
+ * kept, it is bounded by the number of distinct predicates.
+ */
+public final class RuleKey {
+
+    private static final Map<Node, Integer> PREDICATE_IDS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_PREDICATE_ID = new AtomicInteger();
+    // The values refer to their keys weakly as well, a strong value would keep its own key in the table.
+    private static final Map<RuleKey, WeakReference<RuleKey>> RULES = new WeakHashMap<>();
+
+    private final boolean isPositive;
+    // Id of the head predicate, followed by the ids of the body predicates.
+    private final int[] predicates;
+    private final int hash;
+
+    private RuleKey(boolean isPositive, int[] predicates) {
+        this.isPositive = isPositive;
+        this.predicates = predicates;
+        this.hash = 31 * Arrays.hashCode(predicates) + (isPositive ? 1 : 0);
+    }
+
+    /**
+     * Returns the interned key of a rule.
+     *
+     * @param isPositive    whether the rule is positive
+     * @param headPredicate the predicate of the rule head
+     * @param body          the predicates of the rule body, in order
+     * @return              the key, the same instance for equal rules
+     */
+    public static RuleKey of(boolean isPositive, Node headPredicate, Node[] body) {
+        final var predicates = new int[body.length + 1];
+        predicates[0] = predicateId(headPredicate);
+        for (int i = 0; i < body.length; i++) {
+            predicates[i + 1] = predicateId(body[i]);
+        }
+        return intern(new RuleKey(isPositive, predicates));
+    }
+
+    private static int predicateId(Node predicate) {
+        return PREDICATE_IDS.computeIfAbsent(predicate, p -> NEXT_PREDICATE_ID.getAndIncrement());
+    }
+
+    private static RuleKey intern(RuleKey key) {
+        synchronized (RULES) {
+            final var existing = RULES.get(key);
+            final var interned = existing == null ? null : existing.get();
+            if (interned != null) {
+                return interned;
+            }
+            RULES.put(key, new WeakReference<>(key));
+            return key;
+        }
+    }
+
+    /**
+     * Returns the key of the rule with the same head and body and the given polarity.
+     * The positive key identifies the rule body independent of the polarity.
+     *
+     * @param isPositive the polarity
+     * @return           the interned key
+     */
+    public RuleKey withPolarity(boolean isPositive) {
+        return isPositive == this.isPositive ? this : intern(new RuleKey(isPositive, predicates));
+    }
+
+    public boolean isPositive() {
+        return isPositive;
+    }
+
+    /**
+     * Returns the number of predicates in the rule body.
+     *
+     * @return the body length
+     */
+    public int bodyLength() {
+        return predicates.length - 1;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null || obj.getClass() != this.getClass()) return false;
+        final var other = (RuleKey) obj;
+        return hash == other.hash && isPositive == other.isPositive && Arrays.equals(predicates, other.predicates);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return (isPositive ? "+" : "-") + Arrays.toString(predicates);
+    }
+}
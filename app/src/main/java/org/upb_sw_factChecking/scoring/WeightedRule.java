@@ -1,44 +1,46 @@
 package org.upb_sw_factChecking.scoring;
 
-import org.apache.jena.arq.querybuilder.ConstructBuilder;
-import org.apache.jena.arq.querybuilder.SelectBuilder;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.graph.Node;
 import org.apache.jena.rdf.model.*;
-import org.apache.jena.reasoner.rulesys.GenericRuleReasoner;
+import org.apache.jena.reasoner.TriplePattern;
+import org.apache.jena.reasoner.rulesys.ClauseEntry;
+import org.apache.jena.reasoner.rulesys.Node_RuleVariable;
 import org.apache.jena.reasoner.rulesys.Rule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.upb_sw_factChecking.app.SystemParameters;
+import org.upb_sw_factChecking.graph.KnowledgeGraph;
+import org.upb_sw_factChecking.metrics.Metrics;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.time.Duration;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 /**
  * Class containing the rule and additional information.
+ * <p>
+ * Rules are identified by their interned {@link RuleKey}. The Jena {@link Rule} is only built when it is needed for
+ * serialization or display.
  */
 public class WeightedRule {
 
-    /**
-     * Class to store result of local graph generation.
-     *
-     * @param graph the local graph
-     * @param maxPathLength the maximum path length used to generate the local graph
-     */
-    public record LocalGraph(Model graph, int maxPathLength) {}
-
-    public Rule rule;
-    public boolean isPositive;
+    public final boolean isPositive;
     public double weight;
 
+    private final Node headPredicate;
+    private final PathPlan plan;
+    private final RuleKey key;
+    // Built on demand, rules created from predicates do not need it for learning and scoring.
+    private volatile Rule rule;
+
     private int numberOfCoveredExamples;
     private int numberOfCoveredExamplesUnbound;
     private int numberOfCoveredCounters;
@@ -49,22 +51,23 @@ public class WeightedRule {
     private static final Logger logger = LoggerFactory.getLogger(WeightedRule.class);
 
     public WeightedRule(Rule rule, boolean isPositive) {
+        this(((TriplePattern) rule.getHead()[0]).getPredicate(), PathPlan.compile(rule), isPositive);
         this.rule = rule;
+    }
+
+    private WeightedRule(Node headPredicate, PathPlan plan, boolean isPositive) {
         this.isPositive = isPositive;
         this.weight = 1.0;
+        this.headPredicate = headPredicate;
+        this.plan = plan;
+        this.key = RuleKey.of(isPositive, headPredicate, plan.getPredicates());
     }
 
     public static WeightedRule[] generateRules(Model baseModel, Statement example, boolean isPositive, int maxPathLength) {
-        LocalGraph localGraph = createLocalGraph(baseModel, example.getSubject(), example.getObject(), maxPathLength, ABSOLUTE_MAX_PATH_LENGTH);
-        Statement[][] paths = createPaths(localGraph.graph, example.getSubject(), example.getObject(), localGraph.maxPathLength);
-        Rule[] rules = createRules(paths, example);
-
-        WeightedRule[] result = new WeightedRule[rules.length];
-        for (int i = 0; i < rules.length; i++) {
-            result[i] = new WeightedRule(rules[i], isPositive);
-        }
+        Statement[][] paths = PathEnumerator.findPaths(baseModel, example.getSubject(), example.getObject(), maxPathLength, ABSOLUTE_MAX_PATH_LENGTH);
+        final var result = fromPaths(paths, example, isPositive);
 
-        if (rules.length == 0) {
+        if (result.length == 0) {
             logger.warn("No rules generated for example {}.", example);
         }
 
@@ -72,151 +75,43 @@ public class WeightedRule {
     }
 
     /**
-     * Create a local graph for the given subject and object.
-     * <p>
-     * The local graph contains all paths from the subject to the object with a length less than or equal to the given
-     * maximum path length.
-     * The local graph is generated by executing CONSTRUCT queries with increasing path lengths.
-     * The maximum path length starts with <code>initialMaxPathLength</code> and is increased if no path is found
-     * up to <code>absoluteMaxPathLength</code>.
-     * The maximum path length also increases if the generation of the local graph takes less time than the timeout.
-     * The timeout is defined in <code>SystemParameters.PATH_TIMEOUT</code>.
+     * Creates the rules for the paths found for an example, like {@link #createRules}, but directly from the
+     * predicates of the paths, without building and parsing rule strings.
      *
-     * @param baseModel the base knowledge graph
-     * @param subject   the subject of the paths
-     * @param object    the object of the paths
-     * @param initialMaxPathLength  the initial maximum path length
-     * @param absoluteMaxPathLength the absolute maximum path length
-     * @return the local graph and the maximum path length
+     * @param paths      the paths from the subject to the object of the example
+     * @param example    the example
+     * @param isPositive whether the rules are positive
+     * @return           one rule per path
      */
-    public static LocalGraph createLocalGraph(Model baseModel, Resource subject, RDFNode object, int initialMaxPathLength, int absoluteMaxPathLength) {
-        Model localGraph = ModelFactory.createDefaultModel();
-        boolean foundSomething = false;
-
-        // For each pathLength less than maxPathLength, create and execute a CONSTRUCT query, that generates a graph
-        // that contains every path from the given subject to the given object with that given length.
-        for (int currentPathLength = 1; (currentPathLength <= initialMaxPathLength || !foundSomething) && (currentPathLength <= absoluteMaxPathLength); currentPathLength++) {
-            Long startTime = System.nanoTime();
-
-            // Build the CONSTRUCT query.
-            // The query is built differently depending on the path length.
-            // If the path length is 1, the query is simple and only contains the subject, predicate, and object.
-            // If the path length is greater than 1, the query contains multiple triples, each representing a step
-            // in the path.
-            // Example for a path length of 3:
-            // CONSTRUCT { <subject> ?p0 ?e1 . ?e1 ?p1 ?e2 . ?e2 ?p2 <object> . }
-            // WHERE     { <subject> ?p0 ?e1 . ?e1 ?p1 ?e2 . ?e2 ?p2 <object> . }
-            ConstructBuilder builder = new ConstructBuilder();
-            if (currentPathLength == 1) {
-                // If the path length is 1, the pattern differs a bit.
-                builder.addConstruct(subject, "?p", object);
-                builder.addWhere(subject, "?p", object);
-            } else {
-                builder.addConstruct(subject, "?p0", "?e1");
-                builder.addWhere(subject, "?p0", "?e1");
-                for (int i = 1; i < currentPathLength - 1; i++) {
-                    builder.addConstruct("?e" + i, "?p" + i, "?e" + (i + 1));
-                    builder.addWhere("?e" + i, "?p" + i, "?e" + (i + 1));
-                }
-                builder.addConstruct("?e" + (currentPathLength - 1), "?p" + (currentPathLength - 1), object);
-                builder.addWhere("?e" + (currentPathLength - 1), "?p" + (currentPathLength - 1), object);
-            }
-
-            // Execute the CONSTRUCT query and add the result to the local graph.
-            try (QueryExecution qexec = QueryExecutionFactory.create(builder.build(), baseModel)) {
-                final var temp = qexec.execConstruct();
-                Long endTime = System.nanoTime();
-                foundSomething = !temp.isEmpty();
-
-                // If the path length is greater than the maximum path length and something has been found, update the
-                // maximum path length.
-                if (currentPathLength > initialMaxPathLength && foundSomething) {
-                    initialMaxPathLength = currentPathLength;
-                }
-
-                // Measure the time it took to generate the local graph. If it took less than the timeout, increase the
-                // maximum path length.
-                Duration duration = Duration.of((endTime - startTime) / 1000000, ChronoUnit.MILLIS);
-                if (duration.compareTo(SystemParameters.PATH_TIMEOUT) < 0 && currentPathLength == absoluteMaxPathLength && absoluteMaxPathLength < 100) {
-                    absoluteMaxPathLength++;
-                }
+    public static WeightedRule[] fromPaths(Statement[][] paths, Statement example, boolean isPositive) {
+        final Node headPredicate = example.getPredicate().asNode();
+        final List<WeightedRule> result = new ArrayList<>(paths.length);
+        for (final Statement[] path : paths) {
+            // If the path only contains the head, skip it.
+            if (path.length == 1 && path[0].equals(example)) continue;
 
-                if (currentPathLength >= initialMaxPathLength && !foundSomething && currentPathLength < absoluteMaxPathLength) {
-                    // logger.warn("Path length of {} reached, but no path found. Extending to {}.", initialMaxPathLength, currentPathLength + 1);
-                }
-                localGraph.add(temp);
+            final var body = new Node[path.length];
+            for (int i = 0; i < path.length; i++) {
+                body[i] = path[i].getPredicate().asNode();
             }
+            result.add(new WeightedRule(headPredicate, PathPlan.of(body), isPositive));
         }
-
-        return new LocalGraph(localGraph, initialMaxPathLength);
+        return result.toArray(WeightedRule[]::new);
     }
 
     /**
-     * Extract all paths from the local graph that start with the given subject and end with the given object.
+     * Extract all paths from the graph that start with the given subject and end with the given object.
      * <p>
      * The paths have a length less than or equal to the given maximum path length.
-     * The paths are extracted by executing SELECT queries with increasing path lengths.
      *
-     * @param localGraph the local graph
+     * @param graph      the knowledge graph
      * @param subject    the subject of the paths
      * @param object     the object of the paths
      * @param maxPathLength the maximum path length
      * @return              an array of paths
      */
-    public static Statement[][] createPaths(Model localGraph, Resource subject, RDFNode object, int maxPathLength) {
-        List<Statement[]> paths = new ArrayList<>();
-
-        for (int currentPathLength = 1; currentPathLength <= maxPathLength; currentPathLength++) {
-            // Build SELECT query.
-            // Building the query is similar to building the CONSTRUCT query for the local graphs.
-            // Example for a path length of 3:
-            // SELECT ?p0 ?e1 ?p1 ?e2 ?p2
-            // WHERE {
-            //   <subject> ?p0 ?e1 .
-            //   ?e1 ?p1 ?e2 .
-            //   ?e2 ?p2 <object> .
-            // }
-            SelectBuilder selectBuilder = new SelectBuilder();
-            if (currentPathLength == 1) {
-                selectBuilder.addVar("?p0").addWhere(subject, "?p0", object);
-            } else {
-                selectBuilder.addVar("?p0").addVar("?e1");
-                selectBuilder.addWhere(subject, "?p0", "?e1");
-                for (int i = 1; i < currentPathLength - 1; i++) {
-                    selectBuilder.addVar("?p" + i).addVar("?e" + (i + 1));
-                    selectBuilder.addWhere("?e" + i, "?p" + i, "?e" + (i + 1));
-                }
-                selectBuilder.addVar("?p" + (currentPathLength - 1));
-                selectBuilder.addWhere("?e" + (currentPathLength - 1), "?p" + (currentPathLength - 1), object);
-            }
-            
-            // Execute SELECT query.
-            try (QueryExecution qexec = QueryExecutionFactory.create(selectBuilder.build(), localGraph)) {
-                final var results = qexec.execSelect();
-                while (results.hasNext()) {
-                    final var next = results.nextSolution();
-                    Statement[] path = new Statement[currentPathLength];
-                    if (currentPathLength == 1) {
-                        final var property = ResourceFactory.createProperty(next.getResource("?p0").getURI());
-                        path[0] = ResourceFactory.createStatement(subject, property, object);
-                        paths.add(path);
-                    } else {
-                        var currentSubject = subject;
-                        for (int i = 0; i < currentPathLength - 1; i++) {
-                            final var property = ResourceFactory.createProperty(next.getResource("?p" + i).getURI());
-                            final var currentObject = next.getResource("?e" + (i + 1));
-                            path[i] = ResourceFactory.createStatement(currentSubject, property, currentObject);
-                            currentSubject = currentObject;
-                        }
-                        final var property = ResourceFactory.createProperty(next.getResource("?p" + (currentPathLength - 1)).getURI());
-                        path[currentPathLength - 1] = ResourceFactory.createStatement(currentSubject, property, object);
-                        paths.add(path);
-                    }
-                }
-            }
-        }
-
-        return paths.toArray(new Statement[paths.size()][]);
+    public static Statement[][] createPaths(Model graph, Resource subject, RDFNode object, int maxPathLength) {
+        return PathEnumerator.findPaths(graph, subject, object, maxPathLength, maxPathLength);
     }
 
     /**
@@ -249,39 +144,112 @@ public class WeightedRule {
      * Check if the rule applies to the given statement.
      * The rule applies if the predicate of the statement is the same as the head of the rule and the statement is
      * entailed by the rule.
-     * The rule is modified to match the given statement, and then the reasoner is used to check if the statement is
-     * entailed by the rule.
+     * The statement is entailed if the compiled body of the rule leads from the subject of the statement to its object.
+     * Like an inference graph, a statement that is already part of the knowledge graph is always entailed.
      *
      * @param baseModel the base knowledge graph
      * @param s         the statement to check
      * @return          true if the rule applies to the statement, false otherwise
      */
     public boolean doesRuleApply(Model baseModel, Statement s) {
-        if (!s.getPredicate().getURI().equals(this.rule.getHead()[0].toString().split(" ")[1].replace("@", "http://rdf.freebase.com/ns/"))) {
+        if (!s.getPredicate().asNode().equals(headPredicate)) {
             // If the predicates do not match, the rule does not apply.
             return false;
         }
 
-        // Modify the rule to match the statement.
-        final var modifiedRule = Rule.parseRule(rule.toString()
-                .replaceAll("\\?e0", s.getSubject().getURI())
-                .replaceAll("\\?e" + rule.bodyLength(), s.getObject().isResource() ? s.getObject().asResource().getURI() : s.getObject().asLiteral().getLexicalForm()));
-        final var reasoner = new GenericRuleReasoner(List.of(modifiedRule));
-        reasoner.setMode(GenericRuleReasoner.FORWARD_RETE);
-        reasoner.setOWLTranslation(false);
-        reasoner.setTransitiveClosureCaching(false);
-        return reasoner.bind(baseModel.getGraph()).contains(s.asTriple());
+        final var graph = KnowledgeGraph.of(baseModel.getGraph());
+        final var triple = s.asTriple();
+        if (graph.contains(triple.getSubject(), triple.getPredicate(), triple.getObject())) {
+            return true;
+        }
+        Metrics.RULE_BODY_EVALUATIONS.increment();
+        return plan.connects(graph, triple.getSubject(), triple.getObject());
+    }
+
+    /**
+     * Check if the rule applies to the given statement, like {@link #doesRuleApply(Model, Statement)}, but take the
+     * nodes reachable through the rule body from the cache. A disabled cache is not used at all.
+     *
+     * @param baseModel the base knowledge graph
+     * @param s         the statement to check
+     * @param cache     the reachability cache of the base knowledge graph
+     * @return          true if the rule applies to the statement, false otherwise
+     */
+    public boolean doesRuleApply(Model baseModel, Statement s, ReachabilityCache cache) {
+        if (!s.getPredicate().asNode().equals(headPredicate)) {
+            return false;
+        }
+
+        final var graph = KnowledgeGraph.of(baseModel.getGraph());
+        final var triple = s.asTriple();
+        if (graph.contains(triple.getSubject(), triple.getPredicate(), triple.getObject())) {
+            return true;
+        }
+        Metrics.RULE_BODY_EVALUATIONS.increment();
+        if (!cache.isEnabled()) {
+            // Nothing would be kept, so only the object is looked up in the last step instead of collecting every reached node.
+            return plan.connects(graph, triple.getSubject(), triple.getObject());
+        }
+        return cache.reachable(graph, plan, triple.getSubject()).contains(triple.getObject());
+    }
+
+
+    /**
+     * Creates a rule from its predicates.
+     * The body of the rule is the chain <code>(?e0 p0 ?e1) ... (?e(n-1) p(n-1) ?en)</code>, the head is
+     * <code>(?e0 headPredicate ?en)</code>, like the rules created by {@link #createRules}.
+     *
+     * @param headPredicate the predicate of the head
+     * @param body          the predicates of the body, in order
+     * @param isPositive    whether the rule is positive
+     * @param weight        the weight of the rule
+     * @return              the rule
+     */
+    public static WeightedRule fromPredicates(Node headPredicate, Node[] body, boolean isPositive, double weight) {
+        final var rule = new WeightedRule(headPredicate, PathPlan.of(body), isPositive);
+        rule.weight = weight;
+        return rule;
     }
 
+    /**
+     * Returns the Jena rule, for serialization and display.
+     * Rules created from predicates get the chain form described in {@link #fromPredicates}.
+     *
+     * @return the rule
+     */
+    public Rule getRule() {
+        var result = rule;
+        if (result == null) {
+            final var body = plan.getPredicates();
+            final var variables = new Node[body.length + 1];
+            for (int i = 0; i < variables.length; i++) {
+                variables[i] = new Node_RuleVariable("?e" + i, i);
+            }
+            final List<ClauseEntry> bodyPatterns = new ArrayList<>(body.length);
+            for (int i = 0; i < body.length; i++) {
+                bodyPatterns.add(new TriplePattern(variables[i], body[i], variables[i + 1]));
+            }
+            final List<ClauseEntry> head = List.of(new TriplePattern(variables[0], headPredicate, variables[body.length]));
+            result = new Rule(head, bodyPatterns);
+            rule = result;
+        }
+        return result;
+    }
 
     /**
      * Load rules from a file.
+     * Binary rule files are recognized by their magic number, any other file is read as text file,
+     * see {@link #serializeRules}.
      *
      * @param file the file to load the rules from
      * @return     the loaded rules
      * @throws IOException if an I/O error occurs
      */
     public static WeightedRule[] loadRules(Path file) throws IOException {
+        if (RuleFile.isRuleFile(file)) {
+            return RuleFile.open(file).loadAll();
+        }
+
         WeightedRule[] rules;
         try (var reader = Files.newBufferedReader(file)) {
             final var ruleCount = Integer.parseInt(reader.readLine());
@@ -291,37 +259,111 @@ public class WeightedRule {
                 final var split = line.split(";");
                 rules[i] = new WeightedRule(Rule.parseRule(split[1]), split[0].trim().equals("positive"));
                 rules[i].weight = Double.parseDouble(split[2]);
+                if (split.length >= 7) {
+                    rules[i].setCounters(Integer.parseInt(split[3].trim()), Integer.parseInt(split[4].trim()),
+                            Integer.parseInt(split[5].trim()), Integer.parseInt(split[6].trim()));
+                }
             }
         }
         return rules;
     }
 
+    /**
+     * Reads the predicates the rules of a file use in their heads and bodies.
+     * Of binary rule files, only the predicate table is read.
+     *
+     * @param file the rule file
+     * @return     the predicates of the rules
+     * @throws IOException if an I/O error occurs
+     */
+    public static Set<Node> readPredicates(Path file) throws IOException {
+        if (RuleFile.isRuleFile(file)) {
+            return RuleFile.open(file).predicates();
+        }
+        final Set<Node> predicates = new HashSet<>();
+        for (WeightedRule rule : loadRules(file)) {
+            predicates.add(rule.getHeadPredicate());
+            predicates.addAll(Arrays.asList(rule.getPlan().getPredicates()));
+        }
+        return predicates;
+    }
+
     /**
      * Serialize the rules to a file.
-     * The file will contain the number of rules in the first line, followed by the rules.
+     * Files ending in <code>.bin</code> are written in the binary format of {@link RuleFile}.
+     * Otherwise, the file will contain the number of rules in the first line, followed by the rules.
      * Each rule will be serialized as follows:
-     * <code>positive/negative; rule; weight</code>
+     * <code>positive/negative; rule; weight; examples; counters; examples unbound; counters unbound</code>
+     * <p>
+     * The counters are optional when reading, rules without them can be used for scoring but not for incremental
+     * learning, see {@link LearnedRules}.
      *
      * @param rules the rules to serialize
      * @param file  the file to write to
      * @throws IOException if an I/O error occurs
      */
     public static void serializeRules(WeightedRule[] rules, Path file) throws IOException {
+        if (isBinaryRuleFileName(file)) {
+            RuleFile.write(rules, file);
+            return;
+        }
+
         try (var writer = Files.newBufferedWriter(file)) {
             writer.write(Integer.toString(rules.length));
             writer.newLine();
             for (WeightedRule rule : rules) {
                 DecimalFormat df = new DecimalFormat("0", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
                 df.setMaximumFractionDigits(20);
-                writer.write(String.format("%s; %s; %s",
+                writer.write(String.format("%s; %s; %s; %d; %d; %d; %d",
                         rule.isPositive ? "positive" : "negative",
-                        rule.rule.toShortString(),
-                        df.format(rule.weight)));
+                        rule.getRule().toShortString(),
+                        df.format(rule.weight),
+                        rule.numberOfCoveredExamples,
+                        rule.numberOfCoveredCounters,
+                        rule.numberOfCoveredExamplesUnbound,
+                        rule.numberOfCoveredCountersUnbound));
                 writer.newLine();
             }
         }
     }
 
+    /**
+     * Checks if rules written to the given file are stored in the binary format.
+     *
+     * @param file the rule file
+     * @return     true if the file name ends in <code>.bin</code>
+     */
+    public static boolean isBinaryRuleFileName(Path file) {
+        return file.getFileName().toString().endsWith(".bin");
+    }
+
+    /**
+     * Returns the predicate of the rule head, i.e. the predicate of the statements this rule can infer.
+     *
+     * @return the head predicate
+     */
+    public Node getHeadPredicate() {
+        return headPredicate;
+    }
+
+    /**
+     * Returns the compiled body of this rule.
+     *
+     * @return the path plan of the rule body
+     */
+    public PathPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Returns the canonical key identifying this rule.
+     *
+     * @return the interned rule key
+     */
+    public RuleKey getKey() {
+        return key;
+    }
+
     public void setWeight(double weight) {
         this.weight = weight;
     }
@@ -353,12 +395,12 @@ public class WeightedRule {
     public boolean equals(Object obj) {
         if (obj == this) return true;
         if (obj == null || obj.getClass() != this.getClass()) return false;
-        WeightedRule other = (WeightedRule) obj;
-        return rule.equals(other.rule) && isPositive == other.isPositive;
+        // Keys are interned, equal rules share the same key.
+        return key == ((WeightedRule) obj).key;
     }
 
     @Override
     public int hashCode() {
-        return rule.hashCode() + (isPositive ? 1 : 0);
+        return key.hashCode();
     }
 }
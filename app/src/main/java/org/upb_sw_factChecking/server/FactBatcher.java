@@ -0,0 +1,178 @@
+package org.upb_sw_factChecking.server;
+
+import org.apache.jena.rdf.model.Statement;
+import org.upb_sw_factChecking.scoring.FactScorer;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Scores the facts of concurrent requests together.
+ * <p>
+ * Requests are split into parts of at most the batch size. A dispatcher thread collects parts until a batch is
+ * full or the first part waited for the linger time, and scores the batch with {@link FactScorer#scoreBatch(List)},
+ * which evaluates every rule once for all facts of a predicate in the batch, no matter which request they came from.
+ * Batches are scored on virtual threads, at most one batch per core at once.
+ * <p>
+ * Every batch takes the current fact scorer once, so batches in flight finish with the rules they started with when
+ * the rules are replaced.
+ */
+final class FactBatcher implements Closeable {
+
+    /**
+     * Consecutive facts of a request.
+     *
+     * @param request the request the facts belong to
+     * @param offset  the position of the first fact in the request
+     * @param facts   the facts
+     */
+    private record Part(Request request, int offset, List<Statement> facts) {}
+
+    /**
+     * Facts submitted together, completed once all of its parts are scored.
+     */
+    private static final class Request {
+        final double[] truthValues;
+        final AtomicInteger remainingParts;
+        final CompletableFuture<double[]> result = new CompletableFuture<>();
+
+        Request(int size, int parts) {
+            truthValues = new double[size];
+            remainingParts = new AtomicInteger(parts);
+        }
+    }
+
+    private static final Part END = new Part(null, 0, List.of());
+
+    private final Supplier<FactScorer> scorer;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Part> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore running = new Semaphore(Runtime.getRuntime().availableProcessors());
+    private final Thread dispatcher;
+
+    /**
+     * @param scorer      supplies the current fact scorer
+     * @param batchSize   the maximum number of facts scored together
+     * @param lingerNanos the time the first fact of a batch waits for further facts
+     */
+    FactBatcher(Supplier<FactScorer> scorer, int batchSize, long lingerNanos) {
+        this.scorer = scorer;
+        this.batchSize = batchSize;
+        this.lingerNanos = lingerNanos;
+        dispatcher = new Thread(this::dispatch, "fact-batcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Submits facts to be scored.
+     *
+     * @param facts the facts
+     * @return      the truth values of the facts, in the same order
+     */
+    CompletableFuture<double[]> submit(List<Statement> facts) {
+        final int parts = (facts.size() + batchSize - 1) / batchSize;
+        final var request = new Request(facts.size(), parts);
+        if (parts == 0) {
+            request.result.complete(request.truthValues);
+        }
+        for (int offset = 0; offset < facts.size(); offset += batchSize) {
+            queue.add(new Part(request, offset, facts.subList(offset, Math.min(facts.size(), offset + batchSize))));
+        }
+        return request.result;
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                final var first = queue.take();
+                if (first == END) {
+                    return;
+                }
+                final List<Part> batch = new ArrayList<>();
+                batch.add(first);
+                int size = first.facts().size();
+                final long deadline = System.nanoTime() + lingerNanos;
+                boolean end = false;
+                while (size < batchSize) {
+                    final var next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == END) {
+                        end = true;
+                        break;
+                    }
+                    batch.add(next);
+                    size += next.facts().size();
+                }
+
+                running.acquire();
+                workers.execute(() -> {
+                    try {
+                        score(batch);
+                    } finally {
+                        running.release();
+                    }
+                });
+                if (end) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void score(List<Part> batch) {
+        final List<Statement> facts = new ArrayList<>();
+        for (Part part : batch) {
+            facts.addAll(part.facts());
+        }
+        final double[] truthValues;
+        try {
+            truthValues = scorer.get().scoreBatch(facts);
+        } catch (Throwable e) {
+            for (Part part : batch) {
+                part.request().result.completeExceptionally(e);
+            }
+            return;
+        }
+
+        int position = 0;
+        for (Part part : batch) {
+            final var request = part.request();
+            System.arraycopy(truthValues, position, request.truthValues, part.offset(), part.facts().size());
+            position += part.facts().size();
+            if (request.remainingParts.decrementAndGet() == 0) {
+                request.result.complete(request.truthValues);
+            }
+        }
+    }
+
+    /**
+     * Scores the facts submitted so far and waits for them.
+     */
+    @Override
+    public void close() {
+        queue.add(END);
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.close();
+    }
+}
@@ -0,0 +1,357 @@
+package org.upb_sw_factChecking.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.vocabulary.RDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.upb_sw_factChecking.dataset.ResultWriter;
+import org.upb_sw_factChecking.dataset.TestSet;
+import org.upb_sw_factChecking.dataset.TrainingSet;
+import org.upb_sw_factChecking.metrics.Metrics;
+import org.upb_sw_factChecking.metrics.Timer;
+import org.upb_sw_factChecking.scoring.FactScorer;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Local HTTP server that keeps the knowledge graph and the rules loaded and scores batches of facts.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li><code>POST /score</code>: scores the facts in the N-Triples request body, 413 if the body exceeds the
+ *     maximum request size. Reified facts are answered with
+ *     one N-Triples line stating the truth value of each fact, like the result file of the check command, or with 400
+ *     if a fact lacks its subject, predicate or object, or if the body also holds triples about other subjects.
+ *     Otherwise,
+ *     every triple of the body is a fact, and the answer holds one truth value per line in the order of the
+ *     triples.</li>
+ *     <li><code>GET /ready</code>: 200 once the rules are loaded, 503 before.</li>
+ *     <li><code>GET /health</code>: 200 while the server is running.</li>
+ *     <li><code>POST /reload</code>: loads the rules file again.</li>
+ *     <li><code>GET /metrics</code>: the metrics in the Prometheus text format.</li>
+ * </ul>
+ * Requests are handled on virtual threads, and the facts of concurrent requests are scored together, see
+ * {@link FactBatcher}. Reloading the rules builds a new fact scorer next to the current one and replaces it only if
+ * the rules could be loaded, requests in flight finish with the previous rules.
+ */
+public class ScoringServer implements Closeable {
+
+    // Model used to create statements that do not belong to any model.
+    private static final Model FACTORY = ModelFactory.createDefaultModel();
+
+    // Seconds requests in flight are given to finish on close.
+    private static final int STOP_DELAY = 5;
+
+    private final static Logger logger = LoggerFactory.getLogger(ScoringServer.class);
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+    private final FactBatcher batcher;
+    private final Path rulesFile;
+    private final int maxRequestSize;
+    private final AtomicReference<FactScorer> scorer = new AtomicReference<>();
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private Function<Path, FactScorer> loader;
+    private FileTime loadedModificationTime;
+    private ScheduledExecutorService watcher;
+
+    /**
+     * Starts the server. It answers scoring requests once the rules are loaded with {@link #load}.
+     *
+     * @param address        the address to listen on, port 0 for any free port
+     * @param rulesFile      the rules file
+     * @param batchSize      the maximum number of facts scored together
+     * @param lingerNanos    the time the first fact of a batch waits for facts of further requests
+     * @param maxRequestSize the maximum size in bytes of the body of a scoring request
+     * @throws IOException if the server can not listen on the address
+     */
+    public ScoringServer(InetSocketAddress address, Path rulesFile, int batchSize, long lingerNanos, int maxRequestSize) throws IOException {
+        this.rulesFile = rulesFile;
+        this.maxRequestSize = maxRequestSize;
+        this.batcher = new FactBatcher(scorer::get, batchSize, lingerNanos);
+        server = HttpServer.create(address, 0);
+        server.setExecutor(handlers);
+        server.createContext("/score", exchange -> handle(exchange, "POST", this::score));
+        server.createContext("/ready", exchange -> handle(exchange, "GET", this::ready));
+        server.createContext("/health", exchange -> handle(exchange, "GET", e -> respond(e, 200, "text/plain", "ok\n")));
+        server.createContext("/reload", exchange -> handle(exchange, "POST", this::reload));
+        server.createContext("/metrics", exchange -> handle(exchange, "GET", this::metrics));
+        server.start();
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                exchange.getResponseHeaders().set("Allow", method);
+                respond(exchange, 405, "text/plain", "Method not allowed, use " + method + "\n");
+                return;
+            }
+            handler.handle(exchange);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error handling request {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            throw e;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        final var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public boolean isReady() {
+        return scorer.get() != null;
+    }
+
+    /**
+     * Loads the rules and marks the server ready if they could be loaded.
+     *
+     * @param loader creates a fact scorer with the rules of the given file, or returns null if they can not be loaded
+     * @return       true if the rules were loaded
+     */
+    public synchronized boolean load(Function<Path, FactScorer> loader) {
+        this.loader = loader;
+        return loadRules();
+    }
+
+    /**
+     * Loads the rules file again. The current rules are kept if the file can not be loaded.
+     *
+     * @return true if the rules were loaded
+     */
+    public synchronized boolean reload() {
+        if (loader == null) {
+            return false;
+        }
+        final boolean loaded = loadRules();
+        if (loaded) {
+            Metrics.RULE_RELOADS.increment();
+        }
+        return loaded;
+    }
+
+    private boolean loadRules() {
+        // A file that fails to load is only tried again by the watcher once it changes again.
+        loadedModificationTime = modificationTime();
+        final var loaded = loader.apply(rulesFile);
+        if (loaded == null) {
+            logger.error("Rules file {} could not be loaded{}.", rulesFile, isReady() ? ", keeping the previous rules" : "");
+            return false;
+        }
+        scorer.set(loaded);
+        logger.info("Serving the rules of {}.", rulesFile);
+        return true;
+    }
+
+    private FileTime modificationTime() {
+        try {
+            return Files.getLastModifiedTime(rulesFile);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reloads the rules whenever the modification time of the rules file changes.
+     *
+     * @param intervalSeconds the interval between checks of the rules file, 0 to not watch it
+     */
+    public synchronized void watchRulesFile(long intervalSeconds) {
+        if (intervalSeconds <= 0 || watcher != null) {
+            return;
+        }
+        watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "rules-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.scheduleWithFixedDelay(() -> {
+            final var modificationTime = modificationTime();
+            final boolean changed;
+            synchronized (this) {
+                changed = modificationTime != null && !modificationTime.equals(loadedModificationTime);
+            }
+            if (changed) {
+                logger.info("Rules file {} changed, reloading.", rulesFile);
+                reload();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void ready(HttpExchange exchange) throws IOException {
+        if (isReady()) {
+            respond(exchange, 200, "text/plain", "ready\n");
+        } else {
+            respond(exchange, 503, "text/plain", "loading\n");
+        }
+    }
+
+    private void reload(HttpExchange exchange) throws IOException {
+        if (!isReady()) {
+            respond(exchange, 503, "text/plain", "loading\n");
+        } else if (reload()) {
+            respond(exchange, 200, "text/plain", "reloaded\n");
+        } else {
+            respond(exchange, 500, "text/plain", "Rules file could not be loaded, keeping the previous rules\n");
+        }
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        final var out = new StringWriter();
+        Metrics.REGISTRY.writePrometheus(out);
+        respond(exchange, 200, "text/plain; version=0.0.4", out.toString());
+    }
+
+    private void score(HttpExchange exchange) throws IOException {
+        if (!isReady()) {
+            respond(exchange, 503, "text/plain", "loading\n");
+            return;
+        }
+        final long start = Timer.start();
+        final byte[] body;
+        try (InputStream input = exchange.getRequestBody()) {
+            // One byte more than allowed tells an oversized body apart without reading the rest of it,
+            // computed as a long so that the largest maximum does not overflow.
+            body = input.readNBytes((int) Math.min(maxRequestSize + 1L, Integer.MAX_VALUE));
+        }
+        if (body.length > maxRequestSize) {
+            respond(exchange, 413, "text/plain", "Request body exceeds the maximum of " + maxRequestSize + " bytes\n");
+            return;
+        }
+
+        final List<Triple> triples = new ArrayList<>();
+        try {
+            RDFParser.source(new ByteArrayInputStream(body)).lang(Lang.NTRIPLES).parse(new StreamRDFBase() {
+                @Override
+                public void triple(Triple triple) {
+                    triples.add(triple);
+                }
+            });
+        } catch (RiotException e) {
+            respond(exchange, 400, "text/plain", "Invalid N-Triples: " + e.getMessage() + "\n");
+            return;
+        }
+
+        try {
+            final Set<Node> factIris = triples.stream()
+                    .filter(triple -> triple.getPredicate().equals(RDF.Nodes.subject) || triple.getPredicate().equals(RDF.Nodes.predicate)
+                            || triple.getPredicate().equals(RDF.Nodes.object))
+                    .map(Triple::getSubject)
+                    .collect(Collectors.toSet());
+            if (!factIris.isEmpty()) {
+                // Triples about other subjects would be facts of their own, which the answer has no place for.
+                final long plain = triples.stream().filter(triple -> !factIris.contains(triple.getSubject())).count();
+                if (plain > 0) {
+                    respond(exchange, 400, "text/plain", "Reified facts can not be mixed with plain triples, found " + plain
+                            + " plain triples, send them in a separate request\n");
+                    return;
+                }
+                final var entries = TestSet.collect(triples);
+                // Facts without subject, predicate or object are not read, their truth value would be missing.
+                final long reified = factIris.size();
+                if (entries.size() < reified) {
+                    respond(exchange, 400, "text/plain", (reified - entries.size()) + " of " + reified
+                            + " reified facts are incomplete, each needs rdf:subject, rdf:predicate and rdf:object\n");
+                    return;
+                }
+                final double[] truthValues = batcher.submit(entries.stream().map(TestSet.TestSetEntry::statement).toList()).get();
+                final List<TrainingSet.TrainingSetEntry> results = new ArrayList<>(entries.size());
+                for (int i = 0; i < entries.size(); i++) {
+                    results.add(entries.get(i).toTrainingSetEntry(truthValues[i]));
+                }
+                final var out = new StringWriter();
+                try (var writer = new ResultWriter(out, ResultWriter.Order.INPUT)) {
+                    writer.write(0, results);
+                }
+                respond(exchange, 200, "application/n-triples", out.toString());
+            } else {
+                final List<Statement> facts = triples.stream().map(FACTORY::asStatement).toList();
+                final double[] truthValues = batcher.submit(facts).get();
+                final var out = new StringBuilder(truthValues.length * 8);
+                for (double truthValue : truthValues) {
+                    out.append(truthValue).append('\n');
+                }
+                respond(exchange, 200, "text/plain", out.toString());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "text/plain", "Interrupted\n");
+        } catch (ExecutionException e) {
+            logger.error("Error scoring facts", e.getCause());
+            respond(exchange, 500, "text/plain", "Error scoring facts: " + e.getCause() + "\n");
+        } finally {
+            Metrics.SERVER_REQUEST.stop(start);
+        }
+    }
+
+    /**
+     * Waits until the server is closed.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void awaitClose() throws InterruptedException {
+        closed.await();
+    }
+
+    /**
+     * Stops accepting requests, gives the requests in flight a few seconds to finish and stops the server.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed.getCount() == 0) {
+            return;
+        }
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+        server.stop(STOP_DELAY);
+        batcher.close();
+        handlers.close();
+        closed.countDown();
+        logger.info("Server stopped.");
+    }
+}
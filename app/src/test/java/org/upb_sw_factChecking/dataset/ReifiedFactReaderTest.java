@@ -0,0 +1,73 @@
+package org.upb_sw_factChecking.dataset;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReifiedFactReaderTest {
+
+    private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+    // Triples of both facts interleaved and out of order, the third fact misses its object.
+    private static final String SHUFFLED_DATA =
+            "<http://ex.org/f1> <http://swc2017.aksw.org/hasTruthValue> \"0.0\"^^<http://www.w3.org/2001/XMLSchema#double> .\n" +
+            "<http://ex.org/f0> <" + RDF + "object> <http://ex.org/b> .\n" +
+            "<http://ex.org/f1> <" + RDF + "subject> <http://ex.org/c> .\n" +
+            "<http://ex.org/f2> <" + RDF + "subject> <http://ex.org/e> .\n" +
+            "<http://ex.org/f0> <" + RDF + "type> <" + RDF + "Statement> .\n" +
+            "<http://ex.org/f1> <" + RDF + "predicate> <http://ex.org/q> .\n" +
+            "<http://ex.org/f0> <" + RDF + "subject> <http://ex.org/a> .\n" +
+            "<http://ex.org/f1> <" + RDF + "object> \"d\" .\n" +
+            "<http://ex.org/f0> <" + RDF + "predicate> <http://ex.org/p> .\n" +
+            "<http://ex.org/f0> <http://swc2017.aksw.org/hasTruthValue> \"1.0\"^^<http://www.w3.org/2001/XMLSchema#double> .\n";
+
+    @Test
+    void groupsTriplesInAnyOrder() throws IOException {
+        final var entries = new TrainingSet(input(SHUFFLED_DATA.getBytes(StandardCharsets.UTF_8))).getEntries();
+
+        assertEquals(2, entries.size());
+        final var f1 = entries.get(0);
+        assertEquals("http://ex.org/f1", f1.factIRI().getURI());
+        assertEquals("http://ex.org/c", f1.statement().getSubject().getURI());
+        assertEquals("http://ex.org/q", f1.statement().getPredicate().getURI());
+        assertEquals("d", f1.statement().getObject().asLiteral().getString());
+        assertEquals(0.0, f1.truthValue());
+
+        final var f0 = entries.get(1);
+        assertEquals("http://ex.org/f0", f0.factIRI().getURI());
+        assertEquals("http://ex.org/b", f0.statement().getObject().asResource().getURI());
+        assertEquals(1.0, f0.truthValue());
+    }
+
+    @Test
+    void readsGzipInput() throws IOException {
+        final var compressed = new ByteArrayOutputStream();
+        try (var out = new GZIPOutputStream(compressed)) {
+            out.write(SHUFFLED_DATA.getBytes(StandardCharsets.UTF_8));
+        }
+
+        final var entries = new TestSet(input(compressed.toByteArray())).getEntries();
+
+        // Facts are emitted in the order they are completed.
+        assertEquals(2, entries.size());
+        assertEquals("http://ex.org/f1", entries.get(0).factIri().getURI());
+        assertEquals("http://ex.org/f0", entries.get(1).factIri().getURI());
+    }
+
+    @Test
+    void closingStopsTheReader() throws IOException {
+        try (var stream = TestSet.stream(input(SHUFFLED_DATA.getBytes(StandardCharsets.UTF_8)))) {
+            assertTrue(stream.findFirst().isPresent());
+        }
+    }
+
+    private static ByteArrayInputStream input(byte[] data) {
+        return new ByteArrayInputStream(data);
+    }
+}
@@ -0,0 +1,85 @@
+package org.upb_sw_factChecking.dataset;
+
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultWriterTest {
+
+    private static TrainingSet.TrainingSetEntry entry(int fact, double truthValue) {
+        final var subject = ResourceFactory.createResource("http://ex.org/s");
+        final var statement = ResourceFactory.createStatement(subject, ResourceFactory.createProperty("http://ex.org/p"), subject);
+        return new TrainingSet.TrainingSetEntry(ResourceFactory.createResource("http://ex.org/f" + fact), statement, truthValue);
+    }
+
+    private static String line(int fact, double truthValue) {
+        return "<http://ex.org/f" + fact + "> <http://swc2017.aksw.org/hasTruthValue> \"" + truthValue
+                + "\"^^<http://www.w3.org/2001/XMLSchema#double> .\n";
+    }
+
+    @Test
+    void inputOrderWaitsForPredecessors() throws IOException {
+        final var out = new StringWriter();
+        try (var writer = new ResultWriter(out, ResultWriter.Order.INPUT)) {
+            writer.write(1, entry(1, 0.0));
+            writer.write(2, entry(2, 1.0));
+            assertEquals(0, writer.getWritten());
+            writer.write(0, entry(0, 0.5));
+            assertEquals(3, writer.getWritten());
+        }
+        assertEquals(line(0, 0.5) + line(1, 0.0) + line(2, 1.0), out.toString());
+    }
+
+    @Test
+    void completionOrderWritesImmediately() throws IOException {
+        final var out = new StringWriter();
+        try (var writer = new ResultWriter(out, ResultWriter.Order.COMPLETION)) {
+            writer.write(1, entry(1, 0.0));
+            writer.write(0, entry(0, 0.5));
+        }
+        assertEquals(line(1, 0.0) + line(0, 0.5), out.toString());
+    }
+
+    @Test
+    void closeWritesResultsAfterAGap() throws IOException {
+        final var out = new StringWriter();
+        try (var writer = new ResultWriter(out, ResultWriter.Order.INPUT)) {
+            writer.write(2, entry(2, 1.0));
+            writer.write(1, entry(1, 0.0));
+        }
+        assertEquals(line(1, 0.0) + line(2, 1.0), out.toString());
+    }
+
+    @Test
+    void batchesAreWrittenInInputOrder() throws IOException {
+        final var out = new StringWriter();
+        try (var writer = new ResultWriter(out, ResultWriter.Order.INPUT)) {
+            writer.write(2, List.of(entry(2, 1.0), entry(3, 0.0)));
+            assertEquals(0, writer.getWritten());
+            writer.write(0, List.of(entry(0, 0.5), entry(1, 0.0)));
+            assertEquals(4, writer.getWritten());
+            writer.write(4, List.of());
+        }
+        assertEquals(line(0, 0.5) + line(1, 0.0) + line(2, 1.0) + line(3, 0.0), out.toString());
+    }
+
+    @Test
+    void resultFileIsFlushedWhileNoResultsArrive(@TempDir Path dir) throws Exception {
+        final var file = dir.resolve("result.nt");
+        try (var writer = ResultWriter.open(file, ResultWriter.Order.INPUT)) {
+            writer.write(0, entry(0, 0.5));
+            for (int i = 0; i < 50 && Files.size(file) == 0; i++) {
+                Thread.sleep(100);
+            }
+            assertEquals(line(0, 0.5), Files.readString(file));
+        }
+    }
+}
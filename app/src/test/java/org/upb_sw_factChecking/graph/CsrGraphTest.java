@@ -0,0 +1,71 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsrGraphTest {
+
+    private static Model loadModel() {
+        return RDFDataMgr.loadModel("src/test/resources/testing-ch-and-kg/reduced_knowledgeGraph.nt");
+    }
+
+    private static Set<Triple> toSet(Iterable<Triple> triples) {
+        final Set<Triple> result = new HashSet<>();
+        triples.forEach(result::add);
+        return result;
+    }
+
+    @Test
+    void containsTheSameTriplesAsTheModel() {
+        final var model = loadModel();
+        final var graph = CsrGraphBuilder.fromGraph(model.getGraph());
+
+        assertEquals(model.size(), graph.size());
+        assertEquals(toSet(model.getGraph().find().toList()), toSet(graph.find().toList()));
+        model.getGraph().find().forEachRemaining(triple -> assertTrue(graph.contains(triple)));
+    }
+
+    @Test
+    void findAnswersBoundPatterns() {
+        final var model = loadModel();
+        final var graph = CsrGraphBuilder.fromGraph(model.getGraph());
+        final var triple = model.getGraph().find().next();
+
+        for (Node s : new Node[]{triple.getSubject(), Node.ANY}) {
+            for (Node p : new Node[]{triple.getPredicate(), Node.ANY}) {
+                for (Node o : new Node[]{triple.getObject(), Node.ANY}) {
+                    assertEquals(toSet(model.getGraph().find(s, p, o).toList()), toSet(graph.find(s, p, o).toList()));
+                }
+            }
+        }
+        assertFalse(graph.contains(NodeFactory.createURI("http://example.org/unknown"), triple.getPredicate(), triple.getObject()));
+    }
+
+    @Test
+    void connectsFollowsPredicateChains() {
+        final var builder = new CsrGraphBuilder();
+        final var a = NodeFactory.createURI("http://example.org/a");
+        final var b = NodeFactory.createURI("http://example.org/b");
+        final var c = NodeFactory.createURI("http://example.org/c");
+        final var p = NodeFactory.createURI("http://example.org/p");
+        final var q = NodeFactory.createURI("http://example.org/q");
+        builder.add(a, p, b);
+        builder.add(a, p, b);
+        builder.add(b, q, c);
+        final var graph = builder.build();
+
+        assertEquals(2, graph.edgeCount());
+        assertTrue(graph.connects(a, new Node[]{p, q}, c));
+        assertFalse(graph.connects(a, new Node[]{q, p}, c));
+        assertFalse(graph.connects(c, new Node[]{p, q}, a));
+    }
+}
@@ -0,0 +1,82 @@
+package org.upb_sw_factChecking.graph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.graph.TestGraphs.hub;
+import static org.upb_sw_factChecking.graph.TestGraphs.node;
+
+class DegreeStatisticsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static void assertStatistics(DegreeStatistics degrees) {
+        assertEquals(21, degrees.getEdgeCount());
+        assertEquals(13, degrees.getTermCount());
+        assertEquals(2, degrees.getRecordedTermCount());
+
+        final var hub = node("hub");
+        final var x = node("x");
+        assertEquals(10, degrees.outDegree(hub));
+        assertEquals(0, degrees.inDegree(hub));
+        assertEquals(10, degrees.inDegree(x));
+        assertTrue(degrees.isHub(hub, 9));
+        assertFalse(degrees.isHub(hub, 10));
+        // Terms below the minimum recorded degree are estimated with the average degree.
+        assertTrue(degrees.outDegree(node("n1")) < degrees.getMinRecordedDegree());
+        assertFalse(degrees.isHub(node("n1"), 1));
+    }
+
+    @Test
+    void computesDegrees() {
+        final var model = hub();
+        assertStatistics(DegreeStatistics.compute(model.getGraph(), 5));
+        assertStatistics(DegreeStatistics.compute(CsrGraphBuilder.fromGraph(model.getGraph()), 5));
+    }
+
+    @Test
+    void statisticsRoundTrip() throws IOException {
+        final var kg = tempDir.resolve("kg.nt");
+        final var file = DegreeStatistics.pathFor(kg);
+        assertEquals(tempDir.resolve("kg.nt.degrees"), file);
+
+        Files.writeString(kg, "<http://example.org/a> <http://example.org/p> <http://example.org/b> .\n");
+        final var fingerprint = GraphFingerprint.of(kg);
+        DegreeStatistics.compute(hub().getGraph(), 5, fingerprint).write(file);
+        final var loaded = DegreeStatistics.load(file);
+        assertEquals(5, loaded.getMinRecordedDegree());
+        assertEquals(fingerprint, loaded.getSource());
+        assertStatistics(loaded);
+    }
+
+    @Test
+    void fingerprintChangesWithTheKnowledgeGraph() throws IOException {
+        final var kg = tempDir.resolve("kg.nt");
+        Files.writeString(kg, "<http://example.org/a> <http://example.org/p> <http://example.org/b> .\n");
+        final var fingerprint = GraphFingerprint.of(kg);
+        assertEquals(fingerprint, GraphFingerprint.of(kg));
+
+        Files.writeString(kg, "<http://example.org/a> <http://example.org/p> <http://example.org/c> .\n", StandardOpenOption.APPEND);
+        assertNotEquals(fingerprint, GraphFingerprint.of(kg));
+        assertNotEquals(GraphFingerprint.NONE, GraphFingerprint.of(kg));
+
+        final var store = Files.createDirectory(tempDir.resolve("store"));
+        Files.writeString(store.resolve("data"), "0123456789");
+        Files.writeString(store.resolve("tdb.lock"), "1234");
+        assertEquals(10, GraphFingerprint.of(store).size());
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        final var file = tempDir.resolve("not-a.degrees");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> DegreeStatistics.load(file));
+    }
+}
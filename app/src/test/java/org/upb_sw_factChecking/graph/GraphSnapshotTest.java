@@ -0,0 +1,49 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        final var model = RDFDataMgr.loadModel("src/test/resources/testing-ch-and-kg/reduced_knowledgeGraph.nt");
+        final var graph = CsrGraphBuilder.fromGraph(model.getGraph());
+        final var file = tempDir.resolve("kg.snapshot");
+
+        GraphSnapshot.write(graph, file);
+        final var opened = GraphSnapshot.open(file);
+
+        assertEquals(graph.nodeCount(), opened.nodeCount());
+        assertEquals(graph.edgeCount(), opened.edgeCount());
+        final Set<Triple> expected = new HashSet<>(model.getGraph().find().toList());
+        final Set<Triple> actual = new HashSet<>(opened.find().toList());
+        assertEquals(expected, actual);
+
+        for (int id = 0; id < graph.nodeCount(); id++) {
+            assertEquals(id, opened.getTerms().getId(graph.getTerms().getNode(id)));
+        }
+        assertEquals(-1, opened.getTerms().getId(NodeFactory.createURI("http://example.org/unknown")));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        final var file = tempDir.resolve("not-a.snapshot");
+        Files.write(file, new byte[128]);
+        assertThrows(IOException.class, () -> GraphSnapshot.open(file));
+    }
+}
@@ -0,0 +1,65 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.NodeFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.graph.TestGraphs.NS;
+import static org.upb_sw_factChecking.graph.TestGraphs.labelled;
+import static org.upb_sw_factChecking.graph.TestGraphs.node;
+
+class LabelIndexTest {
+
+    private static void assertLabels(LabelIndex labels) {
+        assertEquals(4, labels.size());
+        assertEquals("en", labels.getLanguage());
+        assertEquals("A en", labels.get(node("a")));
+        assertEquals("B gb", labels.get(node("b")));
+        assertEquals("C", labels.get(node("c")));
+        assertEquals("D \u00fc", labels.get(node("d")));
+        assertNull(labels.get(node("p")));
+    }
+
+    @Test
+    void prefersTheLanguageThenSubLanguagesThenNoLanguage() {
+        assertLabels(LabelIndex.build(labelled().getGraph(), "en", false));
+    }
+
+    @Test
+    void offHeapIndexAnswersTheSame() {
+        assertLabels(LabelIndex.build(labelled().getGraph(), "en", true));
+    }
+
+    @Test
+    void missingLabelsFallBackToTheNode() {
+        final var labels = LabelIndex.build(labelled().getGraph(), "en", false);
+        assertEquals(NS + "p", labels.getOrDefault(node("p")));
+        assertEquals("42", labels.getOrDefault(NodeFactory.createLiteralString("42")));
+        assertEquals("A en", labels.getOrDefault(node("a")));
+    }
+
+    @Test
+    void writtenIndexCanBeMapped(@TempDir Path dir) throws IOException {
+        final var file = LabelIndex.pathFor(dir.resolve("kg.nt"));
+        assertEquals(dir.resolve("kg.nt.labels"), file);
+        final var source = new GraphFingerprint(1234, 5678);
+        LabelIndex.build(labelled().getGraph(), "en", false, source).write(file);
+
+        final var labels = LabelIndex.open(file);
+        assertLabels(labels);
+        assertEquals(source, labels.getSource());
+        assertEquals(GraphFingerprint.NONE, LabelIndex.build(labelled().getGraph(), "en", false).getSource());
+    }
+
+    @Test
+    void openRejectsOtherFiles(@TempDir Path dir) throws IOException {
+        final var file = dir.resolve("kg.nt.labels");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> LabelIndex.open(file));
+    }
+}
@@ -0,0 +1,96 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NTriplesLoaderTest {
+
+    private static final Path KNOWLEDGE_GRAPH = Path.of("src/test/resources/testing-ch-and-kg/reduced_knowledgeGraph.nt");
+
+    private static Path writeBlankNodes(Path dir) throws IOException {
+        final var file = dir.resolve("blank.nt");
+        final var lines = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            lines.append("_:b").append(i % 5).append(" <http://example.org/p> <http://example.org/o").append(i).append("> .\n");
+        }
+        // No line break after the last line.
+        lines.append("<http://example.org/s> <http://example.org/q> _:b0 .");
+        Files.writeString(file, lines);
+        return file;
+    }
+
+    @Test
+    void splitEndsEveryChunkAfterALineBreak(@TempDir Path dir) throws IOException {
+        final var file = writeBlankNodes(dir);
+        final var content = Files.readAllBytes(file);
+        try (var channel = FileChannel.open(file)) {
+            final List<NTriplesLoader.Chunk> chunks = NTriplesLoader.split(channel, 100);
+            assertTrue(chunks.size() > 1);
+            assertEquals(0, chunks.get(0).start());
+            assertEquals(content.length, chunks.get(chunks.size() - 1).end());
+            for (int i = 0; i < chunks.size() - 1; i++) {
+                assertEquals(chunks.get(i).end(), chunks.get(i + 1).start());
+                assertEquals('\n', content[(int) chunks.get(i).end() - 1]);
+            }
+        }
+    }
+
+    @Test
+    void parallelGraphMatchesTheSequentialModel() {
+        final Model expected = RDFDataMgr.loadModel(KNOWLEDGE_GRAPH.toString());
+        final var graph = NTriplesLoader.loadGraph(KNOWLEDGE_GRAPH, 4, null, 4096);
+
+        assertTrue(expected.isIsomorphicWith(ModelFactory.createModelForGraph(graph)));
+    }
+
+    @Test
+    void parallelCsrGraphMatchesTheSequentialModel() {
+        final Model expected = RDFDataMgr.loadModel(KNOWLEDGE_GRAPH.toString());
+        final var graph = NTriplesLoader.loadCsr(KNOWLEDGE_GRAPH, 4, null, 4096);
+
+        assertEquals(expected.size(), graph.edgeCount());
+        assertTrue(expected.isIsomorphicWith(ModelFactory.createModelForGraph(graph)));
+    }
+
+    @Test
+    void blankNodesAreSharedAcrossChunks(@TempDir Path dir) throws IOException {
+        final var file = writeBlankNodes(dir);
+        final var expected = RDFDataMgr.loadModel(file.toString());
+
+        final var csr = NTriplesLoader.loadCsr(file, 3, null, 100);
+        assertEquals(51, csr.edgeCount());
+        assertTrue(expected.isIsomorphicWith(ModelFactory.createModelForGraph(csr)));
+        assertTrue(expected.isIsomorphicWith(ModelFactory.createModelForGraph(NTriplesLoader.loadGraph(file, 3, null, 100))));
+    }
+
+    @Test
+    void onlyTriplesOfTheGivenPredicatesAreKept(@TempDir Path dir) throws IOException {
+        final var file = writeBlankNodes(dir);
+        final var q = NodeFactory.createURI("http://example.org/q");
+
+        final var csr = NTriplesLoader.loadCsr(file, 3, Set.of(q), 100);
+        assertEquals(1, csr.edgeCount());
+        assertEquals(1, csr.find(Node.ANY, q, Node.ANY).toList().size());
+        assertEquals(1, NTriplesLoader.loadGraph(file, 3, Set.of(q), 100).size());
+
+        // Files that can not be split are filtered the same way.
+        final var turtle = dir.resolve("blank.ttl");
+        Files.copy(file, turtle);
+        assertEquals(1, NTriplesLoader.loadGraph(turtle, 3, Set.of(q)).size());
+        assertEquals(50, NTriplesLoader.loadCsr(turtle, 3, Set.of(NodeFactory.createURI("http://example.org/p"))).edgeCount());
+    }
+}
@@ -0,0 +1,67 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.sys.TDBInternal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TdbStoreTest {
+
+    private static final Path KNOWLEDGE_GRAPH = Path.of("src/test/resources/testing-ch-and-kg/reduced_knowledgeGraph.nt");
+
+    @Test
+    void storeIsBuiltOnceAndReopenedWithoutTheDump(@TempDir Path dir) throws IOException {
+        final Model expected = RDFDataMgr.loadModel(KNOWLEDGE_GRAPH.toString());
+        final var store = dir.resolve("tdb");
+
+        final var built = TdbStore.open(store, KNOWLEDGE_GRAPH);
+        assertTrue(Txn.calculateRead(built, () -> expected.isIsomorphicWith(built.getDefaultModel())));
+        // Drop the store from the cache of open stores, so it is read from disk again.
+        TDBInternal.expel(built.asDatasetGraph());
+
+        final var reopened = TdbStore.open(store, null);
+        assertTrue(Txn.calculateRead(reopened, () -> expected.isIsomorphicWith(reopened.getDefaultModel())));
+        TDBInternal.expel(reopened.asDatasetGraph());
+    }
+
+    @Test
+    void emptyStoreNeedsADump(@TempDir Path dir) {
+        assertThrows(IOException.class, () -> TdbStore.open(dir.resolve("tdb"), null));
+    }
+
+    @Test
+    void changedDumpRebuildsTheStore(@TempDir Path dir) throws IOException {
+        final var store = dir.resolve("tdb");
+        final var dump = Files.copy(KNOWLEDGE_GRAPH, dir.resolve("kg.nt"));
+        TDBInternal.expel(TdbStore.open(store, dump).asDatasetGraph());
+
+        Files.writeString(dump, "<http://example.org/a> <http://example.org/p> <http://example.org/b> .\n");
+        final Model expected = RDFDataMgr.loadModel(dump.toString());
+        final var rebuilt = TdbStore.open(store, dump);
+        assertTrue(Txn.calculateRead(rebuilt, () -> expected.isIsomorphicWith(rebuilt.getDefaultModel())));
+        TDBInternal.expel(rebuilt.asDatasetGraph());
+    }
+
+    @Test
+    void storeWithoutMarkerIsNotUsed(@TempDir Path dir) throws IOException {
+        final var store = dir.resolve("tdb");
+        TDBInternal.expel(TdbStore.open(store, KNOWLEDGE_GRAPH).asDatasetGraph());
+        // A load that did not finish leaves no marker.
+        Files.delete(TdbStore.markerFor(store));
+
+        assertThrows(IOException.class, () -> TdbStore.open(store, null));
+        final Model expected = RDFDataMgr.loadModel(KNOWLEDGE_GRAPH.toString());
+        final var rebuilt = TdbStore.open(store, KNOWLEDGE_GRAPH);
+        assertTrue(Txn.calculateRead(rebuilt, () -> expected.isIsomorphicWith(rebuilt.getDefaultModel())));
+        assertTrue(Files.exists(TdbStore.markerFor(store)));
+        TDBInternal.expel(rebuilt.asDatasetGraph());
+    }
+}
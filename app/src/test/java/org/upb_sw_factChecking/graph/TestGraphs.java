@@ -0,0 +1,65 @@
+package org.upb_sw_factChecking.graph;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.vocabulary.RDFS;
+
+/**
+ * Small knowledge graphs shared by the graph tests, in the namespace {@link #NS}.
+ */
+final class TestGraphs {
+
+    static final String NS = "http://example.org/";
+
+    private TestGraphs() {}
+
+    static Node node(String name) {
+        return NodeFactory.createURI(NS + name);
+    }
+
+    /**
+     * Creates a graph with a hub: <code>hub -p-> n_i</code> for 10 nodes, <code>n_i -q-> x</code> and
+     * <code>n_0 -q-> "literal"</code>.
+     *
+     * @return the model
+     */
+    static Model hub() {
+        final var model = ModelFactory.createDefaultModel();
+        final var hub = model.createResource(NS + "hub");
+        final var x = model.createResource(NS + "x");
+        for (int i = 0; i < 10; i++) {
+            final var n = model.createResource(NS + "n" + i);
+            model.add(hub, model.createProperty(NS + "p"), n);
+            model.add(n, model.createProperty(NS + "q"), x);
+        }
+        model.add(model.createResource(NS + "n0"), model.createProperty(NS + "q"), "literal");
+        return model;
+    }
+
+    /**
+     * Creates a graph of labelled nodes: <code>a</code> with a label without language, in <code>de</code> and in
+     * <code>en</code>, <code>b</code> without language and in <code>en-GB</code>, <code>c</code> without language and
+     * in <code>fr</code>, <code>d</code> only in <code>fr</code>, and <code>a -p-> b</code>.
+     *
+     * @return the model
+     */
+    static Model labelled() {
+        final var model = ModelFactory.createDefaultModel();
+        final var a = model.createResource(NS + "a");
+        a.addProperty(RDFS.label, "A de", "de");
+        a.addProperty(RDFS.label, "A");
+        a.addProperty(RDFS.label, "A en", "en");
+        final var b = model.createResource(NS + "b");
+        b.addProperty(RDFS.label, "B");
+        b.addProperty(RDFS.label, "B gb", "en-GB");
+        final var c = model.createResource(NS + "c");
+        c.addProperty(RDFS.label, "C fr", "fr");
+        c.addProperty(RDFS.label, "C");
+        final var d = model.createResource(NS + "d");
+        d.addProperty(RDFS.label, "D \u00fc", "fr");
+        model.add(a, model.createProperty(NS + "p"), b);
+        return model;
+    }
+}
@@ -0,0 +1,92 @@
+package org.upb_sw_factChecking.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static MetricsRegistry createRegistry() {
+        final var registry = new MetricsRegistry();
+        final var counter = registry.counter("facts_total", "Facts");
+        counter.add(3);
+        registry.timer("phase_seconds", "Phase").record(2_000_000_000L);
+        final var histogram = registry.histogram("rules_per_fact", "Rules", 1, 5, 10);
+        histogram.record(0);
+        histogram.record(4);
+        histogram.record(5);
+        histogram.record(50);
+        registry.gauge("ratio", "Ratio", () -> 0.5);
+        return registry;
+    }
+
+    @Test
+    void histogramCountsValuesUpToEachBound() {
+        final var histogram = new MetricsRegistry().histogram("h", "", 10, 1, 5);
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(11);
+        assertArrayEquals(new long[]{1, 5, 10}, histogram.getBounds());
+        assertArrayEquals(new long[]{1, 2, 2}, histogram.getCumulativeCounts());
+        assertEquals(3, histogram.getCount());
+        assertEquals(14, histogram.getSum());
+    }
+
+    @Test
+    void rejectsDuplicateNames() {
+        final var registry = new MetricsRegistry();
+        registry.counter("a_total", "");
+        assertThrows(IllegalArgumentException.class, () -> registry.timer("a_total", ""));
+    }
+
+    @Test
+    void writesPrometheusText() throws IOException {
+        final var writer = new StringWriter();
+        createRegistry().writePrometheus(writer);
+        final var text = writer.toString();
+
+        assertTrue(text.contains("# TYPE facts_total counter\nfacts_total 3\n"));
+        assertTrue(text.contains("phase_seconds_count 1\n"));
+        assertTrue(text.contains("phase_seconds_sum 2.000000\n"));
+        assertTrue(text.contains("# HELP phase_seconds_max Maximum of: Phase\n# TYPE phase_seconds_max gauge\nphase_seconds_max 2.000000\n"));
+        assertTrue(text.contains("rules_per_fact_bucket{le=\"1\"} 1\n"));
+        assertTrue(text.contains("rules_per_fact_bucket{le=\"5\"} 3\n"));
+        assertTrue(text.contains("rules_per_fact_bucket{le=\"+Inf\"} 4\n"));
+        assertTrue(text.contains("ratio 0.500000\n"));
+    }
+
+    @Test
+    void writesJson() throws IOException {
+        final var writer = new StringWriter();
+        createRegistry().writeJson(writer);
+        final var json = writer.toString();
+
+        assertTrue(json.contains("\"facts_total\": 3"));
+        assertTrue(json.contains("\"phase_seconds\": {\"count\": 1, \"sum\": 2.000000, \"max\": 2.000000}"));
+        assertTrue(json.contains("\"rules_per_fact\": {\"count\": 4, \"sum\": 59, \"buckets\": {\"1\": 1, \"5\": 3, \"10\": 3}}"));
+    }
+
+    @Test
+    void exporterWritesTheFileWhenClosed() throws IOException {
+        final var registry = createRegistry();
+        final var prometheus = tempDir.resolve("metrics.prom");
+        final var json = tempDir.resolve("metrics.json");
+
+        MetricsExporter.start(registry, prometheus, 0).close();
+        MetricsExporter.start(registry, json, 0).close();
+
+        assertTrue(Files.readString(prometheus).contains("facts_total 3"));
+        assertTrue(Files.readString(json).startsWith("{"));
+        assertFalse(Files.exists(tempDir.resolve("metrics.json.tmp")));
+        assertTrue(registry.summary().stream().anyMatch(line -> line.startsWith("phase_seconds: 1 times")));
+    }
+}
@@ -0,0 +1,149 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.scoring.TestGraphs.CHAIN;
+import static org.upb_sw_factChecking.scoring.TestGraphs.NS;
+import static org.upb_sw_factChecking.scoring.TestGraphs.chainWith;
+import static org.upb_sw_factChecking.scoring.TestGraphs.node;
+import static org.upb_sw_factChecking.scoring.TestGraphs.writeRules;
+
+class FactScorerTest {
+
+    private static Model createModel() {
+        return chainWith("d p b", "a s x", "e r f");
+    }
+
+    private static FactScorer createScorer(Model model, Path dir) throws IOException {
+        final var scorer = new FactScorer(model);
+        assertTrue(scorer.loadRulesFromFile(writeRules(dir.resolve("rules.txt"), 0.2)));
+        return scorer;
+    }
+
+    @Test
+    void scoreBatchMatchesScoreStatement(@TempDir Path dir) throws IOException {
+        final var model = createModel();
+        final var scorer = createScorer(model, dir);
+        final var r = model.createProperty(NS + "r");
+        final List<Statement> facts = List.of(
+                model.createStatement(model.createResource(NS + "a"), r, model.createResource(NS + "c")),
+                model.createStatement(model.createResource(NS + "d"), r, model.createResource(NS + "c")),
+                model.createStatement(model.createResource(NS + "a"), r, model.createResource(NS + "x")),
+                model.createStatement(model.createResource(NS + "e"), r, model.createResource(NS + "f")),
+                model.createStatement(model.createResource(NS + "c"), r, model.createResource(NS + "a")),
+                model.createStatement(model.createResource(NS + "a"), model.createProperty(NS + "t"), model.createResource(NS + "c")));
+
+        final double[] scores = scorer.scoreBatch(facts);
+
+        assertEquals(facts.size(), scores.length);
+        for (int i = 0; i < facts.size(); i++) {
+            assertEquals(scorer.scoreStatement(facts.get(i)), scores[i], 1e-9, "fact " + i);
+        }
+        assertEquals(0.9, scores[0], 1e-9);
+        assertEquals(0.9, scores[1], 1e-9);
+        assertEquals(0.2, scores[2], 1e-9);
+        assertEquals(0.9, scores[3], 1e-9);
+        assertEquals(0.5, scores[4], 1e-9);
+        assertEquals(0.5, scores[5], 1e-9);
+    }
+
+    @Test
+    void scoreBatchFillsTheReachabilityCache(@TempDir Path dir) throws IOException {
+        final var model = createModel();
+        final var cache = new ReachabilityCache(1000, ReachabilityCache.Eviction.LRU);
+        final var scorer = new FactScorer(model, null, cache);
+        assertTrue(scorer.loadRulesFromFile(writeRules(dir.resolve("rules.txt"), 0.2)));
+        final var r = model.createProperty(NS + "r");
+        final var a = model.createResource(NS + "a");
+        final List<Statement> facts = List.of(
+                model.createStatement(a, r, model.createResource(NS + "c")),
+                model.createStatement(a, r, model.createResource(NS + "x")),
+                model.createStatement(model.createResource(NS + "d"), r, model.createResource(NS + "c")));
+
+        // The positive rule is looked up for the subjects a and d, the negative rule only for a.
+        final double[] first = scorer.scoreBatch(facts);
+        assertEquals(0, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(Set.of(node("c")), cache.getIfPresent(PathPlan.compile(Rule.parseRule(CHAIN)), node("a")));
+
+        // Every subject of the second batch is answered from the cache.
+        final double[] second = scorer.scoreBatch(facts);
+        assertEquals(4, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertArrayEquals(first, second, 1e-9);
+        assertArrayEquals(new double[]{0.9, 0.2, 0.9}, second, 1e-9);
+    }
+
+    @Test
+    void binaryRuleFileScoresLikeTextRuleFile(@TempDir Path dir) throws IOException {
+        final var model = createModel();
+        final var textScorer = createScorer(model, dir);
+        final var binaryFile = dir.resolve("rules.bin");
+        textScorer.saveRulesToFile(binaryFile);
+
+        final var binaryScorer = new FactScorer(model);
+        assertTrue(binaryScorer.loadRulesFromFile(binaryFile));
+
+        final var r = model.createProperty(NS + "r");
+        final List<Statement> facts = List.of(
+                model.createStatement(model.createResource(NS + "a"), r, model.createResource(NS + "c")),
+                model.createStatement(model.createResource(NS + "a"), r, model.createResource(NS + "x")),
+                model.createStatement(model.createResource(NS + "c"), r, model.createResource(NS + "a")));
+        assertArrayEquals(textScorer.scoreBatch(facts), binaryScorer.scoreBatch(facts), 1e-9);
+    }
+
+    @Test
+    void evidenceIsKeptOnlyWhenExplaining(@TempDir Path dir) throws IOException {
+        final var model = createModel();
+        final var scorer = createScorer(model, dir);
+        final var r = model.createProperty(NS + "r");
+        final var a = model.createResource(NS + "a");
+        final List<Statement> facts = List.of(
+                model.createStatement(a, r, model.createResource(NS + "c")),
+                model.createStatement(a, r, model.createResource(NS + "x")),
+                model.createStatement(model.createResource(NS + "e"), r, model.createResource(NS + "f")),
+                model.createStatement(model.createResource(NS + "c"), r, a));
+
+        final var unexplained = new Evidence[facts.size()];
+        scorer.scoreBatch(facts, unexplained);
+        assertArrayEquals(new Evidence[facts.size()], unexplained);
+
+        scorer.setExplain(FactScorer.Explain.IRIS);
+        final var evidence = new Evidence[facts.size()];
+        scorer.scoreBatch(facts, evidence);
+
+        assertTrue(evidence[0].rule().isPositive);
+        assertArrayEquals(new Node[]{a.asNode(), model.createResource(NS + "b").asNode(), model.createResource(NS + "c").asNode()}, evidence[0].path());
+        assertFalse(evidence[1].rule().isPositive);
+        assertArrayEquals(new Node[]{a.asNode(), model.createResource(NS + "x").asNode()}, evidence[1].path());
+        // The fact is part of the knowledge graph.
+        assertNull(evidence[2].path());
+        assertNull(evidence[3]);
+
+        for (int i = 0; i < facts.size(); i++) {
+            final var single = new Evidence[1];
+            scorer.scoreStatement(facts.get(i), single);
+            if (evidence[i] == null) {
+                assertNull(single[0], "fact " + i);
+            } else {
+                assertEquals(evidence[i].rule(), single[0].rule(), "fact " + i);
+                assertArrayEquals(evidence[i].path(), single[0].path(), "fact " + i);
+            }
+        }
+
+        final var formatted = evidence[0].format(facts.get(0), null);
+        assertTrue(formatted.contains(NS + "b"), formatted);
+        assertTrue(formatted.contains(") -> ("), formatted);
+    }
+}
@@ -0,0 +1,112 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.scoring.TestGraphs.CHAIN;
+import static org.upb_sw_factChecking.scoring.TestGraphs.SINGLE;
+import static org.upb_sw_factChecking.scoring.TestGraphs.example;
+
+class LearnedRulesTest {
+
+    private static WeightedRule[] generated(boolean isPositive, String... rules) {
+        return Arrays.stream(rules).map(rule -> new WeightedRule(Rule.parseRule(rule), isPositive)).toArray(WeightedRule[]::new);
+    }
+
+    private static void addFirstExamples(LearnedRules learned) {
+        // The chain is found on two paths for the first example, it still covers the example once.
+        learned.addExample(example("f1", 1.0), generated(true, CHAIN, CHAIN, SINGLE));
+        learned.addExample(example("f2", 0.0), generated(false, CHAIN));
+    }
+
+    private static void addLastExample(LearnedRules learned) {
+        learned.addExample(example("f3", 1.0), generated(true, CHAIN));
+    }
+
+    private static Map<WeightedRule, WeightedRule> byRule(LearnedRules learned) {
+        return Arrays.stream(learned.getRules()).collect(Collectors.toMap(Function.identity(), Function.identity()));
+    }
+
+    private static void assertCounters(WeightedRule rule, int examples, int counters, int examplesUnbound, int countersUnbound) {
+        assertEquals(examples, rule.getNumberOfCoveredExamples());
+        assertEquals(counters, rule.getNumberOfCoveredCounters());
+        assertEquals(examplesUnbound, rule.getNumberOfCoveredExamplesUnbound());
+        assertEquals(countersUnbound, rule.getNumberOfCoveredCountersUnbound());
+    }
+
+    @Test
+    void countsExamplesPerBodyAndPredicate() {
+        final var learned = new LearnedRules();
+        addFirstExamples(learned);
+        addLastExample(learned);
+        learned.weightRules(0.3, 0.7, 0.5);
+
+        final var rules = byRule(learned);
+        assertEquals(3, rules.size());
+        assertCounters(rules.get(generated(true, CHAIN)[0]), 2, 1, 2, 1);
+        assertCounters(rules.get(generated(false, CHAIN)[0]), 1, 2, 1, 2);
+        assertCounters(rules.get(generated(true, SINGLE)[0]), 1, 0, 2, 1);
+        assertEquals(3, learned.getLearnedExampleCount());
+    }
+
+    @Test
+    void learnedExamplesAreSkipped() {
+        final var learned = new LearnedRules();
+        addFirstExamples(learned);
+        assertTrue(learned.isLearned(example("f1", 1.0)));
+        assertFalse(learned.isLearned(example("f3", 1.0)));
+
+        addFirstExamples(learned);
+        learned.weightRules(0.3, 0.7, 0.5);
+        assertCounters(byRule(learned).get(generated(true, CHAIN)[0]), 1, 1, 1, 1);
+    }
+
+    @Test
+    void incrementalLearningMatchesLearningAtOnce(@TempDir Path dir) throws IOException {
+        final var atOnce = new LearnedRules();
+        addFirstExamples(atOnce);
+        addLastExample(atOnce);
+        atOnce.weightRules(0.3, 0.7, 0.5);
+        final var expected = byRule(atOnce);
+
+        for (String name : List.of("rules.txt", "rules.bin")) {
+            final var file = dir.resolve(name);
+            final var first = new LearnedRules();
+            addFirstExamples(first);
+            first.weightRules(0.3, 0.7, 0.5);
+            first.save(file);
+
+            final var incremental = LearnedRules.load(file);
+            assertEquals(2, incremental.getLearnedExampleCount());
+            addLastExample(incremental);
+            incremental.weightRules(0.3, 0.7, 0.5);
+
+            final var actual = byRule(incremental);
+            assertEquals(expected.keySet(), actual.keySet(), name);
+            for (var rule : expected.values()) {
+                final var other = actual.get(rule);
+                assertEquals(rule.weight, other.weight, 1e-9, name);
+                assertCounters(other, rule.getNumberOfCoveredExamples(), rule.getNumberOfCoveredCounters(),
+                        rule.getNumberOfCoveredExamplesUnbound(), rule.getNumberOfCoveredCountersUnbound());
+            }
+        }
+    }
+
+    @Test
+    void rulesWithoutLearningStateCannotBeExtended(@TempDir Path dir) throws IOException {
+        final var file = dir.resolve("rules.txt");
+        Files.write(file, List.of("1", "positive; " + SINGLE.substring(0, SINGLE.length() - 2) + "; 0.5"));
+        assertThrows(IOException.class, () -> LearnedRules.load(file));
+    }
+}
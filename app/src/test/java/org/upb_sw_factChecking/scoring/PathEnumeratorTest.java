@@ -0,0 +1,128 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Statement;
+import org.junit.jupiter.api.Test;
+import org.upb_sw_factChecking.graph.CsrGraphBuilder;
+import org.upb_sw_factChecking.graph.DegreeStatistics;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.scoring.TestGraphs.NS;
+import static org.upb_sw_factChecking.scoring.TestGraphs.chainWith;
+
+class PathEnumeratorTest {
+
+    // a -p-> b -q-> c, a -r-> c, b -s-> x -t-> c, a -u-> y (dead end)
+    private static Model createModel() {
+        return chainWith("a r c", "b s x", "x t c", "a u y");
+    }
+
+    private static Set<String> predicateChains(Statement[][] paths) {
+        return Arrays.stream(paths)
+                .map(path -> Arrays.stream(path)
+                        .map(statement -> statement.getPredicate().getLocalName())
+                        .collect(Collectors.joining(" ")))
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void findsAllPathsUpToInitialLength() {
+        final var model = createModel();
+        final var paths = PathEnumerator.findPaths(model, model.createResource(NS + "a"), model.createResource(NS + "c"), 3, 6);
+
+        assertEquals(3, paths.length);
+        assertEquals(Set.of("r", "p q", "p s t"), predicateChains(paths));
+        for (Statement[] path : paths) {
+            assertEquals(NS + "a", path[0].getSubject().getURI());
+            assertEquals(NS + "c", path[path.length - 1].getObject().asResource().getURI());
+            for (int i = 1; i < path.length; i++) {
+                assertEquals(path[i - 1].getObject(), path[i].getSubject());
+            }
+        }
+    }
+
+    @Test
+    void respectsMaximumPathLength() {
+        final var model = createModel();
+        final var paths = PathEnumerator.findPaths(model, model.createResource(NS + "a"), model.createResource(NS + "c"), 2, 2);
+
+        assertEquals(Set.of("r", "p q"), predicateChains(paths));
+    }
+
+    @Test
+    void extendsPathLengthUntilAPathIsFound() {
+        final var model = createModel();
+        final var paths = PathEnumerator.findPaths(model, model.createResource(NS + "b"), model.createResource(NS + "c"), 1, 6);
+        assertEquals(Set.of("q"), predicateChains(paths));
+
+        final var longer = PathEnumerator.findPaths(model, model.createResource(NS + "a"), model.createResource(NS + "x"), 1, 6);
+        assertEquals(Set.of("p s"), predicateChains(longer));
+
+        final var none = PathEnumerator.findPaths(model, model.createResource(NS + "c"), model.createResource(NS + "a"), 1, 6);
+        assertEquals(0, none.length);
+    }
+
+    @Test
+    void searchStopsAtTheDeadlineAndKeepsThePathsFound() {
+        // a -r-> c, and a hub on both sides: a -h-> n_i, m_i -h-> c
+        final var model = createModel();
+        final var h = model.createProperty(NS + "h");
+        for (int i = 0; i < 3000; i++) {
+            model.add(model.createResource(NS + "a"), h, model.createResource(NS + "n" + i));
+            model.add(model.createResource(NS + "m" + i), h, model.createResource(NS + "c"));
+        }
+        final var subject = model.createResource(NS + "a");
+        final var object = model.createResource(NS + "c");
+
+        final var expired = PathEnumerator.search(model, subject, object, 3, 6, System.nanoTime() - 1);
+        assertTrue(expired.timedOut());
+        assertTrue(predicateChains(expired.paths()).contains("r"));
+
+        final var unlimited = PathEnumerator.search(model, subject, object, 3, 6, Long.MAX_VALUE);
+        assertFalse(unlimited.timedOut());
+        assertEquals(Set.of("r", "p q", "p s t"), predicateChains(unlimited.paths()));
+    }
+
+    @Test
+    void csrGraphIsSearchedOnItsTermIds() {
+        final var model = ModelFactory.createModelForGraph(CsrGraphBuilder.fromGraph(createModel().getGraph()));
+        final var paths = PathEnumerator.findPaths(model, model.createResource(NS + "a"), model.createResource(NS + "c"), 3, 6);
+        assertEquals(Set.of("r", "p q", "p s t"), predicateChains(paths));
+        for (Statement[] path : paths) {
+            for (int i = 1; i < path.length; i++) {
+                assertEquals(path[i - 1].getObject(), path[i].getSubject());
+            }
+        }
+
+        final var unknown = PathEnumerator.findPaths(model, model.createResource(NS + "a"), model.createResource(NS + "unknown"), 1, 6);
+        assertEquals(0, unknown.length);
+    }
+
+    @Test
+    void prunedSearchDoesNotPassThroughHubs() {
+        // b becomes a hub with 20 additional incoming edges.
+        final var model = createModel();
+        for (int i = 0; i < 20; i++) {
+            model.add(model.createResource(NS + "z" + i), model.createProperty(NS + "k"), model.createResource(NS + "b"));
+        }
+        final var degrees = DegreeStatistics.compute(model.getGraph(), 5);
+        final var pruning = new PathEnumerator.Pruning(degrees, 10, 0);
+
+        final var pruned = PathEnumerator.search(model, model.createResource(NS + "a"), model.createResource(NS + "c"), 3, 6, Long.MAX_VALUE, pruning);
+        assertEquals(Set.of("r"), predicateChains(pruned.paths()));
+
+        // The hub is still a valid end of a path.
+        final var toHub = PathEnumerator.search(model, model.createResource(NS + "a"), model.createResource(NS + "b"), 1, 6, Long.MAX_VALUE, pruning);
+        assertEquals(Set.of("p"), predicateChains(toHub.paths()));
+
+        // A graph in compressed sparse row form is pruned by its own degrees.
+        final var csr = ModelFactory.createModelForGraph(CsrGraphBuilder.fromGraph(model.getGraph()));
+        final var prunedCsr = PathEnumerator.search(csr, csr.createResource(NS + "a"), csr.createResource(NS + "c"), 3, 6, Long.MAX_VALUE, pruning);
+        assertEquals(Set.of("r"), predicateChains(prunedCsr.paths()));
+    }
+}
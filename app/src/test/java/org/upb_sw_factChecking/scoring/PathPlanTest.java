@@ -0,0 +1,131 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.junit.jupiter.api.Test;
+import org.upb_sw_factChecking.graph.CsrGraphBuilder;
+import org.upb_sw_factChecking.graph.KnowledgeGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.scoring.TestGraphs.NS;
+import static org.upb_sw_factChecking.scoring.TestGraphs.chainWith;
+import static org.upb_sw_factChecking.scoring.TestGraphs.node;
+
+class PathPlanTest {
+
+    private static Model createModel() {
+        return chainWith("a p d", "d q \"c\"");
+    }
+
+    private static Rule rule() {
+        return Rule.parseRule("(?e0, <" + NS + "p>, ?e1), (?e1, <" + NS + "q>, ?e2) -> (?e0, <" + NS + "r>, ?e2) .");
+    }
+
+    @Test
+    void compileExtractsPredicatesInOrder() {
+        final var plan = PathPlan.compile(rule());
+        assertEquals(2, plan.length());
+        assertEquals(NS + "p", plan.getPredicates()[0].getURI());
+        assertEquals(NS + "q", plan.getPredicates()[1].getURI());
+    }
+
+    @Test
+    void connectsFollowsThePredicateChain() {
+        final var graph = KnowledgeGraph.of(createModel().getGraph());
+        final var plan = PathPlan.compile(rule());
+        final var a = node("a");
+        final var c = node("c");
+
+        assertTrue(plan.connects(graph, a, c));
+        assertTrue(plan.connects(graph, a, ResourceFactory.createPlainLiteral("c").asNode()));
+        assertFalse(plan.connects(graph, c, a));
+        assertFalse(plan.connects(graph, a, node("b")));
+    }
+
+    @Test
+    void connectsAllCarriesTheStartNodes() {
+        final var model = createModel();
+        model.add(model.createResource(NS + "e"), model.createProperty(NS + "p"), model.createResource(NS + "b"));
+        final var graph = KnowledgeGraph.of(model.getGraph());
+        final var plan = PathPlan.compile(rule());
+        final var a = node("a");
+        final var c = node("c");
+        final var e = node("e");
+        final var literal = ResourceFactory.createPlainLiteral("c").asNode();
+
+        final var reached = plan.connectsAll(graph, List.of(a, e, c), Set.of(c, literal));
+        assertEquals(Set.of(a, e), reached.get(c));
+        assertEquals(Set.of(a), reached.get(literal));
+        assertEquals(2, reached.size());
+
+        assertTrue(plan.connectsAll(graph, List.of(a), Set.of(a)).isEmpty());
+    }
+
+    @Test
+    void witnessIsTakenFromTheBindingsOfConnectsAll() {
+        final var model = createModel();
+        model.add(model.createResource(NS + "e"), model.createProperty(NS + "p"), model.createResource(NS + "g"));
+        model.add(model.createResource(NS + "g"), model.createProperty(NS + "q"), model.createResource(NS + "c"));
+        final var graph = KnowledgeGraph.of(model.getGraph());
+        final var plan = PathPlan.compile(rule());
+        final var a = node("a");
+        final var b = node("b");
+        final var c = node("c");
+        final var e = node("e");
+        final var g = node("g");
+
+        final List<Map<Node, Set<Node>>> layers = new ArrayList<>();
+        final var reached = plan.connectsAll(graph, List.of(a, e), Set.of(c), layers);
+        assertEquals(Set.of(a, e), reached.get(c));
+        assertEquals(plan.length(), layers.size());
+
+        assertArrayEquals(new Node[]{a, b, c}, plan.witness(graph, layers, a, c));
+        assertArrayEquals(new Node[]{e, g, c}, plan.witness(graph, layers, e, c));
+        assertNull(plan.witness(graph, layers, b, c));
+    }
+
+    @Test
+    void connectsAllOnTermIdsOfACsrGraph() {
+        final var model = createModel();
+        model.add(model.createResource(NS + "e"), model.createProperty(NS + "p"), model.createResource(NS + "b"));
+        model.add(model.createResource(NS + "e"), model.createProperty(NS + "p"), model.createResource(NS + "g"));
+        model.add(model.createResource(NS + "g"), model.createProperty(NS + "q"), model.createResource(NS + "c"));
+        final var graph = CsrGraphBuilder.fromGraph(model.getGraph());
+        final var plan = PathPlan.compile(rule());
+        final var a = node("a");
+        final var c = node("c");
+        final var e = node("e");
+        final var literal = ResourceFactory.createPlainLiteral("c").asNode();
+        final var unknown = node("unknown");
+
+        final List<Map<Node, Set<Node>>> layers = new ArrayList<>();
+        final var reached = plan.connectsAll(graph, List.of(a, e, c, unknown), Set.of(c, literal, unknown), layers);
+        assertEquals(Set.of(a, e), reached.get(c));
+        assertEquals(Set.of(a), reached.get(literal));
+        assertEquals(2, reached.size());
+        assertEquals(plan.length(), layers.size());
+        assertEquals(Set.of(e), layers.get(1).get(node("g")));
+
+        assertEquals(3, plan.witness(graph, layers, e, c).length);
+        assertTrue(plan.connectsAll(graph, List.of(a), Set.of(a)).isEmpty());
+        assertTrue(plan.connectsAll(graph, List.of(unknown), Set.of(c)).isEmpty());
+    }
+
+    @Test
+    void doesRuleApplyMatchesHeadPredicate() {
+        final var model = createModel();
+        final var rule = new WeightedRule(rule(), true);
+        final var a = model.createResource(NS + "a");
+        final var c = model.createResource(NS + "c");
+
+        assertTrue(rule.doesRuleApply(model, model.createStatement(a, model.createProperty(NS + "r"), c)));
+        assertFalse(rule.doesRuleApply(model, model.createStatement(a, model.createProperty(NS + "s"), c)));
+    }
+}
@@ -0,0 +1,71 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.junit.jupiter.api.Test;
+import org.upb_sw_factChecking.graph.KnowledgeGraph;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.scoring.TestGraphs.NS;
+import static org.upb_sw_factChecking.scoring.TestGraphs.chainWith;
+import static org.upb_sw_factChecking.scoring.TestGraphs.node;
+
+class ReachabilityCacheTest {
+
+    private static Model createModel() {
+        return chainWith("a p d", "d q \"c\"", "c s e");
+    }
+
+    private static PathPlan plan(String... predicates) {
+        final var body = new StringBuilder();
+        for (int i = 0; i < predicates.length; i++) {
+            body.append("(?e").append(i).append(", <").append(NS).append(predicates[i]).append(">, ?e").append(i + 1).append(") ");
+        }
+        return PathPlan.compile(Rule.parseRule(body + "-> (?e0, <" + NS + "r>, ?e" + predicates.length + ") ."));
+    }
+
+    @Test
+    void reachableCachesPrefixes() {
+        final var graph = KnowledgeGraph.of(createModel().getGraph());
+        final var cache = new ReachabilityCache(1000, ReachabilityCache.Eviction.LRU);
+
+        // A lookup is counted once, the lookups of its prefixes are not counted.
+        assertEquals(Set.of(node("c"), ResourceFactory.createPlainLiteral("c").asNode()), cache.reachable(graph, plan("p", "q"), node("a")));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // The prefix was cached along the way, and equal bodies share their entries.
+        assertEquals(Set.of(node("b"), node("d")), cache.getIfPresent(plan("p"), node("a")));
+        assertEquals(Set.of(node("e")), cache.reachable(graph, plan("p", "q", "s"), node("a")));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1.0 / 3, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    void findPathReconstructsTheIntermediateNodes() {
+        final var graph = KnowledgeGraph.of(createModel().getGraph());
+        final var cache = new ReachabilityCache(1000, ReachabilityCache.Eviction.FIFO);
+
+        assertArrayEquals(new Node[]{node("a"), node("b"), node("c"), node("e")},
+                cache.findPath(graph, plan("p", "q", "s"), node("a"), node("e")));
+        assertNull(cache.findPath(graph, plan("p", "q"), node("a"), node("e")));
+        // Evidence paths belong to lookups that were already counted.
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void zeroSizeDisablesTheCache() {
+        final var graph = KnowledgeGraph.of(createModel().getGraph());
+        final var cache = new ReachabilityCache(0, ReachabilityCache.Eviction.LRU);
+
+        assertEquals(Set.of(node("b"), node("d")), cache.reachable(graph, plan("p"), node("a")));
+        assertNull(cache.getIfPresent(plan("p"), node("a")));
+        assertEquals(0, cache.getHits());
+    }
+}
@@ -0,0 +1,64 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.scoring.TestGraphs.CHAIN;
+import static org.upb_sw_factChecking.scoring.TestGraphs.SINGLE;
+import static org.upb_sw_factChecking.scoring.TestGraphs.example;
+
+class RuleCheckpointTest {
+
+    private static WeightedRule rule(String rule, boolean isPositive) {
+        return new WeightedRule(Rule.parseRule(rule), isPositive);
+    }
+
+    @Test
+    void pathIsNextToTheRulesFile(@TempDir Path dir) {
+        assertEquals(dir.resolve("rules.bin.checkpoint"), RuleCheckpoint.pathFor(dir.resolve("rules.bin")));
+    }
+
+    @Test
+    void reopeningResumesFinishedExamples(@TempDir Path dir) throws IOException {
+        final var file = dir.resolve("rules.txt.checkpoint");
+        try (var checkpoint = RuleCheckpoint.open(file, new LearnedRules())) {
+            checkpoint.append(example("f1", 1.0), new WeightedRule[]{rule(CHAIN, true), rule(SINGLE, true)});
+            checkpoint.append(example("f2", 0.0), new WeightedRule[]{rule(CHAIN, false)});
+            checkpoint.append(example("f3", 0.0), new WeightedRule[0]);
+        }
+        // A crash in the middle of a line.
+        Files.writeString(file, "http://example.org/f4\t1.0\thttp://exa", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        final var learned = new LearnedRules();
+        try (var checkpoint = RuleCheckpoint.open(file, learned)) {
+            assertEquals(3, learned.getLearnedExampleCount());
+            assertTrue(learned.isLearned(example("f3", 0.0)));
+            assertFalse(learned.isLearned(example("f4", 1.0)));
+            assertEquals(Set.of(rule(CHAIN, true), rule(SINGLE, true), rule(CHAIN, false)), Set.of(learned.getRules()));
+
+            checkpoint.append(example("f4", 1.0), new WeightedRule[]{rule(SINGLE, true)});
+        }
+
+        final var resumed = new LearnedRules();
+        RuleCheckpoint.open(file, resumed).delete();
+        assertEquals(4, resumed.getLearnedExampleCount());
+        assertFalse(Files.exists(file));
+
+        resumed.weightRules(0.3, 0.7, 0.5);
+        for (WeightedRule rule : resumed.getRules()) {
+            if (rule.equals(rule(SINGLE, true))) {
+                assertEquals(2, rule.getNumberOfCoveredExamples());
+                assertEquals(0, rule.getNumberOfCoveredCounters());
+            }
+        }
+    }
+}
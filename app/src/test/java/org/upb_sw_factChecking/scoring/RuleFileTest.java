@@ -0,0 +1,80 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.scoring.TestGraphs.NS;
+import static org.upb_sw_factChecking.scoring.TestGraphs.node;
+
+class RuleFileTest {
+
+    private static WeightedRule rule(String body, String head, boolean isPositive, double weight) {
+        final var rule = new WeightedRule(Rule.parseRule(body + " -> " + head + " ."), isPositive);
+        rule.setWeight(weight);
+        return rule;
+    }
+
+    private static WeightedRule[] rules() {
+        return new WeightedRule[]{
+                rule("(?e0, <" + NS + "p>, ?e1), (?e1, <" + NS + "q>, ?e2)", "(?e0, <" + NS + "r>, ?e2)", true, 0.5),
+                rule("(?e0, <" + NS + "s>, ?e1)", "(?e0, <" + NS + "r>, ?e1)", false, 0.25),
+                rule("(?e0, <" + NS + "q>, ?e1)", "(?e0, <" + NS + "r>, ?e1)", true, 0.125),
+                rule("(?e0, <" + NS + "p>, ?e1)", "(?e0, <" + NS + "t>, ?e1)", true, 1.0),
+        };
+    }
+
+    @Test
+    void segmentsAreSortedByPolarityAndWeight(@TempDir Path dir) throws IOException {
+        final var file = dir.resolve("rules.bin");
+        WeightedRule.serializeRules(rules(), file);
+
+        assertTrue(RuleFile.isRuleFile(file));
+        final var ruleFile = RuleFile.open(file);
+        assertEquals(4, ruleFile.ruleCount());
+        assertEquals(Set.of(node("r"), node("t")), ruleFile.headPredicates());
+
+        final var segment = ruleFile.load(node("r"));
+        assertEquals(3, segment.length);
+        assertArrayEquals(new Node[]{node("q")}, segment[0].getPlan().getPredicates());
+        assertEquals(0.125, segment[0].weight);
+        assertArrayEquals(new Node[]{node("p"), node("q")}, segment[1].getPlan().getPredicates());
+        assertTrue(segment[1].isPositive);
+        assertFalse(segment[2].isPositive);
+        assertEquals(node("r"), segment[2].getHeadPredicate());
+
+        assertEquals(0, ruleFile.load(node("p")).length);
+    }
+
+    @Test
+    void convertsBetweenTextAndBinary(@TempDir Path dir) throws IOException {
+        final var binary = dir.resolve("rules.bin");
+        final var text = dir.resolve("rules.txt");
+        WeightedRule.serializeRules(rules(), binary);
+        WeightedRule.serializeRules(WeightedRule.loadRules(binary), text);
+
+        assertFalse(RuleFile.isRuleFile(text));
+        assertEquals("4", Files.readAllLines(text).get(0));
+        final var loaded = WeightedRule.loadRules(text);
+        assertEquals(Set.of(rules()), Set.of(loaded));
+    }
+
+    @Test
+    void predicatesOfHeadsAndBodiesAreReadFromBothFormats(@TempDir Path dir) throws IOException {
+        final var binary = dir.resolve("rules.bin");
+        final var text = dir.resolve("rules.txt");
+        WeightedRule.serializeRules(rules(), binary);
+        WeightedRule.serializeRules(rules(), text);
+
+        final var expected = Set.of(node("p"), node("q"), node("r"), node("s"), node("t"));
+        assertEquals(expected, WeightedRule.readPredicates(binary));
+        assertEquals(expected, WeightedRule.readPredicates(text));
+    }
+}
@@ -0,0 +1,46 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.scoring.TestGraphs.CHAIN;
+import static org.upb_sw_factChecking.scoring.TestGraphs.node;
+
+class RuleKeyTest {
+
+    @Test
+    void equalRulesShareTheKey() {
+        final var parsed = new WeightedRule(Rule.parseRule(CHAIN), true);
+        final var fromPredicates = WeightedRule.fromPredicates(node("r"), new Node[]{node("p"), node("q")}, true, 0.5);
+
+        assertSame(parsed.getKey(), fromPredicates.getKey());
+        assertEquals(parsed, fromPredicates);
+        assertEquals(2, parsed.getKey().bodyLength());
+    }
+
+    @Test
+    void polarityAndPredicateOrderAreDistinguished() {
+        final var positive = RuleKey.of(true, node("r"), new Node[]{node("p"), node("q")});
+        final var negative = RuleKey.of(false, node("r"), new Node[]{node("p"), node("q")});
+
+        assertNotEquals(positive, negative);
+        assertSame(positive, negative.withPolarity(true));
+        assertFalse(negative.isPositive());
+        assertNotEquals(positive, RuleKey.of(true, node("r"), new Node[]{node("q"), node("p")}));
+        assertNotEquals(positive, RuleKey.of(true, node("p"), new Node[]{node("r"), node("q")}));
+    }
+
+    @Test
+    void unusedKeysAreDroppedFromTheRuleTable() throws InterruptedException {
+        final var unused = new WeakReference<>(RuleKey.of(true, node("r"), new Node[]{node("unused")}));
+        for (int i = 0; i < 100 && unused.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(unused.get());
+    }
+}
@@ -0,0 +1,85 @@
+package org.upb_sw_factChecking.scoring;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.upb_sw_factChecking.dataset.TrainingSet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Small knowledge graphs and rules shared by the scoring and server tests.
+ * <p>
+ * Every graph contains the chain <code>a -p-> b -q-> c</code> in the namespace {@link #NS}, which the positive rule
+ * written by {@link #writeRules} follows.
+ */
+public final class TestGraphs {
+
+    public static final String NS = "http://example.org/";
+    /** Rule following the chain <code>p q -> r</code>. */
+    public static final String CHAIN = "(?e0, <" + NS + "p>, ?e1), (?e1, <" + NS + "q>, ?e2) -> (?e0, <" + NS + "r>, ?e2) .";
+    /** Rule <code>s -> r</code> of a single triple. */
+    public static final String SINGLE = "(?e0, <" + NS + "s>, ?e1) -> (?e0, <" + NS + "r>, ?e1) .";
+
+    private TestGraphs() {}
+
+    /**
+     * Creates the chain <code>a -p-> b -q-> c</code> with further triples.
+     *
+     * @param triples the further triples, each as local names <code>"subject predicate object"</code>,
+     *                an object in double quotes is a plain literal
+     * @return        the model
+     */
+    public static Model chainWith(String... triples) {
+        final var model = ModelFactory.createDefaultModel();
+        model.add(model.createResource(NS + "a"), model.createProperty(NS + "p"), model.createResource(NS + "b"));
+        model.add(model.createResource(NS + "b"), model.createProperty(NS + "q"), model.createResource(NS + "c"));
+        for (String triple : triples) {
+            final var terms = triple.split(" ");
+            final var object = terms[2].startsWith("\"")
+                    ? model.createLiteral(terms[2].substring(1, terms[2].length() - 1))
+                    : model.createResource(NS + terms[2]);
+            model.add(model.createResource(NS + terms[0]), model.createProperty(NS + terms[1]), object);
+        }
+        return model;
+    }
+
+    public static Node node(String name) {
+        return NodeFactory.createURI(NS + name);
+    }
+
+    /**
+     * Creates a training example for the fact <code>(names, r, nameo)</code>.
+     *
+     * @param name       the name of the example
+     * @param truthValue the truth value of the fact
+     * @return           the example
+     */
+    public static TrainingSet.TrainingSetEntry example(String name, double truthValue) {
+        final var model = ModelFactory.createDefaultModel();
+        return new TrainingSet.TrainingSetEntry(model.createResource(NS + name),
+                model.createStatement(model.createResource(NS + name + "s"), model.createProperty(NS + "r"), model.createResource(NS + name + "o")),
+                truthValue);
+    }
+
+    /**
+     * Writes a rules file with a positive rule <code>p q -> r</code> and a negative rule <code>s -> r</code> of
+     * weight 0.4.
+     *
+     * @param file           the rules file
+     * @param positiveWeight the weight of the positive rule
+     * @return               the rules file
+     * @throws IOException if the file can not be written
+     */
+    public static Path writeRules(Path file, double positiveWeight) throws IOException {
+        Files.write(file, List.of(
+                "2",
+                "positive; (?e0 <" + NS + "p> ?e1) (?e1 <" + NS + "q> ?e2) -> (?e0 <" + NS + "r> ?e2); " + positiveWeight,
+                "negative; (?e0 <" + NS + "s> ?e1) -> (?e0 <" + NS + "r> ?e1); 0.4"));
+        return file;
+    }
+}
@@ -0,0 +1,149 @@
+package org.upb_sw_factChecking.server;
+
+import org.apache.jena.rdf.model.Model;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.upb_sw_factChecking.scoring.FactScorer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.upb_sw_factChecking.scoring.TestGraphs.NS;
+import static org.upb_sw_factChecking.scoring.TestGraphs.chainWith;
+import static org.upb_sw_factChecking.scoring.TestGraphs.writeRules;
+
+class ScoringServerTest {
+
+    private static Model createModel() {
+        return chainWith("a s x");
+    }
+
+    private static final int MAX_REQUEST_SIZE = 4096;
+
+    private static ScoringServer start(Model model, Path rules) throws IOException {
+        final var server = new ScoringServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), rules, 2, TimeUnit.MILLISECONDS.toNanos(1), MAX_REQUEST_SIZE);
+        server.load(file -> {
+            final var scorer = new FactScorer(model);
+            return scorer.loadRulesFromFile(file) ? scorer : null;
+        });
+        return server;
+    }
+
+    private static HttpResponse<String> send(HttpClient client, ScoringServer server, String method, String path, String body) throws Exception {
+        final var request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String triple(String subject, String predicate, String object) {
+        return "<" + NS + subject + "> <" + NS + predicate + "> <" + NS + object + "> .\n";
+    }
+
+    @Test
+    void scoresPlainTriplesInRequestOrder(@TempDir Path dir) throws Exception {
+        final var rules = dir.resolve("rules.txt");
+        writeRules(rules, 0.2);
+        final var client = HttpClient.newHttpClient();
+        try (var server = start(createModel(), rules)) {
+            assertEquals(200, send(client, server, "GET", "/ready", null).statusCode());
+            assertEquals(200, send(client, server, "GET", "/health", null).statusCode());
+
+            final var response = send(client, server, "POST", "/score",
+                    triple("a", "r", "c") + triple("a", "r", "x") + triple("c", "r", "a"));
+            assertEquals(200, response.statusCode());
+            assertEquals(List.of("0.9", "0.2", "0.5"), response.body().lines().toList());
+
+            assertEquals(400, send(client, server, "POST", "/score", "not n-triples").statusCode());
+            assertEquals(413, send(client, server, "POST", "/score", triple("a", "r", "c").repeat(MAX_REQUEST_SIZE / 20)).statusCode());
+            assertEquals(405, send(client, server, "GET", "/score", null).statusCode());
+        }
+    }
+
+    @Test
+    void answersReifiedFactsWithTruthValueTriples(@TempDir Path dir) throws Exception {
+        final var rules = dir.resolve("rules.txt");
+        writeRules(rules, 0.2);
+        final var client = HttpClient.newHttpClient();
+        try (var server = start(createModel(), rules)) {
+            final var rdf = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+            final var body = "<" + NS + "f1> <" + rdf + "subject> <" + NS + "a> .\n"
+                    + "<" + NS + "f1> <" + rdf + "predicate> <" + NS + "r> .\n"
+                    + "<" + NS + "f1> <" + rdf + "object> <" + NS + "c> .\n";
+            final var response = send(client, server, "POST", "/score", body);
+            assertEquals(200, response.statusCode());
+            assertEquals("<" + NS + "f1> <http://swc2017.aksw.org/hasTruthValue> \"0.9\"^^<http://www.w3.org/2001/XMLSchema#double> .\n",
+                    response.body());
+
+            final var incomplete = send(client, server, "POST", "/score", body + "<" + NS + "f2> <" + rdf + "subject> <" + NS + "a> .\n");
+            assertEquals(400, incomplete.statusCode());
+            assertTrue(incomplete.body().startsWith("1 of 2 reified facts are incomplete"));
+
+            final var mixed = send(client, server, "POST", "/score", body + triple("a", "r", "x"));
+            assertEquals(400, mixed.statusCode());
+            assertTrue(mixed.body().startsWith("Reified facts can not be mixed with plain triples"));
+        }
+    }
+
+    @Test
+    void concurrentRequestsAreBatchedTogether(@TempDir Path dir) throws Exception {
+        final var rules = dir.resolve("rules.txt");
+        writeRules(rules, 0.2);
+        final var client = HttpClient.newHttpClient();
+        try (var server = start(createModel(), rules)) {
+            final List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                final var body = i % 2 == 0 ? triple("a", "r", "c") + triple("a", "r", "x") : triple("a", "r", "x");
+                responses.add(client.sendAsync(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/score"))
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString()));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                final var expected = i % 2 == 0 ? List.of("0.9", "0.2") : List.of("0.2");
+                assertEquals(expected, responses.get(i).get().body().lines().toList(), "request " + i);
+            }
+        }
+    }
+
+    @Test
+    void reloadKeepsPreviousRulesIfTheFileCanNotBeLoaded(@TempDir Path dir) throws Exception {
+        final var rules = dir.resolve("rules.txt");
+        writeRules(rules, 0.2);
+        final var client = HttpClient.newHttpClient();
+        try (var server = start(createModel(), rules)) {
+            writeRules(rules, 0.6);
+            assertEquals(200, send(client, server, "POST", "/reload", null).statusCode());
+            assertEquals("0.7", send(client, server, "POST", "/score", triple("a", "r", "c")).body().trim());
+
+            Files.delete(rules);
+            assertEquals(500, send(client, server, "POST", "/reload", null).statusCode());
+            assertTrue(server.isReady());
+            assertEquals("0.7", send(client, server, "POST", "/score", triple("a", "r", "c")).body().trim());
+        }
+    }
+
+    @Test
+    void notReadyBeforeTheRulesAreLoaded(@TempDir Path dir) throws Exception {
+        final var client = HttpClient.newHttpClient();
+        try (var server = new ScoringServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), dir.resolve("rules.txt"), 2, 0, MAX_REQUEST_SIZE)) {
+            assertEquals(503, send(client, server, "GET", "/ready", null).statusCode());
+            assertEquals(503, send(client, server, "POST", "/score", triple("a", "r", "c")).statusCode());
+            assertFalse(server.load(file -> {
+                final var scorer = new FactScorer(createModel());
+                return scorer.loadRulesFromFile(file) ? scorer : null;
+            }));
+            assertEquals(503, send(client, server, "GET", "/ready", null).statusCode());
+        }
+    }
+}